@@ -38,6 +38,14 @@ public class DefaultLintClient extends LintClient {
         mLint.scanFile(file);
     }
 
+    /**
+     * Scans every java file of the project, compiling them in a single batch
+     */
+    public void scanProject() {
+        mIssues.clear();
+        mLint.scanProject();
+    }
+
     @Override
     public void report(@NonNull Context context, @NonNull Issue issue, @NonNull Severity severity, @Nullable Location location, @NonNull String message, @NonNull TextFormat format) {
         if (location != null) {
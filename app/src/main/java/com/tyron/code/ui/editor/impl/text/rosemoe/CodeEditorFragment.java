@@ -382,7 +382,7 @@ public class CodeEditorFragment extends Fragment implements Savable,
             if (event.getAction() == ContentChangeEvent.ACTION_SET_NEW_TEXT) {
                 return;
             }
-            updateFile(event.getEditor().getText());
+            applyEdit(event);
         });
 
         LogViewModel logViewModel =
@@ -574,9 +574,10 @@ public class CodeEditorFragment extends Fragment implements Savable,
         }
     }
 
-    private ListenableFuture<String> readFile() {
+    private ListenableFuture<String> readFile(FileManager fileManager) {
         return Futures.submitAsync(() -> {
-            String contents = FileUtils.readFileToString(mCurrentFile, StandardCharsets.UTF_8);
+            // a closed file may not be saved yet, its contents on disk are then outdated
+            String contents = fileManager.readFileContent(mCurrentFile).toString();
             return Futures.immediateFuture(contents);
         }, Executors.newSingleThreadExecutor());
     }
@@ -598,7 +599,7 @@ public class CodeEditorFragment extends Fragment implements Savable,
 
         mReading = true;
         mEditor.setBackgroundAnalysisEnabled(false);
-        ListenableFuture<String> future = readFile();
+        ListenableFuture<String> future = readFile(fileManager);
         Futures.addCallback(future, new FutureCallback<String>() {
             @Override
             public void onSuccess(@Nullable String result) {
@@ -690,6 +691,42 @@ public class CodeEditorFragment extends Fragment implements Savable,
         }
     }
 
+    /**
+     * Applies only the changed range to the snapshot instead of copying the whole text of the
+     * editor on every keystroke.
+     */
+    private void applyEdit(ContentChangeEvent event) {
+        Project project = ProjectManager.getInstance().getCurrentProject();
+        if (project == null) {
+            return;
+        }
+        Module module = project.getModule(mCurrentFile);
+        if (module == null) {
+            return;
+        }
+        FileManager fileManager = module.getFileManager();
+        if (!fileManager.isOpened(mCurrentFile)) {
+            return;
+        }
+
+        int start = event.getChangeStart().getIndex();
+        if (event.getAction() == ContentChangeEvent.ACTION_INSERT) {
+            fileManager.applySnapshotEdit(mCurrentFile, start, start, event.getChangedText(), this);
+        } else if (event.getAction() == ContentChangeEvent.ACTION_DELETE) {
+            fileManager.applySnapshotEdit(mCurrentFile, start, event.getChangeEnd().getIndex(), "",
+                                          this);
+        }
+
+        // Fall back to the whole text if the snapshot went out of sync with the editor
+        CharSequence text = event.getEditor().getText();
+        int snapshotLength = fileManager.getFileContent(mCurrentFile)
+                .map(CharSequence::length)
+                .orElse(-1);
+        if (snapshotLength != text.length()) {
+            updateFile(text);
+        }
+    }
+
     public CodeEditorView getEditor() {
         return mEditor;
     }
@@ -17,6 +17,7 @@ import androidx.core.content.res.ResourcesCompat;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.tyron.builder.log.LogSnapshot;
 import com.tyron.builder.model.DiagnosticWrapper;
 import com.tyron.code.R;
 
@@ -35,6 +36,13 @@ public class LogAdapter extends RecyclerView.Adapter<LogAdapter.ViewHolder>{
     private final List<DiagnosticWrapper> mData = new ArrayList<>();
     private OnClickListener mListener;
 
+    /**
+     * The generation and first sequence number of the last submitted {@link LogSnapshot},
+     * a generation of -1 means the data did not come from one
+     */
+    private int mGeneration = -1;
+    private long mFirstSequence;
+
     public LogAdapter() {
 
     }
@@ -44,6 +52,12 @@ public class LogAdapter extends RecyclerView.Adapter<LogAdapter.ViewHolder>{
     }
 
     public void submitList(List<DiagnosticWrapper> newData) {
+        if (newData instanceof LogSnapshot) {
+            submitSnapshot((LogSnapshot) newData);
+            return;
+        }
+        mGeneration = -1;
+
         DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
             @Override
             public int getOldListSize() {
@@ -74,6 +88,37 @@ public class LogAdapter extends RecyclerView.Adapter<LogAdapter.ViewHolder>{
         }
     }
 
+    /**
+     * Snapshots of the same generation only drop lines from the start and add lines to the end,
+     * so the changes are dispatched as ranges instead of diffing the whole log.
+     */
+    private void submitSnapshot(LogSnapshot snapshot) {
+        if (snapshot.getGeneration() != mGeneration) {
+            mGeneration = snapshot.getGeneration();
+            mFirstSequence = snapshot.getFirstSequence();
+            mData.clear();
+            mData.addAll(snapshot);
+            notifyDataSetChanged();
+            return;
+        }
+
+        long oldEnd = mFirstSequence + mData.size();
+        long newEnd = snapshot.getFirstSequence() + snapshot.size();
+        int removed = (int) Math.min(mData.size(), snapshot.getFirstSequence() - mFirstSequence);
+        int inserted = (int) (newEnd - Math.max(oldEnd, snapshot.getFirstSequence()));
+        mFirstSequence = snapshot.getFirstSequence();
+
+        if (removed > 0) {
+            mData.subList(0, removed).clear();
+            notifyItemRangeRemoved(0, removed);
+        }
+        if (inserted > 0) {
+            int start = mData.size();
+            mData.addAll(snapshot.subList(snapshot.size() - inserted, snapshot.size()));
+            notifyItemRangeInserted(start, inserted);
+        }
+    }
+
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -0,0 +1,243 @@
+package com.tyron.builder.android.aapt2;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A long-lived {@code aapt2 daemon} process.
+ *
+ * <p>A request is written to the standard input of the daemon as the name of the command
+ * followed by one argument per line, and is ended by an empty line. The daemon prints
+ * {@code Ready} once it has started, and {@code Done} after each request, preceded by
+ * {@code Error} if the request failed. The diagnostics of the request are printed before
+ * these markers, the error stream is merged with the output so they arrive in order.</p>
+ *
+ * <p>Requests are run one at a time. If the process dies it is started again on the next
+ * request.</p>
+ */
+public class Aapt2Daemon implements Closeable {
+
+    private static final String DAEMON_COMMAND = "daemon";
+    private static final String READY = "Ready";
+    private static final String DONE = "Done";
+    private static final String ERROR = "Error";
+    private static final String QUIT = "quit";
+
+    /**
+     * Put on the queue of lines when the output of the process ends, it is compared by
+     * identity so it is never mistaken for a line of output
+     */
+    private static final String EOF = new String("EOF");
+
+    private final File binary;
+    private final long timeoutMillis;
+
+    private Process process;
+    private Writer writer;
+    private BlockingQueue<String> lines;
+
+    public Aapt2Daemon(File binary, long timeout, TimeUnit unit) {
+        this.binary = binary;
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Runs a command in the daemon, starting it if it is not running.
+     *
+     * @param command the aapt2 command, such as {@code compile} or {@code link}
+     * @param args the arguments of the command
+     * @return the output of the command
+     * @throws Aapt2Exception if the command failed, or the daemon crashed or did not respond
+     */
+    public synchronized String execute(String command, List<String> args) throws Aapt2Exception {
+        String commandLine = command + " " + String.join(" ", args);
+        for (String arg : args) {
+            if (arg.isEmpty() || arg.indexOf('\n') != -1) {
+                throw Aapt2Exception.create("Argument '" + arg + "' can not be sent to the aapt2 daemon");
+            }
+        }
+
+        ensureStarted();
+
+        try {
+            writer.write(command);
+            writer.write('\n');
+            for (String arg : args) {
+                writer.write(arg);
+                writer.write('\n');
+            }
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            String output = drain();
+            destroy();
+            throw Aapt2Exception.create("aapt2 daemon exited unexpectedly", e, output, binary.getName(), commandLine);
+        }
+
+        StringBuilder output = new StringBuilder();
+        boolean failed = false;
+        while (true) {
+            String line = nextLine();
+            if (line == null) {
+                destroy();
+                throw Aapt2Exception.create("aapt2 daemon did not respond in " + timeoutMillis + "ms",
+                        null, output.toString(), binary.getName(), commandLine);
+            }
+            if (line == EOF) {
+                int exitCode = destroy();
+                throw Aapt2Exception.create("aapt2 daemon exited unexpectedly with code " + exitCode,
+                        null, output.toString(), binary.getName(), commandLine);
+            }
+            if (DONE.equals(line)) {
+                break;
+            }
+            if (ERROR.equals(line)) {
+                failed = true;
+                continue;
+            }
+            output.append(line).append('\n');
+        }
+
+        if (failed) {
+            throw Aapt2Exception.create("aapt2 " + command + " failed", null, output.toString(),
+                    binary.getName(), commandLine);
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return whether the daemon process is running
+     */
+    public synchronized boolean isRunning() {
+        return process != null && process.isAlive();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process == null) {
+            return;
+        }
+        try {
+            writer.write(QUIT);
+            writer.write("\n\n");
+            writer.flush();
+            process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException ignore) {
+            // the process has already exited
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        destroy();
+    }
+
+    private void ensureStarted() throws Aapt2Exception {
+        if (process != null && process.isAlive()) {
+            return;
+        }
+        destroy();
+
+        List<String> command = new ArrayList<>();
+        command.add(binary.getAbsolutePath());
+        command.add(DAEMON_COMMAND);
+        try {
+            process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .start();
+        } catch (IOException e) {
+            process = null;
+            throw Aapt2Exception.create("Unable to start the aapt2 daemon", e, null,
+                    binary.getName(), String.join(" ", command));
+        }
+        writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        lines = new LinkedBlockingQueue<>();
+        startReader(process, lines);
+
+        StringBuilder output = new StringBuilder();
+        while (true) {
+            String line = nextLine();
+            if (line == null || line == EOF) {
+                destroy();
+                throw Aapt2Exception.create("aapt2 daemon failed to start", null, output.toString(),
+                        binary.getName(), String.join(" ", command));
+            }
+            if (READY.equals(line)) {
+                return;
+            }
+            output.append(line).append('\n');
+        }
+    }
+
+    private static void startReader(Process process, BlockingQueue<String> lines) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException ignore) {
+                // the stream is closed when the process is destroyed
+            } finally {
+                lines.add(EOF);
+            }
+        }, "aapt2 daemon output");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the next line of output, {@link #EOF} if the process exited or null if the daemon
+     * did not print anything before the timeout
+     */
+    private String nextLine() {
+        try {
+            return lines.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroy();
+            throw Aapt2Exception.create("Interrupted while waiting for the aapt2 daemon");
+        }
+    }
+
+    private String drain() {
+        StringBuilder output = new StringBuilder();
+        for (String line = lines.poll(); line != null && line != EOF; line = lines.poll()) {
+            output.append(line).append('\n');
+        }
+        return output.toString();
+    }
+
+    /**
+     * Kills the process if it is still running.
+     *
+     * @return the exit code of the process, or -1 if it was not started
+     */
+    private int destroy() {
+        Process process = this.process;
+        this.process = null;
+        this.writer = null;
+        if (process == null) {
+            return -1;
+        }
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
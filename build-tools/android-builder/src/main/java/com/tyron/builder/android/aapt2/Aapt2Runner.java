@@ -1,36 +1,74 @@
 package com.tyron.builder.android.aapt2;
 
-import com.tyron.builder.util.GUtil;
-import com.tyron.common.util.BinaryExecutor;
-
+import java.io.Closeable;
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public class Aapt2Runner {
+/**
+ * Runs {@code aapt2} commands in an {@link Aapt2Daemon}, so the binary is started once instead
+ * of once per command. The daemon is started on the first command and stopped when the runner
+ * is closed.
+ */
+public class Aapt2Runner implements Closeable {
 
     private static final String COMPILE_COMMAND = "compile";
     private static final String LINK_COMMAND = "link";
 
-    private final File binary;
+    /**
+     * How long a command may run without printing anything
+     */
+    private static final long TIMEOUT_MINUTES = 5;
+
+    private final Aapt2BinaryProvider provider;
+    private Aapt2Daemon daemon;
 
     public Aapt2Runner(Aapt2BinaryProvider provider) {
-        binary = GUtil.uncheckedCall(provider::getBinary);
+        this.provider = provider;
     }
 
-    public int link(List<String> args) {
-        return -1;
+    /**
+     * Links compiled resources with {@code aapt2 link}.
+     *
+     * @return the output of aapt2
+     * @throws Aapt2Exception if the resources could not be linked
+     */
+    public String link(List<String> args) throws Aapt2Exception {
+        return getDaemon().execute(LINK_COMMAND, args);
     }
 
-    public int compile(List<String> args) {
-        List<String> arguments = new ArrayList<>();
-        arguments.add(binary.getAbsolutePath());
-        arguments.add(COMPILE_COMMAND);
-        arguments.addAll(args);
+    /**
+     * Compiles resources with {@code aapt2 compile}.
+     *
+     * @return the output of aapt2
+     * @throws Aapt2Exception if the resources could not be compiled
+     */
+    public String compile(List<String> args) throws Aapt2Exception {
+        return getDaemon().execute(COMPILE_COMMAND, args);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (daemon != null) {
+            daemon.close();
+            daemon = null;
+        }
+    }
 
-        BinaryExecutor binaryExecutor = new BinaryExecutor();
-        binaryExecutor.setCommands(arguments);
-        String execute = binaryExecutor.execute();
-        return 0;
+    private synchronized Aapt2Daemon getDaemon() throws Aapt2Exception {
+        if (daemon == null) {
+            File binary;
+            try {
+                binary = provider.getBinary();
+            } catch (IOException e) {
+                throw Aapt2Exception.create("Unable to get the aapt2 binary", e, null, null, null);
+            }
+            if (binary == null) {
+                throw Aapt2Exception.create("No aapt2 binary is available");
+            }
+            daemon = new Aapt2Daemon(binary, TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        }
+        return daemon;
     }
 }
@@ -0,0 +1,152 @@
+package com.tyron.builder.android.aapt2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link Aapt2Daemon} against a shell script which speaks the protocol of
+ * {@code aapt2 daemon}. The script creates the file given with {@code -o}, fails the request
+ * when it gets {@code --fail} and exits when it gets {@code --crash}.
+ */
+public class Aapt2DaemonTest {
+
+    private static final String STUB = "#!/bin/sh\n" +
+            "[ \"$1\" = daemon ] || exit 2\n" +
+            "echo started >> '%s'\n" +
+            "echo Ready\n" +
+            "command=; output=; previous=; fail=; crash=\n" +
+            "while IFS= read -r line; do\n" +
+            "  if [ -z \"$line\" ]; then\n" +
+            "    [ -z \"$command\" ] && continue\n" +
+            "    [ \"$command\" = quit ] && exit 0\n" +
+            "    [ -n \"$crash\" ] && exit 3\n" +
+            "    echo \"$command\"\n" +
+            "    if [ -n \"$fail\" ]; then\n" +
+            "      echo \"error: $command failed\" >&2\n" +
+            "      echo Error >&2\n" +
+            "    elif [ -n \"$output\" ]; then\n" +
+            "      : > \"$output\"\n" +
+            "    fi\n" +
+            "    echo Done >&2\n" +
+            "    command=; output=; previous=; fail=; crash=\n" +
+            "    continue\n" +
+            "  fi\n" +
+            "  if [ -z \"$command\" ]; then command=\"$line\"\n" +
+            "  elif [ \"$previous\" = -o ]; then output=\"$line\"\n" +
+            "  elif [ \"$line\" = --fail ]; then fail=1\n" +
+            "  elif [ \"$line\" = --crash ]; then crash=1\n" +
+            "  fi\n" +
+            "  previous=\"$line\"\n" +
+            "done\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File starts;
+    private Aapt2Daemon daemon;
+
+    @Before
+    public void setup() throws IOException {
+        assumeFalse(System.getProperty("os.name").toLowerCase().contains("windows"));
+
+        starts = temporaryFolder.newFile("starts");
+        File binary = temporaryFolder.newFile("aapt2");
+        Files.write(binary.toPath(),
+                String.format(STUB, starts.getAbsolutePath()).getBytes(StandardCharsets.UTF_8));
+        assertTrue(binary.setExecutable(true));
+
+        daemon = new Aapt2Daemon(binary, 30, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        if (daemon != null) {
+            daemon.close();
+        }
+    }
+
+    @Test
+    public void testProcessIsReused() throws IOException {
+        File first = new File(temporaryFolder.getRoot(), "first.flat");
+        File second = new File(temporaryFolder.getRoot(), "second.flat");
+
+        assertEquals("compile\n", daemon.execute("compile", args("-o", first.getAbsolutePath())));
+        daemon.execute("compile", args("-o", second.getAbsolutePath()));
+
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+        assertEquals(1, getStartCount());
+    }
+
+    @Test
+    public void testLink() throws IOException {
+        File apk = new File(temporaryFolder.getRoot(), "resources.apk");
+        daemon.execute("link", args("-I", "android.jar", "-o", apk.getAbsolutePath(), "a.flat"));
+        assertTrue(apk.exists());
+    }
+
+    @Test
+    public void testFailureKeepsDaemon() throws IOException {
+        try {
+            daemon.execute("compile", args("--fail"));
+            fail("Expected the request to fail");
+        } catch (Aapt2Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("error: compile failed"));
+        }
+        assertTrue(daemon.isRunning());
+
+        daemon.execute("compile", Collections.emptyList());
+        assertEquals(1, getStartCount());
+    }
+
+    @Test
+    public void testRestartAfterCrash() throws IOException {
+        try {
+            daemon.execute("compile", args("--crash"));
+            fail("Expected the daemon to crash");
+        } catch (Aapt2Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("exited unexpectedly"));
+        }
+        assertFalse(daemon.isRunning());
+
+        File output = new File(temporaryFolder.getRoot(), "output.flat");
+        daemon.execute("compile", args("-o", output.getAbsolutePath()));
+        assertTrue(output.exists());
+        assertEquals(2, getStartCount());
+    }
+
+    @Test
+    public void testClose() {
+        daemon.execute("compile", Collections.emptyList());
+        assertTrue(daemon.isRunning());
+
+        daemon.close();
+        assertFalse(daemon.isRunning());
+    }
+
+    private int getStartCount() throws IOException {
+        return Files.readAllLines(starts.toPath()).size();
+    }
+
+    private static List<String> args(String... args) {
+        return Arrays.asList(args);
+    }
+}
@@ -88,7 +88,8 @@ public class DefaultBuildCacheController implements BuildCacheController {
                 fileSystemAccess,
                 packer,
                 originMetadataFactory,
-                stringInterner
+                stringInterner,
+                local
         );
     }
 
@@ -145,9 +146,10 @@ public class DefaultBuildCacheController implements BuildCacheController {
             return;
         }
         tmp.withTempFile(key, file -> {
-            packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
-            local.maybeStore(key, file);
+            packExecutor.pack(file, key, entity, snapshots, executionTime, () -> {
+                remote.maybeStore(key, file);
+                local.maybeStore(key, file);
+            });
         });
     }
 
@@ -169,13 +171,15 @@ public class DefaultBuildCacheController implements BuildCacheController {
         private final BuildCacheEntryPacker packer;
         private final OriginMetadataFactory originMetadataFactory;
         private final StringInterner stringInterner;
+        private final LocalBuildCacheServiceHandle local;
 
-        PackOperationExecutor(BuildOperationExecutor buildOperationExecutor, FileSystemAccess fileSystemAccess, BuildCacheEntryPacker packer, OriginMetadataFactory originMetadataFactory, StringInterner stringInterner) {
+        PackOperationExecutor(BuildOperationExecutor buildOperationExecutor, FileSystemAccess fileSystemAccess, BuildCacheEntryPacker packer, OriginMetadataFactory originMetadataFactory, StringInterner stringInterner, LocalBuildCacheServiceHandle local) {
             this.buildOperationExecutor = buildOperationExecutor;
             this.fileSystemAccess = fileSystemAccess;
             this.packer = packer;
             this.originMetadataFactory = originMetadataFactory;
             this.stringInterner = stringInterner;
+            this.local = local;
         }
 
         @VisibleForTesting
@@ -185,7 +189,7 @@ public class DefaultBuildCacheController implements BuildCacheController {
                 public BuildCacheLoadResult call(BuildOperationContext context) throws IOException {
                     try (InputStream input = new FileInputStream(file)) {
                         BuildCacheLoadResult metadata = doUnpack(entity, input);
-                        context.setResult(new UnpackOperationResult(metadata.getArtifactEntryCount()));
+                        context.setResult(new UnpackOperationResult(metadata.getArtifactEntryCount(), local.getStatistics().orElse(null)));
                         return metadata;
                     }
                 }
@@ -244,16 +248,23 @@ public class DefaultBuildCacheController implements BuildCacheController {
             return builder.build();
         }
 
+        /**
+         * Packs the entry into the file, then runs {@code store} so the local cache statistics of the result
+         * include the stored entry and whatever it evicted. The local cache moves the file when storing it.
+         */
         @VisibleForTesting
-        void pack(File file, BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
+        void pack(File file, BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime, Runnable store) {
             buildOperationExecutor.run(new RunnableBuildOperation() {
                 @Override
                 public void run(BuildOperationContext context) throws IOException {
+                    long entryCount;
                     try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
                         BuildCacheEntryPacker.PackResult packResult = packer.pack(entity, snapshots, fileOutputStream, originMetadataFactory.createWriter(entity, executionTime));
-                        long entryCount = packResult.getEntries();
-                        context.setResult(new PackOperationResult(entryCount, file.length()));
+                        entryCount = packResult.getEntries();
                     }
+                    long archiveSize = file.length();
+                    store.run();
+                    context.setResult(new PackOperationResult(entryCount, archiveSize, local.getStatistics().orElse(null)));
                 }
 
                 @Override
@@ -1,8 +1,10 @@
 package com.tyron.builder.caching.internal.controller.operations;
 
-
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
 import com.tyron.builder.internal.operations.BuildOperationType;
 
+import org.jetbrains.annotations.Nullable;
+
 public final class BuildCacheArchiveUnpackBuildOperationType implements BuildOperationType<BuildCacheArchiveUnpackBuildOperationType.Details, BuildCacheArchiveUnpackBuildOperationType.Result> {
 
     public interface Details {
@@ -20,6 +22,12 @@ public final class BuildCacheArchiveUnpackBuildOperationType implements BuildOpe
 
         long getArchiveEntryCount();
 
+        /**
+         * The counters of the local build cache at the end of the operation, or {@code null} if there is no local cache.
+         */
+        @Nullable
+        LocalBuildCacheStatistics getLocalCacheStatistics();
+
     }
 
 }
\ No newline at end of file
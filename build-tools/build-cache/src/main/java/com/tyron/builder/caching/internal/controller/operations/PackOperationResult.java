@@ -1,13 +1,23 @@
 package com.tyron.builder.caching.internal.controller.operations;
 
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
+
+import org.jetbrains.annotations.Nullable;
+
 public class PackOperationResult implements BuildCacheArchivePackBuildOperationType.Result {
 
     private final long archiveEntryCount;
     private final long archiveSize;
+    private final LocalBuildCacheStatistics localCacheStatistics;
 
     public PackOperationResult(long archiveEntryCount, long archiveSize) {
+        this(archiveEntryCount, archiveSize, null);
+    }
+
+    public PackOperationResult(long archiveEntryCount, long archiveSize, @Nullable LocalBuildCacheStatistics localCacheStatistics) {
         this.archiveEntryCount = archiveEntryCount;
         this.archiveSize = archiveSize;
+        this.localCacheStatistics = localCacheStatistics;
     }
 
     @Override
@@ -19,4 +29,10 @@ public class PackOperationResult implements BuildCacheArchivePackBuildOperationT
     public long getArchiveEntryCount() {
         return archiveEntryCount;
     }
-}
\ No newline at end of file
+
+    @Nullable
+    @Override
+    public LocalBuildCacheStatistics getLocalCacheStatistics() {
+        return localCacheStatistics;
+    }
+}
@@ -1,11 +1,21 @@
 package com.tyron.builder.caching.internal.controller.operations;
 
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
+
+import org.jetbrains.annotations.Nullable;
+
 public class UnpackOperationResult implements BuildCacheArchiveUnpackBuildOperationType.Result {
 
     private final long archiveEntryCount;
+    private final LocalBuildCacheStatistics localCacheStatistics;
 
     public UnpackOperationResult(long archiveEntryCount) {
+        this(archiveEntryCount, null);
+    }
+
+    public UnpackOperationResult(long archiveEntryCount, @Nullable LocalBuildCacheStatistics localCacheStatistics) {
         this.archiveEntryCount = archiveEntryCount;
+        this.localCacheStatistics = localCacheStatistics;
     }
 
     @Override
@@ -13,4 +23,10 @@ public class UnpackOperationResult implements BuildCacheArchiveUnpackBuildOperat
         return archiveEntryCount;
     }
 
-}
\ No newline at end of file
+    @Nullable
+    @Override
+    public LocalBuildCacheStatistics getLocalCacheStatistics() {
+        return localCacheStatistics;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.tyron.builder.caching.internal.controller.service;
 
 import com.tyron.builder.caching.BuildCacheKey;
 import com.tyron.builder.caching.local.internal.LocalBuildCacheService;
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -47,6 +48,11 @@ public class DefaultLocalBuildCacheServiceHandle implements LocalBuildCacheServi
         return false;
     }
 
+    @Override
+    public Optional<LocalBuildCacheStatistics> getStatistics() {
+        return Optional.of(service.getStatistics());
+    }
+
     @Override
     public void close() {
         service.close();
@@ -3,6 +3,7 @@ package com.tyron.builder.caching.internal.controller.service;
 import com.google.common.annotations.VisibleForTesting;
 import com.tyron.builder.caching.BuildCacheKey;
 import com.tyron.builder.caching.local.internal.LocalBuildCacheService;
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -31,6 +32,11 @@ public interface LocalBuildCacheServiceHandle extends Closeable {
      */
     boolean maybeStore(BuildCacheKey key, File file);
 
+    /**
+     * Returns the counters of the local cache, or nothing if there is no local cache.
+     */
+    Optional<LocalBuildCacheStatistics> getStatistics();
+
     @Override
     void close();
 
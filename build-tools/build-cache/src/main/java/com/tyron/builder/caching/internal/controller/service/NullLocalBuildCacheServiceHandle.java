@@ -2,6 +2,7 @@ package com.tyron.builder.caching.internal.controller.service;
 
 import com.tyron.builder.caching.BuildCacheKey;
 import com.tyron.builder.caching.local.internal.LocalBuildCacheService;
+import com.tyron.builder.caching.local.internal.LocalBuildCacheStatistics;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -37,6 +38,11 @@ public class NullLocalBuildCacheServiceHandle implements LocalBuildCacheServiceH
         return false;
     }
 
+    @Override
+    public Optional<LocalBuildCacheStatistics> getStatistics() {
+        return Optional.empty();
+    }
+
     @Override
     public void close() {
 
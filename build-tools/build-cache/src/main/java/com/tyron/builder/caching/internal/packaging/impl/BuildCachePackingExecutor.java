@@ -0,0 +1,74 @@
+package com.tyron.builder.caching.internal.packaging.impl;
+
+import com.tyron.builder.internal.concurrent.CpuBoundExecutors;
+import com.tyron.builder.internal.concurrent.ExecutorFactory;
+import com.tyron.builder.internal.concurrent.ManagedExecutor;
+import com.tyron.builder.internal.concurrent.Stoppable;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * The executor build cache entries are compressed and unpacked on. It only has threads of its own if there is more
+ * than one core, see {@link CpuBoundExecutors}, otherwise it runs the work on the calling thread.
+ */
+public class BuildCachePackingExecutor implements Executor, Stoppable {
+    /**
+     * System property to trade compression ratio for speed, {@code -Dorg.gradle.caching.compression=fast}.
+     */
+    public static final String COMPRESSION_PROPERTY = "org.gradle.caching.compression";
+
+    @Nullable
+    private final ManagedExecutor executor;
+    private final int parallelism;
+
+    public BuildCachePackingExecutor(ExecutorFactory executorFactory) {
+        this.executor = CpuBoundExecutors.create(executorFactory, "Build cache packing");
+        this.parallelism = executor != null ? CpuBoundExecutors.getParallelism() : 1;
+    }
+
+    /**
+     * Whether the work is run on threads of the executor rather than on the calling thread.
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (executor != null) {
+            executor.execute(command);
+        } else {
+            command.run();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    /**
+     * Returns the {@link Deflater} level selected through {@link #COMPRESSION_PROPERTY}.
+     */
+    public static int getCompressionLevel() {
+        String value = System.getProperty(COMPRESSION_PROPERTY, "default").toLowerCase(Locale.ROOT);
+        switch (value) {
+            case "fast":
+                return Deflater.BEST_SPEED;
+            case "default":
+                return Deflater.DEFAULT_COMPRESSION;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown build cache compression '%s' set through '%s'.", value, COMPRESSION_PROPERTY));
+        }
+    }
+}
@@ -6,31 +6,64 @@ import com.tyron.builder.caching.internal.origin.OriginReader;
 import com.tyron.builder.caching.internal.origin.OriginWriter;
 import com.tyron.builder.caching.internal.packaging.BuildCacheEntryPacker;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GZipBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
     private final BuildCacheEntryPacker delegate;
+    @Nullable
+    private final Executor executor;
+    private final int parallelism;
+    private final int compressionLevel;
 
     public GZipBuildCacheEntryPacker(BuildCacheEntryPacker delegate) {
+        this(delegate, null, 1, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param executor The executor to compress blocks of the entry on, or {@code null} to compress on the calling thread.
+     * @param parallelism The number of threads of the executor, used to bound the number of blocks compressed at the same time.
+     * @param compressionLevel The {@link Deflater} level to compress with.
+     */
+    public GZipBuildCacheEntryPacker(BuildCacheEntryPacker delegate, @Nullable Executor executor, int parallelism, int compressionLevel) {
         this.delegate = delegate;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.compressionLevel = compressionLevel;
     }
 
     @Override
     public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
-        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+        try (OutputStream gzipOutput = newGZipOutputStream(output)) {
             return delegate.pack(entity, snapshots, gzipOutput, writeOrigin);
         }
     }
 
+    private OutputStream newGZipOutputStream(OutputStream output) throws IOException {
+        if (executor != null) {
+            return new ParallelGZipOutputStream(output, executor, compressionLevel, parallelism);
+        }
+        return new GZIPOutputStream(output) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+    }
+
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
-        try (GZIPInputStream gzipInput = new GZIPInputStream(input)) {
+        try (GZIPInputStream gzipInput = new GZIPInputStream(input, INPUT_BUFFER_SIZE)) {
             return delegate.unpack(entity, gzipInput, readOrigin);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package com.tyron.builder.caching.internal.packaging.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A GZIP output stream which deflates fixed size blocks of its input independently on an executor.
+ *
+ * <p>Every block but the last one ends with a sync flush, so the compressed blocks concatenate to a single
+ * deflate stream which any {@link java.util.zip.GZIPInputStream} can read. Each block uses the tail of the
+ * previous block as preset dictionary, which keeps the compression ratio close to the one of a single deflater.
+ * The output only depends on the input and the compression level, not on the number of threads used.</p>
+ */
+class ParallelGZipOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b,     // magic
+            Deflater.DEFLATED,     // compression method
+            0,                     // flags
+            0, 0, 0, 0,            // modification time
+            0,                     // extra flags
+            0                      // operating system
+    };
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int compressionLevel;
+    private final int maxPendingBlocks;
+    private final CRC32 crc = new CRC32();
+    private final Deque<FutureTask<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private byte[] previousBlock;
+    private long totalLength;
+    private boolean closed;
+
+    ParallelGZipOutputStream(OutputStream out, Executor executor, int compressionLevel, int parallelism) throws IOException {
+        this.out = out;
+        this.executor = executor;
+        this.compressionLevel = compressionLevel;
+        this.maxPendingBlocks = 2 * Math.max(1, parallelism);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        crc.update(bytes, offset, length);
+        totalLength += length;
+        while (length > 0) {
+            int count = Math.min(length, BLOCK_SIZE - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, count);
+            blockLength += count;
+            offset += count;
+            length -= count;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] input = block;
+        int inputLength = blockLength;
+        byte[] dictionary = previousBlock;
+        FutureTask<byte[]> task = new FutureTask<>(() -> deflate(input, inputLength, dictionary, last));
+        pendingBlocks.addLast(task);
+        executor.execute(task);
+
+        // The submitted block is not modified anymore, so it can serve as dictionary for the next one
+        previousBlock = input;
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+    }
+
+    private byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary, BLOCK_SIZE - DICTIONARY_SIZE, DICTIONARY_SIZE);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    output.write(buffer, 0, count);
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeBlock(FutureTask<byte[]> task) throws IOException {
+        // Deflate on this thread if no worker picked up the block yet, this is a no-op otherwise
+        task.run();
+        try {
+            out.write(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not compress block", e.getCause());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            submitBlock(true);
+            while (!pendingBlocks.isEmpty()) {
+                writeBlock(pendingBlocks.removeFirst());
+            }
+            writeInt((int) crc.getValue());
+            writeInt((int) totalLength);
+        } finally {
+            pendingBlocks.forEach(task -> task.cancel(false));
+            out.close();
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+}
@@ -4,6 +4,7 @@ import static com.tyron.builder.internal.file.FileMetadata.AccessType.DIRECT;
 import static com.tyron.builder.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.common.hash.HashCode;
@@ -30,12 +31,14 @@ import com.tyron.builder.caching.internal.origin.OriginWriter;
 import com.tyron.builder.caching.internal.packaging.BuildCacheEntryPacker;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
@@ -43,8 +46,15 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -76,22 +86,46 @@ public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
     private static final Pattern TREE_PATH = Pattern.compile("(missing-)?tree-([^/]+)(?:/(.*))?");
     private static final int BUFFER_SIZE = 64 * 1024;
     private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    /**
+     * Larger entries are always written on the unpacking thread, straight from the archive.
+     */
+    private static final long MAX_PARALLEL_UNPACK_ENTRY_SIZE = 1024 * 1024;
 
     private final TarPackerFileSystemSupport fileSystemSupport;
     private final FilePermissionAccess filePermissionAccess;
     private final StreamHasher streamHasher;
     private final Interner<String> stringInterner;
+    @Nullable
+    private final Executor unpackExecutor;
+    private final int maxPendingUnpacks;
 
     public TarBuildCacheEntryPacker(
             TarPackerFileSystemSupport fileSystemSupport,
             FilePermissionAccess filePermissionAccess,
             StreamHasher streamHasher,
             Interner<String> stringInterner
+    ) {
+        this(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, null, 1);
+    }
+
+    /**
+     * @param unpackExecutor The executor to write and hash the unpacked files on, or {@code null} to unpack on the calling thread.
+     * @param parallelism The number of threads of the executor, used to bound the number of files held in memory while unpacking.
+     */
+    public TarBuildCacheEntryPacker(
+            TarPackerFileSystemSupport fileSystemSupport,
+            FilePermissionAccess filePermissionAccess,
+            StreamHasher streamHasher,
+            Interner<String> stringInterner,
+            @Nullable Executor unpackExecutor,
+            int parallelism
     ) {
         this.fileSystemSupport = fileSystemSupport;
         this.filePermissionAccess = filePermissionAccess;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
+        this.unpackExecutor = unpackExecutor;
+        this.maxPendingUnpacks = 4 * Math.max(1, parallelism);
     }
 
     @Override
@@ -247,7 +281,7 @@ public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
         return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName);
     }
 
-    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+    private RegularFileSnapshot unpackFile(InputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
         try (CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file))) {
             HashCode hash = streamHasher.hashCopy(input, output);
             chmodUnpackedFile(entry, file);
@@ -258,43 +292,108 @@ public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
         }
     }
 
+    /**
+     * Unpacks a file on the {@link #unpackExecutor} if it is small enough to be buffered in memory.
+     * Otherwise, or without an executor, the file is unpacked right away.
+     */
+    private FutureTask<RegularFileSnapshot> unpackFileAsync(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+        FutureTask<RegularFileSnapshot> task;
+        if (unpackExecutor == null || entry.getSize() > MAX_PARALLEL_UNPACK_ENTRY_SIZE) {
+            RegularFileSnapshot snapshot = unpackFile(input, entry, file, fileName);
+            task = new FutureTask<>(() -> snapshot);
+            task.run();
+        } else {
+            byte[] content = IOUtils.toByteArray(input, entry.getSize());
+            task = new FutureTask<>(() -> unpackFile(new ByteArrayInputStream(content), entry, file, fileName));
+            unpackExecutor.execute(task);
+        }
+        return task;
+    }
+
+    private static RegularFileSnapshot getUnpackedFile(FutureTask<RegularFileSnapshot> task) throws IOException {
+        // Unpack on this thread if no worker picked up the file yet, this is a no-op otherwise
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while unpacking");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            Throwables.throwIfUnchecked(cause);
+            throw new IOException(cause);
+        }
+    }
+
     @Nullable
     private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName) throws IOException {
         RelativePathParser parser = new RelativePathParser(rootEntry.getName());
 
-        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
-        builder.enterDirectory(DIRECT, stringInterner.intern(treeRoot.getAbsolutePath()), stringInterner.intern(treeRoot.getName()), INCLUDE_EMPTY_DIRS);
+        // Files may be unpacked in parallel, so the snapshot is built from the recorded operations once they are done
+        List<SnapshotOperation> operations = new ArrayList<>();
+        Deque<FutureTask<RegularFileSnapshot>> pendingFiles = new ArrayDeque<>();
+        String internedRootPath = stringInterner.intern(treeRoot.getAbsolutePath());
+        String internedRootName = stringInterner.intern(treeRoot.getName());
+        operations.add(builder -> builder.enterDirectory(DIRECT, internedRootPath, internedRootName, INCLUDE_EMPTY_DIRS));
 
         TarArchiveEntry entry;
-
-        while ((entry = input.getNextTarEntry()) != null) {
-            boolean isDir = entry.isDirectory();
-            boolean outsideOfRoot = parser.nextPath(entry.getName(), isDir, builder::leaveDirectory);
-            if (outsideOfRoot) {
-                break;
+        try {
+            while ((entry = input.getNextTarEntry()) != null) {
+                boolean isDir = entry.isDirectory();
+                boolean outsideOfRoot = parser.nextPath(entry.getName(), isDir, () -> operations.add(DirectorySnapshotBuilder::leaveDirectory));
+                if (outsideOfRoot) {
+                    break;
+                }
+                entries.incrementAndGet();
+
+                File file = new File(treeRoot, parser.getRelativePath());
+                if (isDir) {
+                    FileUtils.forceMkdir(file);
+                    chmodUnpackedFile(entry, file);
+                    String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+                    String internedName = stringInterner.intern(parser.getName());
+                    operations.add(builder -> builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS));
+                } else {
+                    FutureTask<RegularFileSnapshot> fileSnapshot = unpackFileAsync(input, entry, file, parser.getName());
+                    operations.add(builder -> builder.visitLeafElement(getUnpackedFile(fileSnapshot)));
+                    pendingFiles.addLast(fileSnapshot);
+                    // Bound the number of buffered files
+                    while (pendingFiles.size() > maxPendingUnpacks) {
+                        getUnpackedFile(pendingFiles.removeFirst());
+                    }
+                }
             }
-            entries.incrementAndGet();
-
-            File file = new File(treeRoot, parser.getRelativePath());
-            if (isDir) {
-                FileUtils.forceMkdir(file);
-                chmodUnpackedFile(entry, file);
-                String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
-                String internedName = stringInterner.intern(parser.getName());
-                builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS);
-            } else {
-                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName());
-                builder.visitLeafElement(fileSnapshot);
+        } finally {
+            // Never leave files being written behind
+            for (FutureTask<RegularFileSnapshot> pendingFile : pendingFiles) {
+                pendingFile.run();
+                try {
+                    pendingFile.get();
+                } catch (Exception ignored) {
+                    // Reported when building the snapshot
+                }
             }
         }
 
-        parser.exitToRoot(builder::leaveDirectory);
-        builder.leaveDirectory();
+        parser.exitToRoot(() -> operations.add(DirectorySnapshotBuilder::leaveDirectory));
+        operations.add(DirectorySnapshotBuilder::leaveDirectory);
+
+        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        for (SnapshotOperation operation : operations) {
+            operation.applyTo(builder);
+        }
 
         snapshots.put(treeName, builder.getResult());
         return entry;
     }
 
+    private interface SnapshotOperation {
+        void applyTo(DirectorySnapshotBuilder builder) throws IOException;
+    }
+
     private void chmodUnpackedFile(TarArchiveEntry entry, File file) {
         filePermissionAccess.chmod(file, entry.getMode() & UnixPermissions.PERM_MASK);
     }
@@ -0,0 +1,223 @@
+package com.tyron.builder.caching.local.internal;
+
+import com.tyron.builder.api.UncheckedIOException;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the entries of a {@link DirectoryBuildCacheService} in access order, so the least recently used entries
+ * can be removed as soon as the cache grows over its target size.
+ *
+ * <p>The order is persisted to an index file in the cache directory when the cache is closed. The directory itself
+ * stays the source of truth: when the index is loaded, entries which are gone are dropped and entries written by
+ * another process, or while the index could not be written, are added as least recently used, oldest first.
+ * The index is loaded again whenever another process has replaced the index file, the entries used by this
+ * process since it last wrote the index are then kept as the most recently used ones.</p>
+ *
+ * <p>Callers have to hold the cross process lock of the cache while using the index.</p>
+ */
+class DirectoryBuildCacheIndex {
+    private static final int VERSION = 1;
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]+");
+
+    private final File directory;
+    private final File indexFile;
+    private final long targetSizeInBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> usedSinceWrite = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean loaded;
+    @Nullable
+    private Object indexFileStamp;
+    private long sizeInBytes;
+
+    DirectoryBuildCacheIndex(File directory, File indexFile, long targetSizeInBytes) {
+        this.directory = directory;
+        this.indexFile = indexFile;
+        this.targetSizeInBytes = targetSizeInBytes;
+    }
+
+    /**
+     * Records the given entry as the most recently used one.
+     */
+    synchronized void markUsed(String key, long size) {
+        ensureLoaded();
+        add(key, size);
+        usedSinceWrite.put(key, size);
+    }
+
+    synchronized void remove(String key) {
+        ensureLoaded();
+        usedSinceWrite.remove(key);
+        Long previous = entries.remove(key);
+        if (previous != null) {
+            sizeInBytes -= previous;
+        }
+    }
+
+    /**
+     * Removes the least recently used entries from the index until the cache fits its target size.
+     * The most recently used entry is never removed.
+     *
+     * @return the files of the removed entries, the caller is responsible for deleting them.
+     */
+    synchronized List<File> evict() {
+        ensureLoaded();
+        List<File> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (sizeInBytes > targetSizeInBytes && entries.size() > 1) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            sizeInBytes -= eldest.getValue();
+            evicted.add(new File(directory, eldest.getKey()));
+            iterator.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * The size of the entries known to the index, 0 until the index is first used.
+     */
+    synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    synchronized int getEntryCount() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    /**
+     * Writes the index, replacing the previous index file atomically.
+     */
+    synchronized void write() {
+        if (!loaded) {
+            return;
+        }
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                output.writeInt(VERSION);
+                output.writeInt(entries.size());
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue());
+                }
+            }
+            if (!tempFile.renameTo(indexFile)) {
+                indexFile.delete();
+                if (!tempFile.renameTo(indexFile)) {
+                    throw new IOException(String.format("Could not rename %s to %s.", tempFile, indexFile));
+                }
+            }
+            indexFileStamp = readIndexFileStamp();
+            usedSinceWrite.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensureLoaded() {
+        Object stamp = readIndexFileStamp();
+        if (loaded && Objects.equals(stamp, indexFileStamp)) {
+            return;
+        }
+        loaded = true;
+        indexFileStamp = stamp;
+        entries.clear();
+        sizeInBytes = 0;
+
+        File[] files = directory.listFiles(file -> ENTRY_NAME.matcher(file.getName()).matches() && file.isFile());
+        Map<String, File> present = new HashMap<>();
+        if (files != null) {
+            for (File file : files) {
+                present.put(file.getName(), file);
+            }
+        }
+
+        // Entries unknown to the index go first, so they are the first candidates for eviction
+        List<File> unknown = new ArrayList<>(present.values());
+        List<String> indexed = readIndex();
+        Set<String> indexedKeys = new HashSet<>(indexed);
+        unknown.removeIf(file -> indexedKeys.contains(file.getName()));
+        unknown.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : unknown) {
+            add(file.getName(), file.length());
+        }
+        for (String key : indexed) {
+            File file = present.get(key);
+            if (file != null) {
+                add(key, file.length());
+            }
+        }
+        // Used since the index file was written, so more recently than anything in it
+        for (String key : new ArrayList<>(usedSinceWrite.keySet())) {
+            File file = present.get(key);
+            if (file != null) {
+                add(key, file.length());
+            } else {
+                usedSinceWrite.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Identifies the current index file, the file is replaced by a rename whenever it is written.
+     */
+    @Nullable
+    private Object readIndexFileStamp() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(indexFile.toPath(), BasicFileAttributes.class);
+            return Arrays.asList(attributes.lastModifiedTime(), attributes.size(), attributes.fileKey());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void add(String key, long size) {
+        Long previous = entries.put(key, size);
+        sizeInBytes += size - (previous == null ? 0 : previous);
+    }
+
+    private List<String> readIndex() {
+        if (!indexFile.isFile()) {
+            return new ArrayList<>();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (input.readInt() != VERSION) {
+                return new ArrayList<>();
+            }
+            int count = input.readInt();
+            String[] keys = new String[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = input.readUTF();
+                input.readLong();
+            }
+            return Arrays.asList(keys);
+        } catch (IOException e) {
+            // A broken index only loses the access order, the entries are recovered from the directory
+            return new ArrayList<>();
+        }
+    }
+}
@@ -16,15 +16,22 @@ import com.tyron.builder.caching.BuildCacheKey;
 import com.tyron.builder.caching.BuildCacheService;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class DirectoryBuildCacheService implements LocalBuildCacheService, BuildCacheService {
+    /**
+     * Name of the file the access order of the entries is kept in, next to the entries.
+     */
+    public static final String INDEX_FILE_NAME = "build-cache-lru.bin";
 
     private final PathKeyFileStore fileStore;
     private final PersistentCache persistentCache;
@@ -32,13 +39,37 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    @Nullable
+    private final DirectoryBuildCacheIndex index;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix, null);
+    }
+
+    /**
+     * Creates a cache which removes the least recently used entries when storing an entry makes it grow over the target size.
+     *
+     * @param directory the directory the entries of the file store are located in.
+     * @param targetSizeInBytes the size the entries of the cache should fit in.
+     */
+    public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix, File directory, long targetSizeInBytes) {
+        this(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix,
+                new DirectoryBuildCacheIndex(directory, new File(directory, INDEX_FILE_NAME), targetSizeInBytes));
+    }
+
+    private DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix, @Nullable DirectoryBuildCacheIndex index) {
         this.fileStore = fileStore;
         this.persistentCache = persistentCache;
         this.tempFileStore = tempFileStore;
         this.fileAccessTracker = fileAccessTracker;
         this.failedFileSuffix = failedFileSuffix;
+        this.index = index;
     }
 
     private static class LoadAction implements Action<File> {
@@ -89,11 +120,21 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private void loadInsideLock(BuildCacheKey key, Action<? super File> reader) {
         LocallyAvailableResource resource = fileStore.get(key.getHashCode());
         if (resource == null) {
+            misses.incrementAndGet();
+            if (index != null) {
+                index.remove(key.getHashCode());
+            }
             return;
         }
 
         File file = resource.getFile();
         fileAccessTracker.markAccessed(file);
+        long size = file.length();
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(size);
+        if (index != null) {
+            index.markUsed(key.getHashCode(), size);
+        }
 
         try {
             reader.execute(file);
@@ -104,6 +145,9 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
             GFileUtils.deleteQuietly(failedFile);
             //noinspection ResultOfMethodCallIgnored
             file.renameTo(failedFile);
+            if (index != null) {
+                index.remove(key.getHashCode());
+            }
 
             throw UncheckedException.throwAsUncheckedException(e);
         }
@@ -147,6 +191,27 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private void storeInsideLock(BuildCacheKey key, File file) {
         LocallyAvailableResource resource = fileStore.move(key.getHashCode(), file);
         fileAccessTracker.markAccessed(resource.getFile());
+        stores.incrementAndGet();
+        if (index != null) {
+            index.markUsed(key.getHashCode(), resource.getFile().length());
+            List<File> evicted = index.evict();
+            for (File evictedFile : evicted) {
+                GFileUtils.deleteQuietly(evictedFile);
+            }
+            evictions.addAndGet(evicted.size());
+        }
+    }
+
+    @Override
+    public LocalBuildCacheStatistics getStatistics() {
+        return new LocalBuildCacheStatistics(
+                hits.get(),
+                misses.get(),
+                stores.get(),
+                evictions.get(),
+                bytesSaved.get(),
+                index == null ? -1 : index.getSizeInBytes()
+        );
     }
 
     @Override
@@ -161,6 +226,9 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
 
     @Override
     public void close() {
+        if (index != null) {
+            persistentCache.withFileLock(index::write);
+        }
         persistentCache.close();
     }
 }
@@ -25,6 +25,11 @@ public interface LocalBuildCacheService extends BuildCacheTempFileStore, Closeab
      */
     void storeLocally(BuildCacheKey key, File file);
 
+    /**
+     * Returns the counters of this cache, accumulated since it was created.
+     */
+    LocalBuildCacheStatistics getStatistics();
+
     @Override
     void close();
 }
@@ -0,0 +1,77 @@
+package com.tyron.builder.caching.local.internal;
+
+/**
+ * A snapshot of the counters of a {@link LocalBuildCacheService}, accumulated since the service was created.
+ */
+public final class LocalBuildCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long stores;
+    private final long evictions;
+    private final long bytesSaved;
+    private final long sizeInBytes;
+
+    public LocalBuildCacheStatistics(long hits, long misses, long stores, long evictions, long bytesSaved, long sizeInBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.stores = stores;
+        this.evictions = evictions;
+        this.bytesSaved = bytesSaved;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * The number of loads which found an entry.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of loads which did not find an entry.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of entries stored.
+     */
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * The number of entries removed to keep the cache within its target size.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * The total size of the entries loaded from the cache, i.e. the bytes which did not have to be produced again.
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * The size of all entries in the cache, or -1 if the size is not tracked.
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalBuildCacheStatistics{"
+                + "hits=" + hits
+                + ", misses=" + misses
+                + ", stores=" + stores
+                + ", evictions=" + evictions
+                + ", bytesSaved=" + bytesSaved
+                + ", sizeInBytes=" + sizeInBytes
+                + '}';
+    }
+}
@@ -0,0 +1,112 @@
+package com.tyron.builder.caching.internal.packaging.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.google.common.io.ByteStreams;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses 64 MiB with {@link GZIPOutputStream} and with {@link ParallelGZipOutputStream} on
+ * one thread and on every core, at the default and at the fastest compression level. Only runs
+ * with {@code -Pbenchmark}.
+ */
+public class ParallelGZipOutputStreamBenchmark {
+
+    private static final int LENGTH = 64 * 1024 * 1024;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    private interface Compressor {
+        byte[] compress(byte[] content) throws IOException;
+    }
+
+    private ExecutorService executor;
+    private int cores;
+
+    @Before
+    public void setup() {
+        cores = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(cores);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void benchmarkCompression() throws IOException {
+        byte[] content = content(LENGTH);
+
+        measure("GZIPOutputStream", content, it -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream output = new GZIPOutputStream(bytes)) {
+                output.write(it);
+            }
+            return bytes.toByteArray();
+        });
+        measure("parallel, 1 thread", content,
+                it -> compress(it, 1, Deflater.DEFAULT_COMPRESSION));
+        measure("parallel, " + cores + " cores", content,
+                it -> compress(it, cores, Deflater.DEFAULT_COMPRESSION));
+        measure("parallel fast, " + cores + " cores", content,
+                it -> compress(it, cores, Deflater.BEST_SPEED));
+    }
+
+    private static void measure(String name, byte[] content, Compressor compressor) throws IOException {
+        byte[] compressed = compressor.compress(content);
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(content, ByteStreams.toByteArray(input));
+        }
+
+        long[] times = new long[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            compressor.compress(content);
+            long time = System.nanoTime() - start;
+            if (round >= 0) {
+                times[round] = time;
+            }
+        }
+        Arrays.sort(times);
+        long median = times[ROUNDS / 2];
+        System.out.printf("%s, median of %d rounds: %d ms, %.0f MiB/s, %d bytes%n",
+                name, ROUNDS, median / 1_000_000, content.length / (median / 1e9) / (1024 * 1024),
+                compressed.length);
+    }
+
+    private byte[] compress(byte[] content, int parallelism, int level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new ParallelGZipOutputStream(bytes, executor, level, parallelism)) {
+            output.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Somewhat compressible content, similar to class files and resources.
+     */
+    private static byte[] content(int length) {
+        Random random = new Random(length);
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(16));
+        }
+        return content;
+    }
+}
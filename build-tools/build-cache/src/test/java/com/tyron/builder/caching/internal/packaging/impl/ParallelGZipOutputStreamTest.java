@@ -0,0 +1,107 @@
+package com.tyron.builder.caching.internal.packaging.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.ByteStreams;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class ParallelGZipOutputStreamTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void testSingleBlock() throws IOException {
+        assertRoundTrip(content(1000));
+    }
+
+    @Test
+    public void testBlockBoundaries() throws IOException {
+        assertRoundTrip(content(ParallelGZipOutputStream.BLOCK_SIZE));
+        assertRoundTrip(content(ParallelGZipOutputStream.BLOCK_SIZE + 1));
+        assertRoundTrip(content(ParallelGZipOutputStream.BLOCK_SIZE * 20 + 17));
+    }
+
+    @Test
+    public void testOutputDoesNotDependOnParallelism() throws IOException {
+        byte[] content = content(ParallelGZipOutputStream.BLOCK_SIZE * 9 + 5);
+        assertArrayEquals(compress(content, 1, Deflater.DEFAULT_COMPRESSION), compress(content, 4, Deflater.DEFAULT_COMPRESSION));
+    }
+
+    @Test
+    public void testCompressionRatioCloseToGZIPOutputStream() throws IOException {
+        byte[] content = content(8 * 1024 * 1024);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes)) {
+            output.write(content);
+        }
+
+        byte[] parallel = compress(content, 4, Deflater.DEFAULT_COMPRESSION);
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(parallel))) {
+            assertArrayEquals(content, ByteStreams.toByteArray(input));
+        }
+        // Compressing the blocks separately only loses the matches across block boundaries
+        assertTrue(parallel.length + " bytes instead of " + bytes.size(), parallel.length < bytes.size() * 1.01);
+    }
+
+    private void assertRoundTrip(byte[] content) throws IOException {
+        for (int level : new int[]{Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED}) {
+            byte[] compressed = compress(content, 4, level);
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                assertArrayEquals(content, ByteStreams.toByteArray(input));
+            }
+        }
+    }
+
+    private byte[] compress(byte[] content, int parallelism, int level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new ParallelGZipOutputStream(bytes, executor, level, parallelism)) {
+            // Write in odd sized chunks to cross block boundaries in the middle of a write
+            for (int offset = 0; offset < content.length; offset += 7919) {
+                output.write(content, offset, Math.min(7919, content.length - offset));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Somewhat compressible content, similar to class files and resources.
+     */
+    private static byte[] content(int length) {
+        Random random = new Random(length);
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(16));
+        }
+        return content;
+    }
+}
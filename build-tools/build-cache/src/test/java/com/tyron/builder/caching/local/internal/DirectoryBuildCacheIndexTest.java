@@ -0,0 +1,127 @@
+package com.tyron.builder.caching.local.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DirectoryBuildCacheIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntries() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        DirectoryBuildCacheIndex index = newIndex(directory, 300);
+
+        index.markUsed(entry(directory, "a1", 100), 100);
+        index.markUsed(entry(directory, "b2", 100), 100);
+        index.markUsed(entry(directory, "c3", 100), 100);
+        index.markUsed("a1", 100);
+        index.markUsed(entry(directory, "d4", 100), 100);
+
+        assertEquals(Collections.singletonList(new File(directory, "b2")), index.evict());
+        assertEquals(300, index.getSizeInBytes());
+        assertEquals(Collections.emptyList(), index.evict());
+    }
+
+    @Test
+    public void testKeepsMostRecentlyUsedEntryEvenIfTooLarge() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        DirectoryBuildCacheIndex index = newIndex(directory, 100);
+
+        index.markUsed(entry(directory, "a1", 50), 50);
+        index.markUsed(entry(directory, "b2", 500), 500);
+
+        assertEquals(Collections.singletonList(new File(directory, "a1")), index.evict());
+        assertEquals(1, index.getEntryCount());
+        assertEquals(500, index.getSizeInBytes());
+    }
+
+    @Test
+    public void testRestoresAccessOrderAndReconcilesWithDirectory() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        DirectoryBuildCacheIndex index = newIndex(directory, 1000);
+        index.markUsed(entry(directory, "a1", 10), 10);
+        index.markUsed(entry(directory, "b2", 10), 10);
+        index.markUsed(entry(directory, "c3", 10), 10);
+        index.markUsed("a1", 10);
+        index.write();
+
+        // Another process removes an entry and adds a new one
+        assertTrue(new File(directory, "c3").delete());
+        entry(directory, "d4", 10);
+        // Files which are not entries are ignored
+        entry(directory, "d4.failed", 10);
+
+        DirectoryBuildCacheIndex reloaded = newIndex(directory, 15);
+        assertEquals(3, reloaded.getEntryCount());
+        List<File> evicted = reloaded.evict();
+        assertEquals(Arrays.asList(new File(directory, "d4"), new File(directory, "b2")), evicted);
+    }
+
+    @Test
+    public void testReloadsIndexWrittenByAnotherProcess() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        DirectoryBuildCacheIndex index = newIndex(directory, 25);
+        index.markUsed(entry(directory, "a1", 10), 10);
+        index.markUsed(entry(directory, "b2", 10), 10);
+        index.write();
+
+        // Another process uses a1, stores c3 and writes the index
+        DirectoryBuildCacheIndex other = newIndex(directory, 1000);
+        other.markUsed("a1", 10);
+        other.markUsed(entry(directory, "c3", 10), 10);
+        other.write();
+
+        // Used here after the other process wrote the index
+        index.markUsed("b2", 10);
+        assertEquals(3, index.getEntryCount());
+        assertEquals(30, index.getSizeInBytes());
+        assertEquals(Collections.singletonList(new File(directory, "a1")), index.evict());
+    }
+
+    @Test
+    public void testKeepsOwnUsesWhenReloading() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        DirectoryBuildCacheIndex index = newIndex(directory, 15);
+        index.markUsed(entry(directory, "a1", 10), 10);
+
+        DirectoryBuildCacheIndex other = newIndex(directory, 1000);
+        other.markUsed(entry(directory, "b2", 10), 10);
+        other.write();
+
+        // a1 was used here after b2, even though only b2 is in the index file
+        assertEquals(Collections.singletonList(new File(directory, "b2")), index.evict());
+    }
+
+    @Test
+    public void testRecoversFromCorruptIndex() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        entry(directory, "a1", 10);
+        Files.write(new File(directory, DirectoryBuildCacheService.INDEX_FILE_NAME).toPath(), new byte[]{0, 0, 0, 1, 0, 0});
+
+        DirectoryBuildCacheIndex index = newIndex(directory, 100);
+        assertEquals(1, index.getEntryCount());
+        assertEquals(10, index.getSizeInBytes());
+    }
+
+    private static DirectoryBuildCacheIndex newIndex(File directory, long targetSize) {
+        return new DirectoryBuildCacheIndex(directory, new File(directory, DirectoryBuildCacheService.INDEX_FILE_NAME), targetSize);
+    }
+
+    private static String entry(File directory, String key, int size) throws IOException {
+        Files.write(new File(directory, key).toPath(), new byte[size]);
+        return key;
+    }
+}
@@ -2,7 +2,6 @@ package com.tyron.builder.compiler;
 
 import com.tyron.builder.compiler.apk.PackageTask;
 import com.tyron.builder.compiler.apk.SignTask;
-import com.tyron.builder.compiler.apk.ZipAlignTask;
 import com.tyron.builder.compiler.dex.R8Task;
 import com.tyron.builder.compiler.firebase.GenerateFirebaseConfigTask;
 import com.tyron.builder.compiler.incremental.dex.IncrementalD8Task;
@@ -36,12 +35,16 @@ public class AndroidAppBuilder extends BuilderImpl<AndroidModule> {
         ILogger logger = getLogger();
 
         List<Task<? super AndroidModule>> tasks = new ArrayList<>();
-        tasks.add(new CleanTask(getProject(), module, logger));
+        CleanTask clean = new CleanTask(getProject(), module, logger);
+        tasks.add(clean);
         tasks.add(new CheckLibrariesTask(getProject(), module, logger));
-        tasks.add(new ManifestMergeTask(getProject(), module, logger));
-        tasks.add(new GenerateFirebaseConfigTask(getProject(), module, logger));
+        ManifestMergeTask manifestMerge = new ManifestMergeTask(getProject(), module, logger);
+        tasks.add(manifestMerge);
+        // Only reads google-services.json, so it can run while the libraries are checked
+        tasks.add(new GenerateFirebaseConfigTask(getProject(), module, logger).dependsOn(clean));
         if (type == BuildType.DEBUG) {
-            tasks.add(new InjectLoggerTask(getProject(), module, logger));
+            // Only needs the merged manifest, it does not touch the resources
+            tasks.add(new InjectLoggerTask(getProject(), module, logger).dependsOn(manifestMerge));
         }
         tasks.add(new CrashlyticsTask(getProject(), module, logger));
         tasks.add(new IncrementalAapt2Task(getProject(), module, logger, false));
@@ -55,10 +58,8 @@ public class AndroidAppBuilder extends BuilderImpl<AndroidModule> {
         } else {
             tasks.add(new IncrementalD8Task(getProject(), module, logger));
         }
+        // The APK is aligned while it is packaged and signed, there is no separate zipalign pass
         tasks.add(new PackageTask(getProject(), module, logger));
-        if (module.getSettings().getBoolean(ModuleSettings.ZIP_ALIGN_ENABLED, false)) {
-            tasks.add(new ZipAlignTask(getProject(), module, logger));
-        }
         tasks.add(new SignTask(getProject(), module, logger));
         return tasks;
     }
@@ -2,11 +2,24 @@ package com.tyron.builder.compiler;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.android.apksig.DefaultApkSignerEngine;
+import com.android.apksig.util.RunnablesExecutor;
 import com.tyron.builder.BuildModule;
 import com.tyron.common.util.Decompress;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Collections;
 
 
 public class ApkSigner {
@@ -17,34 +30,95 @@ public class ApkSigner {
     }
 
 
-    private final ArrayList<String> commands ;
+    private static final String SIGNER_NAME = "CERT";
+
     private final String mApkInputPath ;
     private final String mApkOutputPath;
-
-    public ApkSigner(String inputPath ,String outputPath,int mode){
-        commands = new ArrayList<>();
+    private final int mMinSdkVersion;
+
+    /**
+     * @param minSdkVersion the oldest platform the APK installs on, it decides which signature
+     *                      schemes are required
+     * @param maxSdkVersion the newest platform the APK targets, it may not be lower than the
+     *                      min SDK version
+     */
+    public ApkSigner(String inputPath ,String outputPath,int mode, int minSdkVersion,
+                     int maxSdkVersion){
+        if (minSdkVersion > maxSdkVersion) {
+            throw new IllegalArgumentException("Min SDK version (" + minSdkVersion +
+                    ") > max SDK version (" + maxSdkVersion + ")");
+        }
         mApkInputPath = inputPath;
         mApkOutputPath = outputPath;
+        mMinSdkVersion = minSdkVersion;
     }
 
-    //TODO: Adjust min and max sdk
+    /**
+     * Signs the APK with the v1, v2 and v3 schemes in a single pass. The uncompressed entries
+     * keep the alignment they have in the input, which {@link
+     * com.tyron.builder.compiler.apk.IncrementalApkPackager} writes aligned. The 1 MiB chunk
+     * digests of the v2 and v3 signing blocks are computed on all available cores.
+     */
     public void sign() throws Exception {
-        commands.add("sign");
-        commands.add("--key");
-        commands.add(getTestKeyFilePath());
-        commands.add("--cert");
-        commands.add(getTestCertFilePath());
-        commands.add("--min-sdk-version");
-        commands.add("21");
-        commands.add("--max-sdk-version");
-        commands.add("30");
-        commands.add("--out");
-        commands.add(mApkOutputPath);
-        commands.add("--in");
-        commands.add(mApkInputPath);
-        com.android.apksigner.ApkSignerTool.main(commands.toArray(new String[0]));
+        DefaultApkSignerEngine.SignerConfig signerConfig =
+                new DefaultApkSignerEngine.SignerConfig.Builder(SIGNER_NAME,
+                        getTestKey(), Collections.singletonList(getTestCertificate())).build();
+        DefaultApkSignerEngine engine = new DefaultApkSignerEngine.Builder(
+                Collections.singletonList(signerConfig), mMinSdkVersion)
+                .setV1SigningEnabled(true)
+                .setV2SigningEnabled(true)
+                .setV3SigningEnabled(true)
+                .build();
+        engine.setExecutor(RunnablesExecutor.MULTI_THREADED);
+        try {
+            new com.android.apksig.ApkSigner.Builder(engine)
+                    .setInputApk(new File(mApkInputPath))
+                    .setOutputApk(new File(mApkOutputPath))
+                    .build()
+                    .sign();
+        } finally {
+            engine.close();
+        }
     }
 
+    private PrivateKey getTestKey() throws IOException, GeneralSecurityException {
+        File keyFile = new File(getTestKeyFilePath());
+        synchronized (ApkSigner.class) {
+            if (sTestKey == null || !keyFile.equals(sTestKeyLoadedFrom)) {
+                byte[] encoded = Files.readAllBytes(keyFile.toPath());
+                sTestKey = loadPkcs8Key(encoded);
+                sTestKeyLoadedFrom = keyFile;
+            }
+            return sTestKey;
+        }
+    }
+
+    private static PrivateKey loadPkcs8Key(byte[] encoded) throws GeneralSecurityException {
+        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(encoded);
+        GeneralSecurityException failure = null;
+        for (String algorithm : new String[]{"RSA", "EC", "DSA"}) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(spec);
+            } catch (GeneralSecurityException e) {
+                failure = e;
+            }
+        }
+        throw new InvalidKeySpecException("Unsupported key format", failure);
+    }
+
+    private X509Certificate getTestCertificate() throws IOException, GeneralSecurityException {
+        File certFile = new File(getTestCertFilePath());
+        synchronized (ApkSigner.class) {
+            if (sTestCertificate == null || !certFile.equals(sTestCertificateLoadedFrom)) {
+                try (InputStream input = new FileInputStream(certFile)) {
+                    sTestCertificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                            .generateCertificate(input);
+                }
+                sTestCertificateLoadedFrom = certFile;
+            }
+            return sTestCertificate;
+        }
+    }
 
     private String getTestKeyFilePath() {
         if (sTestKeyFile != null) {
@@ -95,4 +169,9 @@ public class ApkSigner {
     private static File sTestKeyFile;
     private static File sTestCertFile;
 
+    private static PrivateKey sTestKey;
+    private static File sTestKeyLoadedFrom;
+    private static X509Certificate sTestCertificate;
+    private static File sTestCertificateLoadedFrom;
+
 }
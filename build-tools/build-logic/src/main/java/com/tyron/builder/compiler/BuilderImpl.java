@@ -13,10 +13,25 @@ import com.tyron.builder.project.api.Module;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public abstract class BuilderImpl<T extends Module> implements Builder<T> {
 
+    /**
+     * The maximum number of tasks which run at the same time.
+     */
+    private static final int MAX_PARALLEL_TASKS = 4;
+
     private final Handler mMainHandler;
     private final Project mProject;
     private final T mModule;
@@ -54,32 +69,244 @@ public abstract class BuilderImpl<T extends Module> implements Builder<T> {
         }
     }
 
+    /**
+     * Runs the tasks of {@link #getTasks(BuildType)}. A task starts as soon as the tasks it depends on
+     * have finished, see {@link Task#dependsOn(Task[])}. When more than one task is ready, they run
+     * concurrently on a bounded pool, otherwise the ready task runs on the calling thread. Tasks
+     * which do not declare their dependencies run in the order they are returned in.
+     */
     @Override
     public final void build(BuildType type) throws CompilationFailedException, IOException {
         mTasksRan.clear();
         List<Task<? super T>> tasks = getTasks(type);
-        for (int i = 0, tasksSize = tasks.size(); i < tasksSize; i++) {
-            Task<? super T> task = tasks.get(i);
-            final float current = i;
-            getLogger().info("Running " + task.getName());
-            try {
-                mMainHandler.post(() -> updateProgress(task.getName(), "Task started",
-                        (int) ((current / (float) tasks.size()) * 100f)));
-                task.prepare(type);
-                task.run();
-            } catch (Throwable e) {
-                if (e instanceof OutOfMemoryError) {
-                    tasks.clear();
-                    mTasksRan.clear();
-                    throw new CompilationFailedException("Builder ran out of memory", e);
+        Map<Task<?>, Set<Task<?>>> predecessors = getPredecessors(tasks);
+        int parallelism = getMaxParallelTasks();
+        ExecutorService executor = parallelism > 1
+                ? Executors.newFixedThreadPool(parallelism, runnable -> new Thread(runnable, "Builder task"))
+                : null;
+        Map<Task<?>, Long> durations = new HashMap<>();
+        long buildStart = System.nanoTime();
+        try {
+            runTasks(type, tasks, predecessors, durations, executor, parallelism);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        mTasksRan.forEach(Task::clean);
+        logTimings(tasks, predecessors, durations, System.nanoTime() - buildStart);
+    }
+
+    private void runTasks(BuildType type,
+                          List<Task<? super T>> tasks,
+                          Map<Task<?>, Set<Task<?>>> predecessors,
+                          Map<Task<?>, Long> durations,
+                          ExecutorService executor,
+                          int parallelism) throws CompilationFailedException, IOException {
+        CompletionService<TaskExecution> completionService =
+                executor == null ? null : new ExecutorCompletionService<>(executor);
+        List<Task<? super T>> pending = new ArrayList<>(tasks);
+        Set<Task<?>> finished = new LinkedHashSet<>();
+        List<Future<TaskExecution>> running = new ArrayList<>();
+        int started = 0;
+        TaskExecution failure = null;
+
+        while (!pending.isEmpty() || !running.isEmpty()) {
+            List<Task<? super T>> ready = new ArrayList<>();
+            if (failure == null) {
+                for (Task<? super T> task : pending) {
+                    if (finished.containsAll(predecessors.get(task))) {
+                        ready.add(task);
+                    }
+                }
+            }
+
+            if (running.isEmpty() && ready.size() == 1 || completionService == null && !ready.isEmpty()) {
+                // Nothing to run concurrently, keep the task on the builder thread
+                Task<? super T> task = ready.get(0);
+                pending.remove(task);
+                TaskExecution execution = execute(task, type, started++, tasks.size());
+                failure = onTaskFinished(execution, finished, durations, failure);
+                continue;
+            }
+
+            for (Task<? super T> task : ready) {
+                if (running.size() >= parallelism) {
+                    break;
                 }
-                task.clean();
+                pending.remove(task);
+                int index = started++;
+                running.add(completionService.submit(() -> execute(task, type, index, tasks.size())));
+            }
+
+            if (running.isEmpty()) {
+                // Only reachable after a failure, no more tasks are started
+                break;
+            }
+            try {
+                Future<TaskExecution> future = completionService.take();
+                running.remove(future);
+                failure = onTaskFinished(future.get(), finished, durations, failure);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.forEach(future -> future.cancel(true));
                 mTasksRan.forEach(Task::clean);
-                throw e;
+                throw new CompilationFailedException("Build was interrupted", e);
+            } catch (ExecutionException e) {
+                // execute() catches everything the task throws
+                throw new IllegalStateException(e.getCause());
             }
-            mTasksRan.add(task);
         }
-        mTasksRan.forEach(Task::clean);
+
+        if (failure != null) {
+            Throwable e = failure.failure;
+            if (e instanceof OutOfMemoryError) {
+                tasks.clear();
+                mTasksRan.clear();
+                throw new CompilationFailedException("Builder ran out of memory", e);
+            }
+            failure.task.clean();
+            mTasksRan.forEach(Task::clean);
+            rethrow(e);
+        }
+    }
+
+    private TaskExecution onTaskFinished(TaskExecution execution,
+                                         Set<Task<?>> finished,
+                                         Map<Task<?>, Long> durations,
+                                         TaskExecution failure) {
+        if (execution.failure != null) {
+            // Let the running tasks finish, but do not start new ones
+            return failure == null ? execution : failure;
+        }
+        finished.add(execution.task);
+        durations.put(execution.task, execution.end - execution.start);
+        mTasksRan.add(execution.task);
+        return failure;
+    }
+
+    private TaskExecution execute(Task<? super T> task, BuildType type, int index, int taskCount) {
+        final float current = index;
+        getLogger().info("Running " + task.getName());
+        mMainHandler.post(() -> updateProgress(task.getName(), "Task started",
+                (int) ((current / (float) taskCount) * 100f)));
+        TaskExecution execution = new TaskExecution(task);
+        execution.start = System.nanoTime();
+        try {
+            task.prepare(type);
+            task.run();
+        } catch (Throwable e) {
+            execution.failure = e;
+        }
+        execution.end = System.nanoTime();
+        return execution;
+    }
+
+    private static void rethrow(Throwable e) throws CompilationFailedException, IOException {
+        if (e instanceof CompilationFailedException) {
+            throw (CompilationFailedException) e;
+        }
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new CompilationFailedException(e.getMessage(), e);
+    }
+
+    /**
+     * Returns the tasks each task has to wait for, only tasks which come before a task are considered
+     * so the order of {@link #getTasks(BuildType)} is always a valid order to run the tasks in.
+     */
+    private static <T extends Module> Map<Task<?>, Set<Task<?>>> getPredecessors(List<Task<? super T>> tasks) {
+        Map<Task<?>, Set<Task<?>>> predecessors = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task<? super T> task = tasks.get(i);
+            List<Task<? super T>> previous = tasks.subList(0, i);
+            Set<Task<?>> taskPredecessors = new LinkedHashSet<>();
+            if (task.hasDeclaredDependencies()) {
+                for (Task<?> dependency : task.getDependencies()) {
+                    if (previous.contains(dependency)) {
+                        taskPredecessors.add(dependency);
+                    }
+                }
+            } else {
+                taskPredecessors.addAll(previous);
+            }
+            predecessors.put(task, taskPredecessors);
+        }
+        return predecessors;
+    }
+
+    /**
+     * Logs how long each task took and the chain of tasks the build had to wait for. The build
+     * can not be faster than this critical path, no matter how many tasks run concurrently.
+     */
+    private void logTimings(List<Task<? super T>> tasks,
+                            Map<Task<?>, Set<Task<?>>> predecessors,
+                            Map<Task<?>, Long> durations,
+                            long buildTime) {
+        Map<Task<?>, Long> chainLengths = new HashMap<>();
+        Map<Task<?>, Task<?>> criticalPredecessors = new HashMap<>();
+
+        Task<?> last = null;
+        long criticalPathLength = 0;
+        for (Task<? super T> task : tasks) {
+            Long duration = durations.get(task);
+            if (duration == null) {
+                continue;
+            }
+            long longestPredecessorChain = 0;
+            for (Task<?> predecessor : predecessors.get(task)) {
+                Long chainLength = chainLengths.get(predecessor);
+                if (chainLength != null && chainLength > longestPredecessorChain) {
+                    longestPredecessorChain = chainLength;
+                    criticalPredecessors.put(task, predecessor);
+                }
+            }
+            long chainLength = longestPredecessorChain + duration;
+            chainLengths.put(task, chainLength);
+            if (chainLength >= criticalPathLength) {
+                criticalPathLength = chainLength;
+                last = task;
+            }
+        }
+
+        List<Task<?>> criticalPath = new ArrayList<>();
+        for (Task<?> task = last; task != null; task = criticalPredecessors.get(task)) {
+            criticalPath.add(0, task);
+        }
+        StringBuilder path = new StringBuilder();
+        for (Task<?> task : criticalPath) {
+            if (path.length() > 0) {
+                path.append(" > ");
+            }
+            path.append(task.getName()).append(" (").append(toMillis(durations.get(task))).append(" ms)");
+        }
+        for (Task<? super T> task : tasks) {
+            Long duration = durations.get(task);
+            if (duration != null) {
+                getLogger().debug(task.getName() + " took " + toMillis(duration) + " ms"
+                        + (criticalPath.contains(task) ? ", on the critical path" : ""));
+            }
+        }
+        getLogger().debug("Build took " + toMillis(buildTime) + " ms, critical path "
+                + toMillis(criticalPathLength) + " ms: " + path);
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * @return the maximum number of tasks to run at the same time, 1 runs the tasks one after the other
+     */
+    protected int getMaxParallelTasks() {
+        return Math.min(MAX_PARALLEL_TASKS, Runtime.getRuntime().availableProcessors());
     }
 
     public abstract List<Task<? super T>> getTasks(BuildType type);
@@ -96,4 +323,15 @@ public abstract class BuilderImpl<T extends Module> implements Builder<T> {
     public ILogger getLogger() {
         return mLogger;
     }
+
+    private final class TaskExecution {
+        private final Task<? super T> task;
+        private long start;
+        private long end;
+        private Throwable failure;
+
+        private TaskExecution(Task<? super T> task) {
+            this.task = task;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.tyron.builder.compiler;
 
 import com.tyron.builder.compiler.incremental.dex.IncrementalD8Task;
 import com.tyron.builder.compiler.incremental.java.IncrementalJavaTask;
+import com.tyron.builder.compiler.log.InjectLoggerTask;
 import com.tyron.builder.compiler.symbol.MergeSymbolsTask;
 import com.tyron.builder.exception.CompilationFailedException;
 import com.tyron.builder.log.ILogger;
@@ -137,6 +138,7 @@ public class CleanTask extends Task<AndroidModule> {
         }
         return getModule().getJavaFiles().get(fqn) != null ||
                getModule().getKotlinFiles().get(fqn) != null ||
-               getModule().getResourceClasses().containsKey(fqn);
+               getModule().getResourceClasses().containsKey(fqn) ||
+               InjectLoggerTask.isGenerated(getModule(), fqn);
     }
 }
@@ -6,6 +6,10 @@ import com.tyron.builder.project.Project;
 import com.tyron.builder.project.api.Module;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  *
@@ -15,6 +19,8 @@ public abstract class Task<T extends Module> {
     private final Project mProject;
     private final T mModule;
     private final ILogger mLogger;
+    private final Set<Task<?>> mDependencies = new LinkedHashSet<>();
+    private boolean mDependenciesDeclared;
 
     public Task(Project project, T module, ILogger logger) {
         mProject = project;
@@ -39,6 +45,31 @@ public abstract class Task<T extends Module> {
         return mModule;
     }
 
+    /**
+     * Declares the tasks whose outputs this task needs, this task will only run after them.
+     *
+     * <p>A task which does not declare any dependency runs after every task that comes before it
+     * in {@link BuilderImpl#getTasks(BuildType)}. Declaring the dependencies allows the builder to
+     * run this task concurrently with the other tasks. Dependencies which are not part of the build,
+     * or which come after this task, are ignored.</p>
+     */
+    public Task<T> dependsOn(Task<?>... tasks) {
+        mDependencies.addAll(Arrays.asList(tasks));
+        mDependenciesDeclared = true;
+        return this;
+    }
+
+    /**
+     * @return whether {@link #dependsOn(Task[])} was called on this task
+     */
+    public boolean hasDeclaredDependencies() {
+        return mDependenciesDeclared;
+    }
+
+    public Set<Task<?>> getDependencies() {
+        return Collections.unmodifiableSet(mDependencies);
+    }
+
     /**
      * Called by {@link ApkBuilder} to display the name of the task to the logs
      */
@@ -0,0 +1,531 @@
+package com.tyron.builder.compiler.apk;
+
+import com.tyron.builder.exception.CompilationFailedException;
+
+import org.apache.commons.compress.archivers.zip.ResourceAlignmentExtraField;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Packages an APK without compressing what has already been compressed.
+ *
+ * <p>Entries coming from zip files, like the resources compiled by aapt2 or the java resources of
+ * libraries, are copied as they are stored in their archive. Entries coming from plain files, like
+ * the dex files and native libraries, are compared with the entry of the same name in the
+ * previously packaged APK and copied from it if it was deflated from contents of the same size
+ * and CRC-32.
+ * Only new or modified files are deflated, large ones concurrently. A deflated entry is held in
+ * memory until it is written, so large files are only deflated ahead of the writer while the
+ * files waiting to be written add up to less than {@link #MAX_PENDING_BYTES}.</p>
+ *
+ * <p>Entries are written in the order they are added and with a fixed time, so packaging the same
+ * inputs twice produces the same APK. Uncompressed entries are aligned the way zipalign aligns
+ * them, so the APK only has to be signed afterwards.</p>
+ */
+public class IncrementalApkPackager implements Closeable {
+
+    /**
+     * Files larger than this are deflated on the pool, smaller ones are not worth the hand off.
+     */
+    private static final long PARALLEL_DEFLATE_THRESHOLD = 256 * 1024;
+
+    private static final int MAX_DEFLATE_THREADS = 4;
+
+    /**
+     * The size of the large files which may be read and deflated before the entries in front of
+     * them are written. A file larger than this is still deflated, alone.
+     */
+    private static final long MAX_PENDING_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * 1981-01-01, the same constant bundletool uses, zip times before 1980 can not be stored.
+     */
+    private static final long ENTRY_TIME = 347155200000L;
+
+    /**
+     * Uncompressed entries are aligned so they can be memory mapped, native libraries to a page.
+     */
+    private static final int STORED_ALIGNMENT = 4;
+    private static final int NATIVE_LIBRARY_ALIGNMENT = 4096;
+
+    private final File mOutputFile;
+    private final boolean mDebugMode;
+    private final Map<String, Source> mEntries = new LinkedHashMap<>();
+    private final List<ZipFile> mOpenedArchives = new ArrayList<>();
+
+    private int mCopiedEntries;
+    private int mReusedEntries;
+    private int mDeflatedEntries;
+
+    /**
+     * @param outputFile the APK to create, if it exists it is used as the base of the new APK
+     * @param debugMode  whether gdbserver binaries are packaged with the native libraries
+     */
+    public IncrementalApkPackager(File outputFile, boolean debugMode) {
+        mOutputFile = outputFile;
+        mDebugMode = debugMode;
+    }
+
+    /**
+     * Adds every entry of the given zip file, such as the resources APK produced by aapt2.
+     */
+    public void addZipFile(File zipFile) throws IOException, CompilationFailedException {
+        addZipFile(zipFile, false);
+    }
+
+    /**
+     * Adds the java resources of a library jar, skipping class files, META-INF and source files.
+     */
+    public void addResourcesFromJar(File jarFile) throws IOException, CompilationFailedException {
+        addZipFile(jarFile, true);
+    }
+
+    private void addZipFile(File file, boolean filter) throws IOException,
+            CompilationFailedException {
+        ZipFile zipFile = new ZipFile(file);
+        mOpenedArchives.add(zipFile);
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (filter && !isJavaResource(entry.getName())) {
+                continue;
+            }
+            add(entry.getName(), new ArchiveSource(file, zipFile, entry));
+        }
+    }
+
+    public void addFile(File file, String archivePath) throws CompilationFailedException {
+        add(archivePath, new FileSource(file));
+    }
+
+    /**
+     * Adds the {@code .so} files of each ABI directory of the given folder under {@code lib/}.
+     */
+    public void addNativeLibraries(File nativeFolder) throws CompilationFailedException {
+        File[] abiDirectories = nativeFolder.listFiles(File::isDirectory);
+        if (abiDirectories == null) {
+            return;
+        }
+        Arrays.sort(abiDirectories);
+        for (File abiDirectory : abiDirectories) {
+            File[] libraries = abiDirectory.listFiles(file -> file.isFile() &&
+                    (file.getName().endsWith(".so") ||
+                     (mDebugMode && file.getName().equals("gdbserver"))));
+            if (libraries == null) {
+                continue;
+            }
+            Arrays.sort(libraries);
+            for (File library : libraries) {
+                addFile(library, "lib/" + abiDirectory.getName() + "/" + library.getName());
+            }
+        }
+    }
+
+    /**
+     * Adds the java resources of the given folder, keeping their path relative to it.
+     */
+    public void addSourceFolder(File folder) throws CompilationFailedException {
+        addSourceFolder(folder, "");
+    }
+
+    private void addSourceFolder(File folder, String path) throws CompilationFailedException {
+        File[] children = folder.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children, Comparator.comparing(File::getName));
+        for (File child : children) {
+            if (child.isDirectory()) {
+                if (isPackagedFolder(child.getName())) {
+                    addSourceFolder(child, path + child.getName() + "/");
+                }
+            } else if (isPackagedFile(child.getName())) {
+                addFile(child, path + child.getName());
+            }
+        }
+    }
+
+    private void add(String archivePath, Source source) throws CompilationFailedException {
+        Source existing = mEntries.get(archivePath);
+        if (existing != null) {
+            String message = "Duplicate files from two libraries detected. \n";
+            message += "File1: " + existing.getOrigin() + " \n";
+            message += "File2: " + source.getOrigin() + " \n";
+            message += "Archive path: " + archivePath;
+            throw new CompilationFailedException(message);
+        }
+        mEntries.put(archivePath, source);
+    }
+
+    /**
+     * Writes the APK. The previous APK is only replaced once the new one is complete.
+     */
+    public void write() throws IOException {
+        File tempFile = new File(mOutputFile.getParentFile(), mOutputFile.getName() + ".tmp");
+        ZipFile previous = null;
+        if (mOutputFile.isFile()) {
+            try {
+                previous = new ZipFile(mOutputFile);
+            } catch (IOException e) {
+                // a broken APK is not worth reusing, everything is compressed again
+            }
+        }
+
+        ExecutorService executor = null;
+        try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(tempFile)) {
+            output.setUseZip64(Zip64Mode.AsNeeded);
+            Iterator<Map.Entry<String, Source>> sources = mEntries.entrySet().iterator();
+            Map.Entry<String, Source> next = null;
+            Deque<PendingEntry> pending = new ArrayDeque<>();
+            long pendingBytes = 0;
+            while (true) {
+                while (next != null || sources.hasNext()) {
+                    if (next == null) {
+                        next = sources.next();
+                    }
+                    long size = next.getValue().getSize();
+                    boolean parallel = size > PARALLEL_DEFLATE_THRESHOLD;
+                    if (parallel && pendingBytes > 0 && pendingBytes + size > MAX_PENDING_BYTES) {
+                        // started once the writer has caught up
+                        break;
+                    }
+                    FutureTask<Entry> task = new FutureTask<>(
+                            new PrepareEntry(next.getKey(), next.getValue(), previous));
+                    if (parallel) {
+                        if (executor == null) {
+                            executor = Executors.newFixedThreadPool(getDeflateThreads());
+                        }
+                        executor.execute(task);
+                        pendingBytes += size;
+                    }
+                    pending.add(new PendingEntry(task, parallel ? size : 0));
+                    next = null;
+                }
+
+                PendingEntry head = pending.poll();
+                if (head == null) {
+                    break;
+                }
+                // small files are prepared here, when they are written, and so are large ones
+                // the pool has not started yet
+                head.task.run();
+                Entry entry = get(head.task);
+                try (InputStream data = entry.open()) {
+                    output.addRawArchiveEntry(entry.archiveEntry, data);
+                }
+                pendingBytes -= head.size;
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (previous != null) {
+                previous.close();
+            }
+        }
+
+        Files.move(tempFile.toPath(), mOutputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Entry get(Future<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Packaging was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static int getDeflateThreads() {
+        return Math.max(1, Math.min(MAX_DEFLATE_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return a short summary of how the entries of the last {@link #write()} were produced
+     */
+    public String getStatistics() {
+        return String.format(Locale.ROOT, "%d entries copied from archives, %d reused from the " +
+                "previous APK, %d compressed", mCopiedEntries, mReusedEntries, mDeflatedEntries);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ZipFile archive : mOpenedArchives) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        mOpenedArchives.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private class PrepareEntry implements Callable<Entry> {
+        private final String mName;
+        private final Source mSource;
+        private final ZipFile mPrevious;
+
+        PrepareEntry(String name, Source source, ZipFile previous) {
+            mName = name;
+            mSource = source;
+            mPrevious = previous;
+        }
+
+        @Override
+        public Entry call() throws IOException {
+            if (mSource instanceof ArchiveSource) {
+                ArchiveSource archive = (ArchiveSource) mSource;
+                synchronized (IncrementalApkPackager.this) {
+                    mCopiedEntries++;
+                }
+                return new Entry(copyOf(mName, archive.mEntry), archive.mZipFile, archive.mEntry);
+            }
+
+            File file = ((FileSource) mSource).mFile;
+            byte[] content = FileUtils.readFileToByteArray(file);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+
+            if (mPrevious != null) {
+                ZipArchiveEntry previousEntry;
+                synchronized (mPrevious) {
+                    previousEntry = mPrevious.getEntry(mName);
+                }
+                if (isUnchanged(previousEntry, content.length, crc.getValue())) {
+                    synchronized (IncrementalApkPackager.this) {
+                        mReusedEntries++;
+                    }
+                    return new Entry(copyOf(mName, previousEntry), mPrevious, previousEntry);
+                }
+            }
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try (DeflaterOutputStream output = new DeflaterOutputStream(compressed, deflater)) {
+                output.write(content);
+            } finally {
+                deflater.end();
+            }
+
+            ZipArchiveEntry entry = new ZipArchiveEntry(mName);
+            entry.setMethod(ZipArchiveEntry.DEFLATED);
+            entry.setTime(ENTRY_TIME);
+            entry.setSize(content.length);
+            entry.setCompressedSize(compressed.size());
+            entry.setCrc(crc.getValue());
+            synchronized (IncrementalApkPackager.this) {
+                mDeflatedEntries++;
+            }
+            return new Entry(entry, compressed.toByteArray());
+        }
+
+        /**
+         * @return whether the entry of the previous APK holds the same contents, compressed the
+         * way the file would be compressed now
+         */
+        private boolean isUnchanged(ZipArchiveEntry previousEntry, long size, long crc) {
+            return previousEntry != null &&
+                   previousEntry.getName().equals(mName) &&
+                   previousEntry.getMethod() == ZipArchiveEntry.DEFLATED &&
+                   previousEntry.getSize() == size &&
+                   previousEntry.getCrc() == crc;
+        }
+    }
+
+    private static ZipArchiveEntry copyOf(String name, ZipArchiveEntry source) {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(source.getMethod());
+        entry.setTime(ENTRY_TIME);
+        entry.setSize(source.getSize());
+        entry.setCompressedSize(source.getCompressedSize());
+        entry.setCrc(source.getCrc());
+        if (source.getMethod() == ZipArchiveEntry.STORED) {
+            // What zipalign does, the signer keeps the alignment of its input. An extra field
+            // rather than setAlignment(), which addRawArchiveEntry() does not carry over
+            int alignment = name.endsWith(".so") ? NATIVE_LIBRARY_ALIGNMENT : STORED_ALIGNMENT;
+            entry.addExtraField(new ResourceAlignmentExtraField(alignment));
+        }
+        return entry;
+    }
+
+    private static class PendingEntry {
+        private final FutureTask<Entry> task;
+        private final long size;
+
+        PendingEntry(FutureTask<Entry> task, long size) {
+            this.task = task;
+            this.size = size;
+        }
+    }
+
+    /**
+     * An entry ready to be written, its data is already compressed with the method of the entry.
+     */
+    private static class Entry {
+        private final ZipArchiveEntry archiveEntry;
+        private final byte[] data;
+        private final ZipFile zipFile;
+        private final ZipArchiveEntry zipEntry;
+
+        Entry(ZipArchiveEntry archiveEntry, byte[] data) {
+            this.archiveEntry = archiveEntry;
+            this.data = data;
+            this.zipFile = null;
+            this.zipEntry = null;
+        }
+
+        Entry(ZipArchiveEntry archiveEntry, ZipFile zipFile, ZipArchiveEntry zipEntry) {
+            this.archiveEntry = archiveEntry;
+            this.data = null;
+            this.zipFile = zipFile;
+            this.zipEntry = zipEntry;
+        }
+
+        InputStream open() throws IOException {
+            if (data != null) {
+                return new ByteArrayInputStream(data);
+            }
+            return zipFile.getRawInputStream(zipEntry);
+        }
+    }
+
+    private interface Source {
+        long getSize();
+
+        String getOrigin();
+    }
+
+    private static class FileSource implements Source {
+        private final File mFile;
+
+        FileSource(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public long getSize() {
+            return mFile.length();
+        }
+
+        @Override
+        public String getOrigin() {
+            return mFile.getAbsolutePath();
+        }
+    }
+
+    private static class ArchiveSource implements Source {
+        private final File mArchive;
+        private final ZipFile mZipFile;
+        private final ZipArchiveEntry mEntry;
+
+        ArchiveSource(File archive, ZipFile zipFile, ZipArchiveEntry entry) {
+            mArchive = archive;
+            mZipFile = zipFile;
+            mEntry = entry;
+        }
+
+        @Override
+        public long getSize() {
+            // nothing to compress, always copied on the calling thread
+            return 0;
+        }
+
+        @Override
+        public String getOrigin() {
+            return mArchive.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Whether an entry of a library jar is packaged, the same rules the SDK's ApkBuilder applies.
+     */
+    private static boolean isJavaResource(String archivePath) {
+        String[] segments = archivePath.split("/");
+        if (segments.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (!isPackagedFolder(segments[i])) {
+                return false;
+            }
+        }
+        return isPackagedFile(segments[segments.length - 1]);
+    }
+
+    private static boolean isPackagedFolder(String folderName) {
+        return !folderName.equalsIgnoreCase("CVS") &&
+               !folderName.equalsIgnoreCase(".svn") &&
+               !folderName.equalsIgnoreCase("SCCS") &&
+               !folderName.equalsIgnoreCase("META-INF") &&
+               !folderName.startsWith("_");
+    }
+
+    private static boolean isPackagedFile(String fileName) {
+        if (fileName.isEmpty() || fileName.charAt(0) == '.') {
+            return false;
+        }
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot == -1 ? "" : fileName.substring(dot + 1);
+        switch (extension.toLowerCase(Locale.ROOT)) {
+            case "aidl":
+            case "rs":
+            case "fs":
+            case "rsh":
+            case "d":
+            case "java":
+            case "scala":
+            case "class":
+            case "scc":
+            case "swp":
+                return false;
+        }
+        return !fileName.equalsIgnoreCase("thumbs.db") &&
+               !fileName.equalsIgnoreCase("picasa.ini") &&
+               !fileName.equalsIgnoreCase("package.html") &&
+               !fileName.equalsIgnoreCase("overview.html");
+    }
+}
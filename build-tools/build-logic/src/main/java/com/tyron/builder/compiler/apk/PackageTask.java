@@ -1,11 +1,5 @@
 package com.tyron.builder.compiler.apk;
 
-import android.net.Uri;
-
-import com.android.sdklib.build.ApkBuilder;
-import com.android.sdklib.build.ApkCreationException;
-import com.android.sdklib.build.DuplicateFileException;
-import com.android.sdklib.build.SealedApkException;
 import com.tyron.builder.compiler.BuildType;
 import com.tyron.builder.compiler.Task;
 import com.tyron.builder.exception.CompilationFailedException;
@@ -16,6 +10,7 @@ import com.tyron.builder.project.api.AndroidModule;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class PackageTask extends Task<AndroidModule> {
@@ -70,6 +65,9 @@ public class PackageTask extends Task<AndroidModule> {
                     mDexFiles.add(child);
                 }
             }
+            // classes2.dex, ..., classes10.dex
+            mDexFiles.sort(Comparator.comparingInt((File file) -> file.getName().length())
+                    .thenComparing(File::getName));
         }
 
         mLibraries.addAll(getModule().getLibraries());
@@ -81,37 +79,33 @@ public class PackageTask extends Task<AndroidModule> {
     public void run() throws IOException, CompilationFailedException {
 
         int dexCount = 1;
-        try {
-            ApkBuilder builder = new ApkBuilder(
-                    mApk.getAbsolutePath(),
-                    mGeneratedRes.getAbsolutePath(),
-                    mDexFile.getAbsolutePath(),
-                    null,
-                    null);
+        try (IncrementalApkPackager packager =
+                     new IncrementalApkPackager(mApk, mBuildType == BuildType.DEBUG)) {
+            packager.addZipFile(mGeneratedRes);
+            packager.addFile(mDexFile, "classes.dex");
 
             for (File extraDex : mDexFiles) {
                 dexCount++;
-                builder.addFile(extraDex, Uri.parse(extraDex.getAbsolutePath()).getLastPathSegment());
+                packager.addFile(extraDex, extraDex.getName());
             }
 
             for (File library : mLibraries) {
-                builder.addResourcesFromJar(library);
+                packager.addResourcesFromJar(library);
 
                 File parent = library.getParentFile();
                 if (parent != null) {
                     File jniFolder = new File(parent, "jni");
                     if (jniFolder.exists() && jniFolder.isDirectory()) {
-                        builder.addNativeLibraries(jniFolder);
+                        packager.addNativeLibraries(jniFolder);
                     }
                 }
             }
 
             if (getModule().getNativeLibrariesDirectory().exists()) {
-                builder.addNativeLibraries(getModule().getNativeLibrariesDirectory());
+                packager.addNativeLibraries(getModule().getNativeLibrariesDirectory());
             }
 
             if (mBuildType == BuildType.DEBUG) {
-                builder.setDebugMode(true);
                 // For debug mode, dex files are not merged to save up compile time
                 for (File it : getModule().getLibraries()) {
                     File parent = it.getParentFile();
@@ -120,7 +114,7 @@ public class PackageTask extends Task<AndroidModule> {
                         if (dexFiles != null) {
                             for (File dexFile : dexFiles) {
                                 dexCount++;
-                                builder.addFile(dexFile, "classes" + dexCount + ".dex");
+                                packager.addFile(dexFile, "classes" + dexCount + ".dex");
                             }
                         }
                     }
@@ -129,18 +123,11 @@ public class PackageTask extends Task<AndroidModule> {
 
             File resourcesDir = getModule().getResourcesDir();
             if (resourcesDir.exists()) {
-                builder.addSourceFolder(resourcesDir);
+                packager.addSourceFolder(resourcesDir);
             }
 
-            builder.sealApk();
-        } catch (ApkCreationException | SealedApkException e) {
-            throw new CompilationFailedException(e);
-        } catch (DuplicateFileException e) {
-            String message = "Duplicate files from two libraries detected. \n";
-            message += "File1: " + e.getFile1() + " \n";
-            message += "File2: " + e.getFile2() + " \n";
-            message += "Archive path: " + e.getArchivePath();
-            throw new CompilationFailedException(message);
+            packager.write();
+            getLogger().debug("Packaged APK, " + packager.getStatistics());
         }
     }
 }
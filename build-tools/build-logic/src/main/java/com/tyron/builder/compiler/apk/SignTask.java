@@ -8,8 +8,6 @@ import com.tyron.builder.log.ILogger;
 import com.tyron.builder.project.Project;
 import com.tyron.builder.project.api.AndroidModule;
 
-import org.apache.commons.io.FileUtils;
-
 import java.io.File;
 import java.io.IOException;
 
@@ -29,13 +27,9 @@ public class SignTask extends Task<AndroidModule> {
 
     @Override
     public void prepare(BuildType type) throws IOException {
-        mInputApk = new File(getModule().getBuildDirectory(), "bin/aligned.apk");
+        mInputApk = new File(getModule().getBuildDirectory(), "bin/generated.apk");
         mOutputApk = new File(getModule().getBuildDirectory(), "bin/signed.apk");
 
-        if (!mInputApk.exists()) {
-            mInputApk = new File(getModule().getBuildDirectory(), "bin/generated.apk");
-        }
-
         if (!mInputApk.exists()) {
             throw new IOException("Unable to find generated apk file.");
         }
@@ -45,15 +39,13 @@ public class SignTask extends Task<AndroidModule> {
 
     @Override
     public void run() throws IOException, CompilationFailedException {
-        ApkSigner signer = new ApkSigner(mInputApk.getAbsolutePath(),
-                mOutputApk.getAbsolutePath(), ApkSigner.Mode.TEST);
-
         try {
+            ApkSigner signer = new ApkSigner(mInputApk.getAbsolutePath(),
+                    mOutputApk.getAbsolutePath(), ApkSigner.Mode.TEST, getModule().getMinSdk(),
+                    getModule().getTargetSdk());
             signer.sign();
         } catch (Exception e) {
             throw new CompilationFailedException(e);
         }
-
-        FileUtils.forceDelete(mInputApk);
     }
 }
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class IncrementalD8Task extends Task<AndroidModule> {
@@ -72,10 +73,10 @@ public class IncrementalD8Task extends Task<AndroidModule> {
                 new File(getModule().getBuildDirectory(), "bin/java/classes")));
         mClassFiles.addAll(D8Task.getClassFiles(
                 new File(getModule().getBuildDirectory(), "bin/kotlin/classes")));
+        Set<Path> classFiles = new HashSet<>(mClassFiles);
         for (Cache.Key<String> key : new HashSet<>(mDexCache.getKeys())) {
-            if (!mFilesToCompile.contains(key.file)) {
-                File file = mDexCache.get(key.file, "dex").iterator().next();
-                deleteAllFiles(file, ".dex");
+            if (!classFiles.contains(key.file)) {
+                deleteAllFiles(key.file.toFile(), ".dex");
                 mDexCache.remove(key.file, "dex");
             }
         }
@@ -184,6 +185,13 @@ public class IncrementalD8Task extends Task<AndroidModule> {
 
     private File getDexFile(File file) {
         File output = new File(getModule().getBuildDirectory(), "bin/classes/");
+        for (String classes : new String[]{"bin/java/classes", "bin/kotlin/classes"}) {
+            File root = new File(getModule().getBuildDirectory(), classes);
+            if (file.getAbsolutePath().startsWith(root.getAbsolutePath() + File.separator)) {
+                output = root;
+                break;
+            }
+        }
         String packageName =
                 file.getAbsolutePath().replace(output.getAbsolutePath(), "").substring(1)
                         .replace(".class", ".dex");
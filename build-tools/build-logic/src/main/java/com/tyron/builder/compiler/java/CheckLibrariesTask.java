@@ -22,21 +22,40 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipFile;
 
 /**
  * Task responsible for copying aars/jars from libraries to build/libs
+ *
+ * <p>Libraries are extracted to a directory named after the MD5 of their file. The size and
+ * modification time of every library are kept with its hash in {@code build/libs/stamps.json},
+ * a library is only hashed again when one of them changes. New libraries are extracted
+ * concurrently.</p>
  */
 public class CheckLibrariesTask extends Task<JavaModule> {
 
+    private static final String STAMPS_FILE = "stamps.json";
+
+    private static final int MAX_EXTRACT_THREADS = 4;
+
+    private final Set<String> mCheckedPaths = new HashSet<>();
+    private Map<String, LibraryStamp> mStamps;
+    private boolean mStampsChanged;
+
     public CheckLibrariesTask(Project project, JavaModule module, ILogger logger) {
         super(project, module, logger);
     }
@@ -53,7 +72,20 @@ public class CheckLibrariesTask extends Task<JavaModule> {
 
     @Override
     public void run() throws IOException, CompilationFailedException {
+        File stampsFile = new File(getModule().getBuildDirectory(), "libs/" + STAMPS_FILE);
+        mStamps = readStamps(stampsFile);
+        mStampsChanged = false;
+        mCheckedPaths.clear();
+
         checkLibraries(getModule(), getLogger(), Collections.emptyList());
+
+        // forget the libraries which were not seen in this build
+        if (mStamps.keySet().retainAll(mCheckedPaths)) {
+            mStampsChanged = true;
+        }
+        if (mStampsChanged) {
+            writeStamps(stampsFile, mStamps);
+        }
     }
 
     private void checkLibraries(JavaModule project, ILogger logger, List<File> newLibraries) throws IOException {
@@ -64,16 +96,16 @@ public class CheckLibrariesTask extends Task<JavaModule> {
                 c.getName().endsWith(".aar") || c.getName().endsWith(".jar"));
         if (fileLibraries != null) {
             for (File fileLibrary : fileLibraries) {
-                try {
-                    ZipFile zipFile = new ZipFile(fileLibrary);
-                    Library library = new Library();
-                    library.setSourceFile(fileLibrary);
-                    fileLibsHashes.put(calculateMD5(fileLibrary), library);
-                } catch (IOException e) {
+                String hash = getHash(fileLibrary, true);
+                if (hash == null) {
                     String message = "File " + fileLibrary +
                             " is corrupt! Ignoring.";
                     logger.warning(message);
+                    continue;
                 }
+                Library library = new Library();
+                library.setSourceFile(fileLibrary);
+                fileLibsHashes.put(hash, library);
             }
         }
 
@@ -95,8 +127,14 @@ public class CheckLibrariesTask extends Task<JavaModule> {
         }
 
         Map<String, Library> md5Map = new HashMap<>();
-        libraries.forEach(it ->
-                md5Map.put(calculateMD5(it.getSourceFile()), it));
+        for (Library library : libraries) {
+            String hash = getHash(library.getSourceFile(), false);
+            if (hash == null) {
+                logger.warning("Library " + library.getSourceFile() + " does not exist! Ignoring.");
+                continue;
+            }
+            md5Map.put(hash, library);
+        }
         File buildLibs = new File(project.getBuildDirectory(), "libs");
         File[] buildLibraryDirs = buildLibs.listFiles(File::isDirectory);
         if (buildLibraryDirs != null) {
@@ -109,42 +147,164 @@ public class CheckLibrariesTask extends Task<JavaModule> {
             }
         }
 
-        saveLibraryToProject(project, md5Map, fileLibsHashes);
+        saveLibraryToProject(project, md5Map, fileLibsHashes, librariesString);
     }
 
-    private void saveLibraryToProject(Module module, Map<String, Library> libraries, Map<String, Library> fileLibraries) throws IOException {
+    private void saveLibraryToProject(Module module, Map<String, Library> libraries, Map<String, Library> fileLibraries, String previousLibraries) throws IOException {
         Map<String, Library> combined = new HashMap<>();
         combined.putAll(libraries);
         combined.putAll(fileLibraries);
 
         getModule().putLibraryHashes(combined);
 
-        for (Map.Entry<String, Library> entry : combined.entrySet()) {
-            String hash = entry.getKey();
-            Library library = entry.getValue();
+        ExecutorService executor = null;
+        try {
+            List<Future<Void>> extractions = new ArrayList<>();
+            for (Map.Entry<String, Library> entry : combined.entrySet()) {
+                File libraryDir = new File(module.getBuildDirectory(), "libs/" + entry.getKey());
+                if (libraryDir.exists()) {
+                    continue;
+                }
 
-            File libraryDir = new File(module.getBuildDirectory(), "libs/" + hash);
-            if (!libraryDir.exists()) {
-                libraryDir.mkdir();
-            } else {
-                continue;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(getExtractThreads());
+                }
+                File source = entry.getValue().getSourceFile();
+                extractions.add(executor.submit(() -> {
+                    extractLibrary(source, libraryDir);
+                    return null;
+                }));
+            }
+            for (Future<Void> extraction : extractions) {
+                get(extraction);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        String librariesString = new Gson().toJson(libraries.values());
+        if (!librariesString.equals(previousLibraries)) {
+            module.getSettings().edit()
+                    .putString("libraries", librariesString)
+                    .apply();
+        }
+    }
+
+    /**
+     * Extracts the library to a temporary directory which is renamed when it is done, so a
+     * build that is stopped half way does not leave an incomplete library behind.
+     */
+    private static void extractLibrary(File source, File libraryDir) throws IOException {
+        File tempDir = new File(libraryDir.getParentFile(), libraryDir.getName() + ".tmp");
+        if (tempDir.exists()) {
+            FileUtils.deleteDirectory(tempDir);
+        }
+        if (!tempDir.mkdirs()) {
+            throw new IOException("Unable to create directory " + tempDir);
+        }
+
+        if (source.getName().endsWith(".jar")) {
+            FileUtils.copyFile(source, new File(tempDir, "classes.jar"));
+        } else if (source.getName().endsWith(".aar")) {
+            Decompress.unzip(source.getAbsolutePath(),
+                    tempDir.getAbsolutePath());
+        }
+
+        if (!tempDir.renameTo(libraryDir)) {
+            FileUtils.deleteDirectory(tempDir);
+            throw new IOException("Unable to move " + tempDir + " to " + libraryDir);
+        }
+    }
+
+    /**
+     * @param validate whether the file should be checked to be a valid zip file when it is
+     *                 hashed
+     * @return the MD5 of the file, taken from its stamp if its size and modification time did
+     * not change, or null if the file does not exist or is not valid
+     */
+    private String getHash(File file, boolean validate) {
+        if (!file.isFile()) {
+            return null;
+        }
+        String path = file.getAbsolutePath();
+        mCheckedPaths.add(path);
+
+        long size = file.length();
+        long lastModified = file.lastModified();
+        LibraryStamp stamp = mStamps.get(path);
+        if (stamp != null && stamp.size == size && stamp.lastModified == lastModified) {
+            return stamp.hash;
+        }
+
+        if (validate) {
+            try (ZipFile ignored = new ZipFile(file)) {
+                // only opened to check that the file is not corrupt
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        String hash = calculateMD5(file);
+        if (hash != null) {
+            mStamps.put(path, new LibraryStamp(size, lastModified, hash));
+            mStampsChanged = true;
+        }
+        return hash;
+    }
+
+    private static Map<String, LibraryStamp> readStamps(File file) {
+        if (file.exists()) {
+            try {
+                Map<String, LibraryStamp> stamps = new Gson().fromJson(
+                        FileUtils.readFileToString(file, StandardCharsets.UTF_8),
+                        new TypeToken<Map<String, LibraryStamp>>() {}.getType());
+                if (stamps != null) {
+                    return new HashMap<>(stamps);
+                }
+            } catch (Exception e) {
+                Log.w("LibraryCheck", "Unable to read library stamps", e);
             }
+        }
+        return new HashMap<>();
+    }
 
-            if (library.getSourceFile().getName().endsWith(".jar")) {
-                FileUtils.copyFileToDirectory(library.getSourceFile(), libraryDir);
+    private static void writeStamps(File file, Map<String, LibraryStamp> stamps) throws IOException {
+        FileUtils.writeStringToFile(file, new Gson().toJson(stamps), StandardCharsets.UTF_8);
+    }
 
-                File file = new File(libraryDir, library.getSourceFile().getName());
-                file.renameTo(new File(libraryDir, "classes.jar"));
-            } else if (library.getSourceFile().getName().endsWith(".aar")) {
-                Decompress.unzip(library.getSourceFile().getAbsolutePath(),
-                        libraryDir.getAbsolutePath());
+    private static void get(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extracting libraries was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
+            throw new IOException(e.getCause());
         }
+    }
 
-        String librariesString = new Gson().toJson(libraries.values());
-        module.getSettings().edit()
-                .putString("libraries", librariesString)
-                .apply();
+    private static int getExtractThreads() {
+        return Math.max(1, Math.min(MAX_EXTRACT_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The size and modification time of a library file when its hash was calculated
+     */
+    private static class LibraryStamp {
+        long size;
+        long lastModified;
+        String hash;
+
+        LibraryStamp(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
     }
 
     public static String calculateMD5(File updateFile) {
@@ -1,7 +1,6 @@
 package com.tyron.builder.compiler.log;
 
 import android.util.Log;
-import android.util.Pair;
 
 import com.tyron.builder.compiler.BuildType;
 import com.tyron.builder.compiler.Task;
@@ -9,7 +8,6 @@ import com.tyron.builder.exception.CompilationFailedException;
 import com.tyron.builder.log.ILogger;
 import com.tyron.builder.project.Project;
 import com.tyron.builder.project.api.AndroidModule;
-import com.tyron.common.util.StringSearch;
 
 import org.apache.commons.io.FileUtils;
 import org.openjdk.javax.xml.parsers.DocumentBuilder;
@@ -22,27 +20,67 @@ import org.openjdk.javax.xml.transform.dom.DOMSource;
 import org.openjdk.javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
-import org.xmlpull.v1.XmlPullParser;
-import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlPullParserFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
-
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Starts the logger of debug builds without touching the sources of the project.
+ *
+ * <p>The {@code Logger} class and a {@code LoggerProvider} which initializes it are generated
+ * in the build directory, and the provider is declared in the merged manifest. Providers are
+ * created before {@code Application.onCreate()}, so the application class of the project is
+ * left as it is. The generated files are only written when their contents change, so they
+ * are not compiled again on every build, and the ones generated for a previous package name
+ * are deleted.</p>
+ */
 public class InjectLoggerTask extends Task<AndroidModule> {
 
     private static final String TAG = "InjectLogger";
-    private static final String APPLICATION_CLASS = "\nimport android.app.Application;\n" +
-            "public class LoggerApplication extends Application {\n" +
-            "   public void onCreate() {\n" +
-            "       super.onCreate();\n" +
-            "   }\n" +
-            "}";
+    private static final String PROVIDER_CLASS = "\nimport android.content.ContentProvider;\n" +
+            "import android.content.ContentValues;\n" +
+            "import android.database.Cursor;\n" +
+            "import android.net.Uri;\n" +
+            "\n" +
+            "public class LoggerProvider extends ContentProvider {\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public boolean onCreate() {\n" +
+            "        Logger.initialize(getContext());\n" +
+            "        return true;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public String getType(Uri uri) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public Uri insert(Uri uri, ContentValues values) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public int delete(Uri uri, String selection, String[] selectionArgs) {\n" +
+            "        return 0;\n" +
+            "    }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {\n" +
+            "        return 0;\n" +
+            "    }\n" +
+            "}\n";
     private static final String LOGGER_CLASS = "import android.content.Context;\n" +
             "import android.content.Intent;\n" +
             "\n" +
@@ -133,13 +171,26 @@ public class InjectLoggerTask extends Task<AndroidModule> {
             "    }\n" +
             "}\n";
     private File mLoggerFile;
-    private File mApplicationFile;
-    private String mOriginalApplication;
+    private File mProviderFile;
 
     public InjectLoggerTask(Project project, AndroidModule module, ILogger logger) {
         super(project, module, logger);
     }
 
+    /**
+     * @return the directory where the logger classes of the module are generated
+     */
+    public static File getOutputDirectory(AndroidModule module) {
+        return new File(module.getBuildDirectory(), "injected/logger");
+    }
+
+    /**
+     * @return whether the class is one of the generated logger classes of the module
+     */
+    public static boolean isGenerated(AndroidModule module, String fqn) {
+        return new File(getOutputDirectory(module), fqn.replace('.', '/') + ".java").exists();
+    }
+
     @Override
     public String getName() {
         return TAG;
@@ -153,173 +204,103 @@ public class InjectLoggerTask extends Task<AndroidModule> {
 
     @Override
     public void run() throws IOException, CompilationFailedException {
-        try {
-            addLoggerClass();
-
-            boolean isNewApplicationClass = true;
+        String packageName = getModule().getPackageName();
+        File directory = new File(getOutputDirectory(getModule()), packageName.replace('.', '/'));
+
+        mLoggerFile = writeIfChanged(new File(directory, "Logger.java"),
+                "package " + packageName + ";\n" + LOGGER_CLASS);
+        mProviderFile = writeIfChanged(new File(directory, "LoggerProvider.java"),
+                "package " + packageName + ";\n" + PROVIDER_CLASS);
+        deleteStaleFiles(getOutputDirectory(getModule()),
+                new HashSet<>(Arrays.asList(mLoggerFile, mProviderFile)));
+        getModule().addJavaFile(mLoggerFile);
+        getModule().addJavaFile(mProviderFile);
 
-            String applicationClass = getApplicationClass();
-            if (applicationClass == null) {
-                applicationClass = getModule().getPackageName() + ".LoggerApplication";
-                createApplicationClass(applicationClass);
-            } else {
-                isNewApplicationClass = false;
-            }
-
-            mApplicationFile = getModule()
-                    .getJavaFile(applicationClass);
-            if (mApplicationFile == null) {
-                mApplicationFile = getModule()
-                        .getKotlinFile(applicationClass);
-            }
-
-            if (mApplicationFile == null) {
-                String message = "" +
-                        "Unable to find the application class defined in manifest.\n" +
-                        "fully qualified name: " + applicationClass + '\n' +
-                        "This build will not have logger injected.";
-                getLogger().warning(message);
-                return;
-            }
-
-            if (!isNewApplicationClass) {
-                mOriginalApplication = FileUtils.readFileToString(mApplicationFile, Charset.defaultCharset());
-            }
-
-            injectLogger(mApplicationFile);
-
-            getLogger().debug("application class: " + applicationClass);
-        } catch (RuntimeException | XmlPullParserException | ParserConfigurationException | SAXException | TransformerException e) {
+        try {
+            addProvider(packageName + ".LoggerProvider", packageName + ".codeassist.logger");
+        } catch (RuntimeException | ParserConfigurationException | SAXException | TransformerException e) {
             throw new CompilationFailedException(Log.getStackTraceString(e));
         }
     }
 
     @Override
     protected void clean() {
-        if (mApplicationFile != null) {
-            if (mOriginalApplication != null) {
-                try {
-                    FileUtils.writeStringToFile(mApplicationFile, mOriginalApplication, Charset.defaultCharset());
-                } catch (IOException ignore) {
-                }
-            } else {
-                try {
-                    getModule().removeJavaFile(StringSearch.packageName(mApplicationFile));
-                    FileUtils.delete(mApplicationFile);
-                } catch (IOException e) {
-                    getLogger().error("Failed to delete application class: " + e.getMessage());
-                }
-            }
-        }
-
+        // the files are kept so they are not compiled again on the next build, only the
+        // module forgets them so they do not show up in the editor or in release builds
+        String packageName = getModule().getPackageName();
         if (mLoggerFile != null) {
-            try {
-                getModule().removeJavaFile(StringSearch.packageName(mLoggerFile));
-                FileUtils.delete(mLoggerFile);
-            } catch (IOException e) {
-                getLogger().error("Failed to delete logger class: " + e.getMessage());
-            }
+            getModule().removeJavaFile(packageName + ".Logger");
+        }
+        if (mProviderFile != null) {
+            getModule().removeJavaFile(packageName + ".LoggerProvider");
         }
     }
 
-    private String getApplicationClass() throws XmlPullParserException, IOException, ParserConfigurationException, SAXException, TransformerException {
-        File manifest = new File(getModule().getBuildDirectory().getAbsolutePath().replaceAll("%20", " "), "bin/AndroidManifest.xml");
-        XmlPullParser parser = XmlPullParserFactory.newInstance().newPullParser();
-        parser.setInput(new FileInputStream(manifest), null);
-
-        final int depth = parser.getDepth();
-        int type;
-        while (((type = parser.next()) != XmlPullParser.END_TAG ||
-                parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
-            if (type != XmlPullParser.START_TAG) {
+    /**
+     * Deletes everything in the directory except the given files, so the classes generated for
+     * a previous package name of the module are not compiled along with the current ones
+     */
+    private static void deleteStaleFiles(File directory, Set<File> generated) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (generated.contains(child)) {
                 continue;
             }
-
-            if (parser.getName().equals("application")) {
-                List<Pair<String, String>> attributes = new ArrayList<>();
-                for (int i = 0; i < parser.getAttributeCount(); i++) {
-                    attributes.add(Pair.create(parser.getAttributeName(i), parser.getAttributeValue(i)));
-                }
-
-                for (Pair<String, String> pair : attributes) {
-                    if (pair.first.equals("android:name")) {
-                        String name = pair.second;
-                        if (name.startsWith(".")) {
-                            return getModule().getPackageName() + name;
-                        } else {
-                            return name;
-                        }
-                    }
-                }
+            String prefix = child.getPath() + File.separator;
+            if (generated.stream().anyMatch(it -> it.getPath().startsWith(prefix))) {
+                deleteStaleFiles(child, generated);
+            } else {
+                FileUtils.forceDelete(child);
             }
         }
-
-        return null;
     }
 
-    private void createApplicationClass(String name) throws IOException, ParserConfigurationException, TransformerException, SAXException {
-        getLogger().debug("Creating application class " + name);
+    private File writeIfChanged(File file, String contents) throws IOException {
+        if (file.exists() && contents.equals(FileUtils.readFileToString(file, Charset.defaultCharset()))) {
+            return file;
+        }
+        getLogger().debug("Creating " + file.getName());
+        FileUtils.writeStringToFile(file, contents, Charset.defaultCharset());
+        return file;
+    }
 
+    /**
+     * Declares the provider in the merged manifest, the manifest is left as it is if it
+     * already declares it
+     */
+    private void addProvider(String name, String authorities) throws IOException, ParserConfigurationException, SAXException, TransformerException {
         File manifest = new File(getModule().getBuildDirectory().getAbsolutePath().replaceAll("%20", " "), "bin/AndroidManifest.xml");
 
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         DocumentBuilder documentBuilder = factory.newDocumentBuilder();
         Document document = documentBuilder.parse(manifest);
 
+        NodeList providers = document.getElementsByTagName("provider");
+        for (int i = 0; i < providers.getLength(); i++) {
+            if (name.equals(((Element) providers.item(i)).getAttribute("android:name"))) {
+                return;
+            }
+        }
+
         Element app = (Element) document.getElementsByTagName("application").item(0);
-        app.setAttribute("android:name", name);
+        if (app == null) {
+            app = document.createElement("application");
+            document.getDocumentElement().appendChild(app);
+        }
+
+        Element provider = document.createElement("provider");
+        provider.setAttribute("android:name", name);
+        provider.setAttribute("android:authorities", authorities);
+        provider.setAttribute("android:exported", "false");
+        app.appendChild(provider);
 
+        getLogger().debug("Adding " + name + " to the manifest");
         TransformerFactory transformerFactory = TransformerFactory.newInstance();
         Transformer transformer = transformerFactory.newTransformer();
         DOMSource source = new DOMSource(document);
         transformer.transform(source, new StreamResult(manifest.getAbsolutePath()));
-
-        File directory = getModule().getJavaDirectory();
-        File output = new File(directory, name.replace('.', '/') + ".java");
-        if (!output.exists() && !output.createNewFile()) {
-            throw  new IOException("Unable to create LoggerApplication");
-        }
-
-        String classString = "package " + getModule().getPackageName() + ";\n" +
-                APPLICATION_CLASS;
-        FileUtils.writeStringToFile(output, classString, Charset.defaultCharset());
-        getModule()
-                .addJavaFile(output);
-    }
-
-    private void injectLogger(File applicationClass) throws IOException, CompilationFailedException {
-        String applicationContents = FileUtils.readFileToString(applicationClass, Charset.defaultCharset());
-        if (applicationContents.contains("Logger.initialize(this);")) {
-            getLogger().debug("Application class already initializes Logger");
-            return;
-        }
-
-        String onCreateString = "super.onCreate()";
-        int index = applicationContents.indexOf(onCreateString);
-        if (index == -1) {
-            throw new CompilationFailedException("No super method for Application.onCreate() found");
-        }
-
-        String before = applicationContents.substring(0, index + onCreateString.length() + 1);
-        String after = applicationContents.substring(index + onCreateString.length());
-        String injected = before + "\n" + "Logger.initialize(this);\n" +
-                after;
-        FileUtils.writeStringToFile(applicationClass, injected, Charset.defaultCharset());
-    }
-
-    private void addLoggerClass() throws IOException {
-        getLogger().debug("Creating Logger.java");
-
-        File loggerClass = new File(getModule().getJavaDirectory(), getModule().getPackageName()
-        .replace('.', '/') + "/Logger.java");
-        if (!loggerClass.exists() && !loggerClass.createNewFile()) {
-            throw new IOException("Unable to create Logger.java");
-        }
-
-        String loggerString = "package " + getModule().getPackageName() + ";\n" +
-                LOGGER_CLASS;
-        FileUtils.writeStringToFile(loggerClass, loggerString, Charset.defaultCharset());
-        mLoggerFile = loggerClass;
-        getModule().addJavaFile(loggerClass);
     }
-}
\ No newline at end of file
+}
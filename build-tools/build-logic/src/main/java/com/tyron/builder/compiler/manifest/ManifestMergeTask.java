@@ -17,13 +17,30 @@ import org.w3c.dom.Document;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-
+import java.util.Map;
+
+/**
+ * Merges the manifest of the module with the manifests of its libraries.
+ *
+ * <p>A fingerprint of the inputs of the merge, the contents of every manifest and the injected
+ * properties, is written next to the merged manifest. When it matches on the next build the
+ * previous output is kept and the merge is skipped.</p>
+ */
 public class ManifestMergeTask extends Task<AndroidModule> {
 
+    private static final String INPUTS_FILE_NAME = "AndroidManifest.xml.inputs";
+
     private File mOutputFile;
+    private File mInputsFile;
     private File mMainManifest;
     private File[] mLibraryManifestFiles;
     private String mPackageName;
@@ -47,6 +64,7 @@ public class ManifestMergeTask extends Task<AndroidModule> {
                 throw new IOException("Unable to create build directory");
             }
         }
+        mInputsFile = new File(mOutputFile, INPUTS_FILE_NAME);
         mOutputFile = new File(mOutputFile, "AndroidManifest.xml");
         if (!mOutputFile.exists()) {
             if (!mOutputFile.createNewFile()) {
@@ -84,19 +102,21 @@ public class ManifestMergeTask extends Task<AndroidModule> {
 
     @Override
     public void run() throws IOException, CompilationFailedException {
-        ModuleSettings settings = getModule().getSettings();
+        Map<SystemProperty, String> overrides = getOverrides();
+        String fingerprint = getFingerprint(overrides);
+        if (mOutputFile.length() != 0 && mInputsFile.exists() &&
+            fingerprint.equals(FileUtils.readFileToString(mInputsFile, StandardCharsets.UTF_8))) {
+            getLogger().debug("Manifests are up to date, skipping merge");
+            return;
+        }
+        // a failed merge must not leave the fingerprint of the previous output
+        FileUtils.deleteQuietly(mInputsFile);
 
         ManifestMerger2.Invoker<?> invoker = ManifestMerger2.newMerger(mMainManifest,
                 getLogger(), ManifestMerger2.MergeType.APPLICATION);
-        invoker.setOverride(SystemProperty.PACKAGE, mPackageName);
-        invoker.setOverride(SystemProperty.MIN_SDK_VERSION,
-                String.valueOf(settings.getInt(ModuleSettings.MIN_SDK_VERSION, 21)));
-        invoker.setOverride(SystemProperty.TARGET_SDK_VERSION,
-                String.valueOf(settings.getInt(ModuleSettings.TARGET_SDK_VERSION, 30)));
-        invoker.setOverride(SystemProperty.VERSION_CODE,
-                String.valueOf(settings.getInt(ModuleSettings.VERSION_CODE, 1)));
-        invoker.setOverride(SystemProperty.VERSION_NAME,
-                settings.getString(ModuleSettings.VERSION_NAME, "1.0"));
+        for (Map.Entry<SystemProperty, String> entry : overrides.entrySet()) {
+            invoker.setOverride(entry.getKey(), entry.getValue());
+        }
         if (mLibraryManifestFiles != null) {
             invoker.addLibraryManifests(mLibraryManifestFiles);
         }
@@ -123,12 +143,60 @@ public class ManifestMergeTask extends Task<AndroidModule> {
                 FileUtils.writeStringToFile(mOutputFile,
                         contents,
                         Charset.defaultCharset());
+                FileUtils.writeStringToFile(mInputsFile, fingerprint, StandardCharsets.UTF_8);
             }
         } catch (ManifestMerger2.MergeFailureException e) {
             throw new CompilationFailedException(e);
         }
     }
 
+    private Map<SystemProperty, String> getOverrides() {
+        ModuleSettings settings = getModule().getSettings();
+        Map<SystemProperty, String> overrides = new EnumMap<>(SystemProperty.class);
+        overrides.put(SystemProperty.PACKAGE, mPackageName);
+        overrides.put(SystemProperty.MIN_SDK_VERSION,
+                String.valueOf(settings.getInt(ModuleSettings.MIN_SDK_VERSION, 21)));
+        overrides.put(SystemProperty.TARGET_SDK_VERSION,
+                String.valueOf(settings.getInt(ModuleSettings.TARGET_SDK_VERSION, 30)));
+        overrides.put(SystemProperty.VERSION_CODE,
+                String.valueOf(settings.getInt(ModuleSettings.VERSION_CODE, 1)));
+        overrides.put(SystemProperty.VERSION_NAME,
+                settings.getString(ModuleSettings.VERSION_NAME, "1.0"));
+        return overrides;
+    }
+
+    /**
+     * @return a hash of everything the merged manifest is made of. The library manifests are
+     * hashed in order, as it decides the priority of their elements.
+     */
+    private String getFingerprint(Map<SystemProperty, String> overrides) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        updateDigest(digest, mMainManifest);
+        if (mLibraryManifestFiles != null) {
+            for (File manifest : mLibraryManifestFiles) {
+                digest.update(manifest.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                updateDigest(digest, manifest);
+            }
+        }
+        for (Map.Entry<SystemProperty, String> entry : overrides.entrySet()) {
+            digest.update((entry.getKey() + "=" + entry.getValue() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return new BigInteger(1, digest.digest()).toString(16);
+    }
+
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        byte[] contents = FileUtils.readFileToByteArray(file);
+        // the length separates the contents of one file from the next
+        digest.update(ByteBuffer.allocate(8).putLong(contents.length).array());
+        digest.update(contents);
+    }
+
     private String getApplicationId() throws IOException {
         String packageName = getModule().getPackageName();
         if (packageName == null) {
@@ -6,6 +6,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import com.tyron.builder.compiler.BuildType;
 import com.tyron.builder.compiler.Task;
+import com.tyron.builder.compiler.java.CheckLibrariesTask;
 import com.tyron.builder.compiler.resource.AAPT2Compiler;
 import com.tyron.builder.exception.CompilationFailedException;
 import com.tyron.builder.log.ILogger;
@@ -19,19 +20,38 @@ import org.apache.commons.io.FileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class that loads R.txt files generated by AAPT/AAPT2  and converts them
  * to R.java class files
+ *
+ * <p>The R class of a library takes its symbols from the R.txt files of the library and their
+ * ids from the R.txt of the app. Every R.txt is hashed when it is modified, and a package is
+ * only generated again when the hashes of its files or of the app R.txt change. The R.java of
+ * a package is only written when its contents change, so new ids which do not affect a library
+ * do not recompile it.</p>
  */
 public class MergeSymbolsTask extends Task<AndroidModule> {
 
-    public static final CacheHolder.CacheKey<Void, Void> CACHE_KEY =
+    /**
+     * Maps every R.txt to its hash with the {@link #HASH_KEY}, and the app R.txt to the
+     * fingerprint of the inputs of each package it was last generated from.
+     */
+    public static final CacheHolder.CacheKey<String, String> CACHE_KEY =
             new CacheHolder.CacheKey<>("mergeSymbolsCache");
 
+    /**
+     * Can not be mistaken for a package name
+     */
+    private static final String HASH_KEY = ":hash";
+
     private File mSymbolOutputDir;
     private File mFullResourceFile;
 
@@ -52,10 +72,10 @@ public class MergeSymbolsTask extends Task<AndroidModule> {
 
     @Override
     public void run() throws IOException, CompilationFailedException {
-        Cache<Void, Void> cache = getModule().getCache(CACHE_KEY, new Cache<>());
-        SymbolLoader fullSymbolValues = null;
-        Multimap<String, SymbolLoader> libMap = ArrayListMultimap.create();
+        Cache<String, String> cache = getModule().getCache(CACHE_KEY, new Cache<>());
+        Path fullResourcePath = mFullResourceFile.toPath();
 
+        Multimap<String, File> packageFiles = ArrayListMultimap.create();
         List<File> RFiles = new ArrayList<>();
         for (File library : getModule().getLibraries()) {
             File parent = library.getParentFile();
@@ -80,30 +100,43 @@ public class MergeSymbolsTask extends Task<AndroidModule> {
             }
 
             RFiles.add(rFile);
+            packageFiles.put(packageName, rFile);
         }
 
-        for (Cache.Key<Void> key : new HashSet<>(cache.getKeys())) {
-            if (!RFiles.contains(key.file.toFile())) {
+        for (Cache.Key<String> key : new HashSet<>(cache.getKeys())) {
+            if (key.file.equals(fullResourcePath)) {
+                if (!HASH_KEY.equals(key.key) && !packageFiles.containsKey(key.key)) {
+                    cache.remove(key.file, key.key);
+                }
+            } else if (!RFiles.contains(key.file.toFile())) {
                 Log.d("MergeSymbolsTask", "Found deleted resource file, removing " + key.file.toFile().getName() + " on the cache.");
-                cache.remove(key.file, (Void) null);
-                FileUtils.delete(key.file.toFile());
+                cache.remove(key.file, key.key);
+                FileUtils.deleteQuietly(key.file.toFile());
             }
         }
 
-        for (File rFile : RFiles) {
+        if (packageFiles.isEmpty()) {
+            return;
+        }
 
-            if (!cache.needs(rFile.toPath(), null)) {
-                continue;
-            }
+        String fullHash = getHash(cache, mFullResourceFile);
+        SymbolLoader fullSymbolValues = null;
+        // libraries with the same symbols share their table
+        Map<String, SymbolLoader> loaders = new HashMap<>();
 
-            File parent = rFile.getParentFile();
-            if (parent == null) {
-                getLogger().error("Unable to access parent directory for " + rFile);
-                continue;
+        for (String packageName : packageFiles.keySet()) {
+            Collection<File> files = packageFiles.get(packageName);
+
+            List<String> hashes = new ArrayList<>(files.size());
+            for (File file : files) {
+                hashes.add(getHash(cache, file));
             }
+            Collections.sort(hashes);
+            String fingerprint = fullHash + ":" + String.join(",", hashes);
 
-            String packageName = AAPT2Compiler.getPackageName(new File(parent, "AndroidManifest.xml"));
-            if (packageName == null) {
+            File output = SymbolWriter.getOutputFile(mSymbolOutputDir.getAbsolutePath(), packageName);
+            if (fingerprint.equals(cache.getIfPresent(fullResourcePath, packageName)) &&
+                    output.exists()) {
                 continue;
             }
 
@@ -111,26 +144,38 @@ public class MergeSymbolsTask extends Task<AndroidModule> {
                 fullSymbolValues = new SymbolLoader(mFullResourceFile, getLogger());
                 fullSymbolValues.load();
             }
-            SymbolLoader libSymbols = new SymbolLoader(rFile, getLogger());
-            libSymbols.load();
-
-            libMap.put(packageName, libSymbols);
-        }
-
-        // now loop on all the package name, merge all the symbols to write, and write them
-        for (String packageName : libMap.keySet()) {
-            Collection<SymbolLoader> symbols = libMap.get(packageName);
-
             SymbolWriter writer = new SymbolWriter(mSymbolOutputDir.getAbsolutePath(), packageName,
                     fullSymbolValues, getModule());
-            for (SymbolLoader loader : symbols) {
+            for (File file : files) {
+                String hash = getHash(cache, file);
+                SymbolLoader loader = loaders.get(hash);
+                if (loader == null) {
+                    loader = new SymbolLoader(file, getLogger());
+                    loader.load();
+                    loaders.put(hash, loader);
+                }
                 writer.addSymbolsToWrite(loader);
             }
             writer.write();
+
+            cache.load(fullResourcePath, packageName, fingerprint);
         }
+    }
 
-        for (File file : RFiles) {
-            cache.load(file.toPath(), null, null);
+    /**
+     * @return the hash of the contents of the file, only calculated again if the file was
+     * modified since it was last hashed
+     */
+    private static String getHash(Cache<String, String> cache, File file) throws IOException {
+        Path path = file.toPath();
+        if (!cache.needs(path, HASH_KEY)) {
+            return cache.get(path, HASH_KEY);
+        }
+        String hash = CheckLibrariesTask.calculateMD5(file);
+        if (hash == null) {
+            throw new IOException("Unable to read " + file);
         }
+        cache.load(path, HASH_KEY, hash);
+        return hash;
     }
 }
@@ -2,6 +2,8 @@ package com.tyron.builder.compiler.symbol;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Table;
 import com.google.common.io.Files;
 import com.tyron.builder.log.ILogger;
@@ -13,6 +15,12 @@ import java.util.Locale;
 
 public class SymbolLoader {
 
+    /**
+     * The types, classes and names of symbols repeat across the symbol files of the app and of
+     * every library, they are interned so the loaded tables share them.
+     */
+    private static final Interner<String> sInterner = Interners.newWeakInterner();
+
     private final File mSymbolFile;
     private Table<String, String, SymbolEntry> mSymbols;
     private final ILogger mLogger;
@@ -80,6 +88,9 @@ public class SymbolLoader {
                 String name = line.substring(pos2 + 1, pos3);
                 String value = line.substring(pos3 + 1);
 
+                type = sInterner.intern(type);
+                className = sInterner.intern(className);
+                name = sInterner.intern(name);
                 mSymbols.put(className, name, new SymbolEntry(name, type, value));
             }
         } catch (IndexOutOfBoundsException e) {
@@ -103,21 +103,27 @@ public class SymbolWriter {
         }
     }
 
-    public void write() throws IOException {
-        Splitter splitter = Splitter.on('.');
-        Iterable<String> folders = splitter.split(mPackageName);
-        File file = new File(mOutFolder);
-        for (String folder : folders) {
+    /**
+     * @return the R.java file written for the package in the output folder
+     */
+    public static File getOutputFile(String outFolder, String packageName) {
+        File file = new File(outFolder);
+        for (String folder : Splitter.on('.').split(packageName)) {
             file = new File(file, folder);
         }
+        return new File(file, "R.java");
+    }
+
+    public void write() throws IOException {
+        File file = getOutputFile(mOutFolder, mPackageName);
+        File directory = file.getParentFile();
         boolean newFile = false;
-        if (!file.exists()) {
+        if (!directory.exists()) {
             newFile = true;
-            if (!file.mkdirs()) {
-                throw new IOException("Unable to create resource directories for " + file);
+            if (!directory.mkdirs()) {
+                throw new IOException("Unable to create resource directories for " + directory);
             }
         }
-        file = new File(file, "R.java");
 
         String contents = getString();
 
@@ -0,0 +1,84 @@
+package com.tyron.builder.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.apksig.ApkVerifier;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+public class ApkSignerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File mInput;
+    private File mOutput;
+
+    @Before
+    public void setup() throws Exception {
+        TestApks.useTestKey();
+
+        // the packager aligns the stored entries, the signer has to keep them aligned
+        mInput = temporaryFolder.newFile("generated.apk");
+        try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(mInput)) {
+            ZipArchiveEntry manifest = new ZipArchiveEntry("AndroidManifest.xml");
+            output.putArchiveEntry(manifest);
+            output.write(TestApks.binaryManifest());
+            output.closeArchiveEntry();
+
+            byte[] content = new byte[1001];
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            ZipArchiveEntry resources = new ZipArchiveEntry("resources.arsc");
+            resources.setMethod(ZipArchiveEntry.STORED);
+            resources.setSize(content.length);
+            resources.setCrc(crc.getValue());
+            resources.setAlignment(4);
+            output.putArchiveEntry(resources);
+            output.write(content);
+            output.closeArchiveEntry();
+        }
+        mOutput = new File(temporaryFolder.getRoot(), "signed.apk");
+    }
+
+    @Test
+    public void testSignedApkVerifiesAcrossSdkRange() throws Exception {
+        new ApkSigner(mInput.getAbsolutePath(), mOutput.getAbsolutePath(), ApkSigner.Mode.TEST,
+                21, 30).sign();
+
+        ApkVerifier.Result result = new ApkVerifier.Builder(mOutput)
+                .setMinCheckedPlatformVersion(21)
+                .setMaxCheckedPlatformVersion(30)
+                .build()
+                .verify();
+        assertTrue(String.valueOf(result.getErrors()), result.isVerified());
+        assertTrue(result.isVerifiedUsingV1Scheme());
+        assertTrue(result.isVerifiedUsingV2Scheme());
+        assertTrue(result.isVerifiedUsingV3Scheme());
+
+        try (ZipFile apk = new ZipFile(mOutput)) {
+            for (ZipArchiveEntry entry : Collections.list(apk.getEntries())) {
+                if (entry.getMethod() == ZipArchiveEntry.STORED) {
+                    assertEquals(entry.getName(), 0, entry.getDataOffset() % 4);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinSdkAboveMaxSdkIsRejected() {
+        new ApkSigner(mInput.getAbsolutePath(), mOutput.getAbsolutePath(), ApkSigner.Mode.TEST,
+                30, 21);
+    }
+}
@@ -0,0 +1,54 @@
+package com.tyron.builder.compiler;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Inputs shared by the tests that build and sign APKs.
+ */
+public class TestApks {
+
+    /**
+     * Signs with the test key and certificate from the test resources instead of the ones
+     * extracted from the app's assets.
+     */
+    public static void useTestKey() throws URISyntaxException {
+        ApkSigner.setTestKeyFile(getResource("apksigner/testkey.pk8"));
+        ApkSigner.setTestCertFile(getResource("apksigner/testkey.x509.pem"));
+    }
+
+    /**
+     * An empty {@code <manifest/>} compiled to binary XML, the least apksig reads from an APK.
+     */
+    public static byte[] binaryManifest() {
+        ByteBuffer buffer = ByteBuffer.allocate(120).order(ByteOrder.LITTLE_ENDIAN);
+        // the XML chunk
+        buffer.putShort((short) 0x0003).putShort((short) 8).putInt(120);
+        // a string pool holding "manifest" in UTF-16
+        buffer.putShort((short) 0x0001).putShort((short) 28).putInt(52);
+        buffer.putInt(1).putInt(0).putInt(0).putInt(32).putInt(0);
+        buffer.putInt(0);
+        buffer.putShort((short) 8);
+        for (char c : "manifest".toCharArray()) {
+            buffer.putChar(c);
+        }
+        buffer.putShort((short) 0);
+        // the start of <manifest>, without attributes
+        buffer.putShort((short) 0x0102).putShort((short) 16).putInt(36);
+        buffer.putInt(1).putInt(-1);
+        buffer.putInt(-1).putInt(0);
+        buffer.putShort((short) 20).putShort((short) 20).putShort((short) 0);
+        buffer.putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        // and its end
+        buffer.putShort((short) 0x0103).putShort((short) 16).putInt(24);
+        buffer.putInt(1).putInt(-1);
+        buffer.putInt(-1).putInt(0);
+        return buffer.array();
+    }
+
+    private static File getResource(String name) throws URISyntaxException {
+        return new File(TestApks.class.getClassLoader().getResource(name).toURI());
+    }
+}
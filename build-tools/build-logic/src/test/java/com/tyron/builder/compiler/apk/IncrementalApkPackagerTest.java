@@ -0,0 +1,196 @@
+package com.tyron.builder.compiler.apk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.apksig.ApkVerifier;
+import com.tyron.builder.compiler.ApkSigner;
+import com.tyron.builder.compiler.TestApks;
+import com.tyron.builder.exception.CompilationFailedException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+public class IncrementalApkPackagerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File mResources;
+    private File mDex;
+    private File mNativeLibraries;
+    private File mApk;
+
+    @Before
+    public void setup() throws IOException {
+        // the resources.arsc and the images aapt2 produces are stored
+        mResources = temporaryFolder.newFile("resources.ap_");
+        try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(mResources)) {
+            addEntry(output, "AndroidManifest.xml", TestApks.binaryManifest(),
+                    ZipArchiveEntry.DEFLATED);
+            addEntry(output, "resources.arsc", random(1001), ZipArchiveEntry.STORED);
+            addEntry(output, "res/drawable/icon.png", random(333), ZipArchiveEntry.STORED);
+        }
+
+        mDex = temporaryFolder.newFile("classes.dex");
+        Files.write(mDex.toPath(), text(repeat("dex contents ", 5000)));
+
+        mNativeLibraries = temporaryFolder.newFolder("lib");
+        File abi = new File(mNativeLibraries, "arm64-v8a");
+        assertTrue(abi.mkdirs());
+        Files.write(new File(abi, "libnative.so").toPath(), random(5000));
+
+        mApk = new File(temporaryFolder.getRoot(), "generated.apk");
+    }
+
+    @Test
+    public void testRepackagingUnchangedInputsIsByteIdentical() throws Exception {
+        String first = pack();
+        byte[] firstApk = Files.readAllBytes(mApk.toPath());
+        assertEquals("3 entries copied from archives, 0 reused from the previous APK, " +
+                     "2 compressed", first);
+
+        pack();
+        assertArrayEquals(firstApk, Files.readAllBytes(mApk.toPath()));
+    }
+
+    @Test
+    public void testUnchangedEntriesAreReused() throws Exception {
+        pack();
+        String second = pack();
+        assertEquals("3 entries copied from archives, 2 reused from the previous APK, " +
+                     "0 compressed", second);
+        assertEntry("classes.dex", Files.readAllBytes(mDex.toPath()));
+    }
+
+    @Test
+    public void testChangedEntryIsReplaced() throws Exception {
+        pack();
+
+        // the same size, only the CRC-32 tells the contents apart
+        byte[] changed = text(repeat("DEX contents ", 5000));
+        Files.write(mDex.toPath(), changed);
+        String second = pack();
+
+        assertEquals("3 entries copied from archives, 1 reused from the previous APK, " +
+                     "1 compressed", second);
+        assertEntry("classes.dex", changed);
+    }
+
+    @Test
+    public void testStoredPreviousEntryIsNotReused() throws Exception {
+        // an APK written by another tool, which stored the dex file
+        try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(mApk)) {
+            addEntry(output, "classes.dex", Files.readAllBytes(mDex.toPath()), ZipArchiveEntry.STORED);
+        }
+
+        String statistics = pack();
+        assertEquals("3 entries copied from archives, 0 reused from the previous APK, " +
+                     "2 compressed", statistics);
+        try (ZipFile apk = new ZipFile(mApk)) {
+            assertEquals(ZipArchiveEntry.DEFLATED, apk.getEntry("classes.dex").getMethod());
+        }
+        assertEntry("classes.dex", Files.readAllBytes(mDex.toPath()));
+    }
+
+    @Test
+    public void testSignedApkIsAlignedAndVerifies() throws Exception {
+        pack();
+        assertStoredEntriesAligned(mApk);
+
+        File signed = new File(temporaryFolder.getRoot(), "signed.apk");
+        TestApks.useTestKey();
+        new ApkSigner(mApk.getAbsolutePath(), signed.getAbsolutePath(), ApkSigner.Mode.TEST, 21, 30)
+                .sign();
+
+        assertStoredEntriesAligned(signed);
+        ApkVerifier.Result result = new ApkVerifier.Builder(signed)
+                .setMinCheckedPlatformVersion(21)
+                .setMaxCheckedPlatformVersion(30)
+                .build()
+                .verify();
+        assertTrue(String.valueOf(result.getErrors()), result.isVerified());
+        assertTrue(result.isVerifiedUsingV2Scheme());
+    }
+
+    private String pack() throws IOException, CompilationFailedException {
+        try (IncrementalApkPackager packager = new IncrementalApkPackager(mApk, false)) {
+            packager.addZipFile(mResources);
+            packager.addFile(mDex, "classes.dex");
+            packager.addNativeLibraries(mNativeLibraries);
+            packager.write();
+            return packager.getStatistics();
+        }
+    }
+
+    private void assertEntry(String name, byte[] expected) throws IOException {
+        try (ZipFile apk = new ZipFile(mApk);
+             InputStream input = apk.getInputStream(apk.getEntry(name))) {
+            assertArrayEquals(expected, IOUtils.toByteArray(input));
+        }
+    }
+
+    private static void assertStoredEntriesAligned(File apk) throws IOException {
+        int stored = 0;
+        try (ZipFile zipFile = new ZipFile(apk)) {
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntries())) {
+                if (entry.getMethod() != ZipArchiveEntry.STORED) {
+                    continue;
+                }
+                stored++;
+                assertEquals(entry.getName() + " at " + entry.getDataOffset(), 0,
+                        entry.getDataOffset() % 4);
+            }
+        }
+        assertEquals(2, stored);
+    }
+
+    private static void addEntry(ZipArchiveOutputStream output, String name, byte[] content,
+                                 int method) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(method);
+        if (method == ZipArchiveEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        output.putArchiveEntry(entry);
+        output.write(content);
+        output.closeArchiveEntry();
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] text(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.tyron.builder.internal.concurrent;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates the executors CPU bound work, such as hashing or compressing files, is spread on.
+ */
+public class CpuBoundExecutors {
+
+    private CpuBoundExecutors() {
+    }
+
+    /**
+     * Returns the number of threads the work is spread on.
+     */
+    public static int getParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates an executor with a thread per core. Handing work to another thread only pays off if there is more
+     * than one core to spread the work on, so there is no executor on a single core device and the caller does the
+     * work on its own thread.
+     *
+     * @param displayName The display name for the this executor. Used for thread names, logging and error message.
+     * @return The executor, or null if there is only one core. It is the caller's responsibility to stop the executor.
+     */
+    @Nullable
+    public static ManagedExecutor create(ExecutorFactory executorFactory, String displayName) {
+        int parallelism = getParallelism();
+        return parallelism > 1 ? executorFactory.create(displayName, parallelism) : null;
+    }
+}
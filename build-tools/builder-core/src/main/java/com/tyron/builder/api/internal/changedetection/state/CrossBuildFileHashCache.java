@@ -9,28 +9,46 @@ import com.tyron.builder.cache.PersistentIndexedCache;
 import com.tyron.builder.cache.PersistentIndexedCacheParameters;
 import com.tyron.builder.cache.internal.InMemoryCacheDecoratorFactory;
 import com.tyron.builder.cache.scopes.ScopedCache;
+import com.tyron.builder.internal.hash.ContentHashFunction;
 
 import java.io.Closeable;
+import java.util.Locale;
 
 public class CrossBuildFileHashCache implements Closeable {
 
     private final PersistentCache cache;
     private final InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory;
+    private final ContentHashFunction contentHashFunction;
 
-    public CrossBuildFileHashCache(ScopedCache scopedCache, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, Kind cacheKind) {
+    public CrossBuildFileHashCache(ScopedCache scopedCache, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, Kind cacheKind, ContentHashFunction contentHashFunction) {
         this.inMemoryCacheDecoratorFactory = inMemoryCacheDecoratorFactory;
+        this.contentHashFunction = contentHashFunction;
         cache = scopedCache.cache(cacheKind.cacheId)
                 .withDisplayName(cacheKind.description)
                 .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
                 .open();
     }
 
+    /**
+     * Creates a cache of hashes of file contents. Each content hash function gets its own caches, so hashes
+     * created with another function are never read back after the function was changed.
+     */
     public <K, V> PersistentIndexedCache<K, V> createCache(PersistentIndexedCacheParameters<K, V> parameters, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
         return cache.createCache(parameters
+                .withCacheName(getCacheName(parameters.getCacheName()))
                 .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses))
+                .withMemoryMapping(true)
         );
     }
 
+    private String getCacheName(String cacheName) {
+        // Keep the name used with the default function, so existing caches stay valid
+        if (contentHashFunction == ContentHashFunction.MD5) {
+            return cacheName;
+        }
+        return cacheName + "-" + contentHashFunction.name().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public void close() {
         cache.close();
@@ -84,6 +84,12 @@ import java.util.List;
 
 public class ProjectExecutionServices extends DefaultServiceRegistry {
 
+    /**
+     * System property to change the size the local build cache is trimmed to, in megabytes.
+     */
+    public static final String LOCAL_BUILD_CACHE_TARGET_SIZE_PROPERTY = "org.gradle.caching.local.targetSizeInMB";
+    private static final long DEFAULT_LOCAL_BUILD_CACHE_TARGET_SIZE_IN_MB = 1024;
+
     private final ProjectInternal projectInternal;
 
     public ProjectExecutionServices(ProjectInternal project) {
@@ -173,8 +179,9 @@ public class ProjectExecutionServices extends DefaultServiceRegistry {
         FileAccessTracker fileAccessTracker
     ) {
         File buildDir = projectInternal.getBuildDir();
+        File cacheDir = new File(buildDir, ".gradle");
 
-        PathKeyFileStore pathKeyFileStore = new DefaultPathKeyFileStore(checksumService, new File(buildDir, ".gradle"));
+        PathKeyFileStore pathKeyFileStore = new DefaultPathKeyFileStore(checksumService, cacheDir);
         PersistentCache cache = cacheRepository.cache(buildDir)
                 .withDisplayName("Build cache")
                 .withLockOptions(mode(OnDemand))
@@ -187,7 +194,9 @@ public class ProjectExecutionServices extends DefaultServiceRegistry {
                 cache,
                 tempFileStore,
                 fileAccessTracker,
-                ".failed"
+                ".failed",
+                cacheDir,
+                Long.getLong(LOCAL_BUILD_CACHE_TARGET_SIZE_PROPERTY, DEFAULT_LOCAL_BUILD_CACHE_TARGET_SIZE_IN_MB) * 1024 * 1024
         );
     }
 
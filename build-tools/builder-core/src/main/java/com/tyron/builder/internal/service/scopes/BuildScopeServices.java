@@ -18,6 +18,7 @@ import com.tyron.builder.caching.internal.controller.RootBuildCacheControllerRef
 import com.tyron.builder.caching.internal.origin.OriginMetadataFactory;
 import com.tyron.builder.caching.internal.origin.OriginMetadataFactory.HostnameLookup;
 import com.tyron.builder.caching.internal.packaging.BuildCacheEntryPacker;
+import com.tyron.builder.caching.internal.packaging.impl.BuildCachePackingExecutor;
 import com.tyron.builder.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import com.tyron.builder.caching.internal.packaging.impl.FilePermissionAccess;
 import com.tyron.builder.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
@@ -74,6 +75,7 @@ import com.tyron.builder.internal.buildTree.BuildInclusionCoordinator;
 import com.tyron.builder.internal.buildTree.BuildModelParameters;
 import com.tyron.builder.internal.cache.StringInterner;
 import com.tyron.builder.internal.composite.DefaultBuildIncluder;
+import com.tyron.builder.internal.concurrent.ExecutorFactory;
 import com.tyron.builder.internal.event.DefaultListenerManager;
 import com.tyron.builder.internal.event.ListenerManager;
 import com.tyron.builder.internal.file.Deleter;
@@ -102,6 +104,7 @@ import com.tyron.builder.util.internal.GFileUtils;
 
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -144,14 +147,22 @@ public class BuildScopeServices extends DefaultServiceRegistry {
                 return new DefaultTarPackerFileSystemSupport(deleter);
             }
 
+            BuildCachePackingExecutor createBuildCachePackingExecutor(ExecutorFactory executorFactory) {
+                return new BuildCachePackingExecutor(executorFactory);
+            }
+
             BuildCacheEntryPacker createResultPacker(
                     TarPackerFileSystemSupport fileSystemSupport,
                     FileSystem fileSystem,
                     StreamHasher fileHasher,
-                    StringInterner stringInterner
+                    StringInterner stringInterner,
+                    BuildCachePackingExecutor packingExecutor
             ) {
+                int parallelism = packingExecutor.getParallelism();
+                Executor executor = packingExecutor.isParallel() ? packingExecutor : null;
                 return new GZipBuildCacheEntryPacker(
-                        new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner));
+                        new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, executor, parallelism),
+                        executor, parallelism, BuildCachePackingExecutor.getCompressionLevel());
             }
 
             OriginMetadataFactory createOriginMetadataFactory(
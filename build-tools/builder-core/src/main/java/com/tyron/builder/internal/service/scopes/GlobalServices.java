@@ -2,20 +2,19 @@ package com.tyron.builder.internal.service.scopes;
 
 import com.tyron.builder.api.internal.DocumentationRegistry;
 import com.tyron.builder.internal.Factory;
+import com.tyron.builder.internal.concurrent.CpuBoundExecutors;
+import com.tyron.builder.internal.concurrent.ExecutorFactory;
 import com.tyron.builder.internal.event.ListenerManager;
 import com.tyron.builder.internal.execution.steps.WorkInputListeners;
 import com.tyron.builder.api.internal.file.DefaultFileOperations;
 import com.tyron.builder.api.internal.file.DefaultFilePropertyFactory;
 import com.tyron.builder.internal.file.Deleter;
 import com.tyron.builder.api.internal.file.FileCollectionFactory;
-import com.tyron.builder.internal.file.FileException;
-import com.tyron.builder.internal.file.FileMetadata;
 import com.tyron.builder.api.internal.file.FileOperations;
 import com.tyron.builder.api.internal.file.FilePropertyFactory;
 import com.tyron.builder.api.internal.file.FileResolver;
 import com.tyron.builder.internal.file.Stat;
 import com.tyron.builder.api.internal.file.collections.DirectoryFileTreeFactory;
-import com.tyron.builder.internal.file.impl.DefaultFileMetadata;
 import com.tyron.builder.internal.hash.DefaultFileHasher;
 import com.tyron.builder.internal.hash.FileHasher;
 import com.tyron.builder.internal.hash.StreamHasher;
@@ -230,48 +229,7 @@ public class GlobalServices extends WorkerSharedGlobalScopeServices {
     }
 
     FileSystem createFileSystem() {
-        return new FileSystem() {
-            @Override
-            public boolean isCaseSensitive() {
-                return true;
-            }
-
-            @Override
-            public boolean canCreateSymbolicLink() {
-                return false;
-            }
-
-            @Override
-            public void createSymbolicLink(File link, File target) throws FileException {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public boolean isSymlink(File suspect) {
-                return false;
-            }
-
-            @Override
-            public void chmod(File file, int mode) throws FileException {
-
-            }
-
-            @Override
-            public int getUnixMode(File f) throws FileException {
-                return 0;
-            }
-
-            @Override
-            public FileMetadata stat(File f) throws FileException {
-                if (!f.exists()) {
-                    return DefaultFileMetadata.missing(FileMetadata.AccessType.DIRECT);
-                }
-                if (f.isDirectory()) {
-                    return DefaultFileMetadata.directory(FileMetadata.AccessType.DIRECT);
-                }
-                return DefaultFileMetadata.file(f.lastModified(), f.length(), FileMetadata.AccessType.DIRECT);
-            }
-        };
+        return com.tyron.builder.internal.nativeintegration.services.FileSystems.getDefault();
     }
 
     StringInterner createStringInterner() {
@@ -282,7 +240,8 @@ public class GlobalServices extends WorkerSharedGlobalScopeServices {
             FileHasher fileHasher,
             StringInterner interner,
             Stat stat,
-            VirtualFileSystem virtualFileSystem
+            VirtualFileSystem virtualFileSystem,
+            ExecutorFactory executorFactory
     ) {
         return new DefaultFileSystemAccess(fileHasher, interner, stat, virtualFileSystem,
                 new FileSystemAccess.WriteListener() {
@@ -290,7 +249,8 @@ public class GlobalServices extends WorkerSharedGlobalScopeServices {
                     public void locationsWritten(Iterable<String> locations) {
 
                     }
-                }, new DirectorySnapshotterStatistics.Collector());
+                }, new DirectorySnapshotterStatistics.Collector(),
+                CpuBoundExecutors.create(executorFactory, "File hashing"));
     }
 
     ObjectFactory createObjectFactory(
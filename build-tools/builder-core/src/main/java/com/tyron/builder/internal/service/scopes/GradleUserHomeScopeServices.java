@@ -8,6 +8,7 @@ import com.tyron.builder.internal.concurrent.ExecutorFactory;
 import com.tyron.builder.internal.hash.ClassLoaderHierarchyHasher;
 import com.tyron.builder.internal.classloader.ConfigurableClassLoaderHierarchyHasher;
 import com.tyron.builder.internal.hash.Hashes;
+import com.tyron.builder.internal.hash.ContentHashFunction;
 import com.tyron.builder.internal.classloader.HashingClassLoaderFactory;
 import com.tyron.builder.internal.logging.progress.ProgressLoggerFactory;
 import com.tyron.builder.internal.reflect.service.ServiceRegistration;
@@ -103,9 +104,10 @@ public class GradleUserHomeScopeServices extends WorkerSharedUserHomeScopeServic
 
     CrossBuildFileHashCache createCrossBuildFileHashCache(
             GlobalScopedCache scopedCache,
-            InMemoryCacheDecoratorFactory factory
+            InMemoryCacheDecoratorFactory factory,
+            ContentHashFunction contentHashFunction
     ) {
-        return new CrossBuildFileHashCache(scopedCache, factory, CrossBuildFileHashCache.Kind.FILE_HASHES);
+        return new CrossBuildFileHashCache(scopedCache, factory, CrossBuildFileHashCache.Kind.FILE_HASHES, contentHashFunction);
     }
 
 
@@ -16,6 +16,7 @@ import com.tyron.builder.api.tasks.util.internal.PatternSpecFactory;
 import com.tyron.builder.cache.internal.CrossBuildInMemoryCacheFactory;
 import com.tyron.builder.cache.internal.DefaultCrossBuildInMemoryCacheFactory;
 import com.tyron.builder.internal.event.ListenerManager;
+import com.tyron.builder.internal.hash.ContentHashFunction;
 import com.tyron.builder.internal.hash.DefaultStreamHasher;
 import com.tyron.builder.internal.hash.StreamHasher;
 import com.tyron.builder.internal.logging.events.OutputEventListener;
@@ -55,8 +56,12 @@ public class WorkerSharedGlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultFilePropertyFactory(propertyHost, fileResolver, fileCollectionFactory);
     }
 
-    StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+    ContentHashFunction createContentHashFunction() {
+        return ContentHashFunction.fromSystemProperty();
+    }
+
+    StreamHasher createStreamHasher(ContentHashFunction contentHashFunction) {
+        return new DefaultStreamHasher(contentHashFunction);
     }
 
 //    ManagedFactoryRegistry createManagedFactoryRegistry(NamedObjectInstantiator namedObjectInstantiator, InstantiatorFactory instantiatorFactory, PropertyFactory propertyFactory, FileCollectionFactory fileCollectionFactory, FileFactory fileFactory, FilePropertyFactory filePropertyFactory) {
@@ -26,6 +26,7 @@ import com.tyron.builder.internal.buildevents.BuildStartedTime;
 import com.tyron.builder.internal.classpath.ClassPath;
 import com.tyron.builder.internal.event.DefaultListenerManager;
 import com.tyron.builder.internal.file.Deleter;
+import com.tyron.builder.internal.hash.ContentHashFunction;
 import com.tyron.builder.internal.logging.progress.ProgressLoggerFactory;
 import com.tyron.builder.internal.model.StateTransitionControllerFactory;
 import com.tyron.builder.internal.operations.BuildOperationExecutor;
@@ -163,8 +164,8 @@ public class BuildSessionScopeServices extends WorkerSharedBuildSessionScopeServ
 //                .build();
 //    }
 
-    CrossBuildFileHashCacheWrapper createCrossBuildChecksumCache(BuildTreeScopedCache scopedCache, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory) {
-        CrossBuildFileHashCache crossBuildCache = new CrossBuildFileHashCache(scopedCache, inMemoryCacheDecoratorFactory, CrossBuildFileHashCache.Kind.CHECKSUMS);
+    CrossBuildFileHashCacheWrapper createCrossBuildChecksumCache(BuildTreeScopedCache scopedCache, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, ContentHashFunction contentHashFunction) {
+        CrossBuildFileHashCache crossBuildCache = new CrossBuildFileHashCache(scopedCache, inMemoryCacheDecoratorFactory, CrossBuildFileHashCache.Kind.CHECKSUMS, contentHashFunction);
         return new CrossBuildFileHashCacheWrapper(crossBuildCache);
     }
 
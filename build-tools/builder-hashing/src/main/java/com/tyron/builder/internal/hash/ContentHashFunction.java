@@ -0,0 +1,53 @@
+package com.tyron.builder.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Locale;
+
+/**
+ * The hash functions the contents of files can be hashed with.
+ *
+ * <p>The function is part of the signature every content hash starts with, so hashes created
+ * with different functions never collide, even though all of them are 128 bits wide.</p>
+ */
+public enum ContentHashFunction {
+    /**
+     * Cryptographic MD5 hash, the default.
+     */
+    MD5(Hashing.md5()),
+    /**
+     * Non-cryptographic 128-bit Murmur3 hash. Good enough for detecting changes of file contents and a lot cheaper than MD5.
+     */
+    MURMUR3_128(Hashing.murmur3_128());
+
+    /**
+     * System property used to select the function used for file contents, for example {@code -Dorg.gradle.hashing.content=murmur3_128}.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.hashing.content";
+
+    private final HashFunction function;
+
+    ContentHashFunction(HashFunction function) {
+        this.function = function;
+    }
+
+    HashFunction getHashFunction() {
+        return function;
+    }
+
+    /**
+     * Returns the function selected through {@link #SYSTEM_PROPERTY}, or {@link #MD5} if nothing was selected.
+     */
+    public static ContentHashFunction fromSystemProperty() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null || value.isEmpty()) {
+            return MD5;
+        }
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unknown content hash function '%s' set through '%s'.", value, SYSTEM_PROPERTY), e);
+        }
+    }
+}
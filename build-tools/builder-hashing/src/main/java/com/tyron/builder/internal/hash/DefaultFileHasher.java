@@ -6,8 +6,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 
 public class DefaultFileHasher implements FileHasher {
     private final StreamHasher streamHasher;
@@ -18,14 +18,17 @@ public class DefaultFileHasher implements FileHasher {
 
     @Override
     public HashCode hash(File file) {
-        InputStream inputStream;
+        FileInputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+            throw new UncheckedIOException(String.format("Failed to hash file '%s' as it does not exist.", file), e);
         }
         try {
-            return streamHasher.hash(inputStream);
+            FileChannel channel = inputStream.getChannel();
+            return streamHasher.hash(channel, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to hash file '%s'.", file), e);
         } finally {
             try {
                 inputStream.close();
@@ -39,4 +42,4 @@ public class DefaultFileHasher implements FileHasher {
     public HashCode hash(File file, long length, long lastModified) {
         return hash(file);
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,56 @@
 package com.tyron.builder.internal.hash;
 
 import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import com.tyron.common.util.MappedBuffers;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
 public class DefaultStreamHasher implements StreamHasher {
     private static final HashCode SIGNATURE = Hashes.signature(DefaultStreamHasher.class);
 
+    /**
+     * Files at least this large are hashed through a memory mapping instead of being read into a buffer.
+     */
+    private static final long MAPPING_THRESHOLD = 1024 * 1024;
+    private static final long MAX_MAPPED_REGION = 256 * 1024 * 1024;
+    private static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+
+    private final ContentHashFunction function;
+    private final HashCode signature;
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
+    private final Queue<ByteBuffer> directBuffers = new ArrayBlockingQueue<ByteBuffer>(16);
+
+    public DefaultStreamHasher() {
+        this(ContentHashFunction.MD5);
+    }
+
+    public DefaultStreamHasher(ContentHashFunction function) {
+        this.function = function;
+        // Keep the signature of the default function stable, so existing hashes stay valid
+        this.signature = function == ContentHashFunction.MD5
+                ? SIGNATURE
+                : Hashes.signature("CLASS:" + DefaultStreamHasher.class.getName() + ":" + function.name());
+    }
+
+    public ContentHashFunction getFunction() {
+        return function;
+    }
 
     @Override
     public HashCode hash(InputStream inputStream) {
         try {
             return doHash(inputStream, ByteStreams.nullOutputStream());
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file content.", function), e);
         }
     }
 
@@ -30,11 +59,49 @@ public class DefaultStreamHasher implements StreamHasher {
         return doHash(inputStream, outputStream);
     }
 
+    @Override
+    public HashCode hash(FileChannel channel, long length) throws IOException {
+        PrimitiveHasher hasher = newHasher();
+        if (length >= MAPPING_THRESHOLD) {
+            for (long position = 0; position < length; position += MAX_MAPPED_REGION) {
+                long size = Math.min(MAX_MAPPED_REGION, length - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                try {
+                    hasher.putBytes(region);
+                } finally {
+                    // Release the region now instead of when it is garbage collected, as it can be large
+                    MappedBuffers.unmap(region);
+                }
+            }
+            return hasher.hash();
+        }
+
+        ByteBuffer buffer = takeDirectBuffer();
+        try {
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                if (length - position < buffer.capacity()) {
+                    buffer.limit((int) (length - position));
+                }
+                int nread = channel.read(buffer, position);
+                if (nread < 0) {
+                    break;
+                }
+                buffer.flip();
+                hasher.putBytes(buffer);
+                position += nread;
+            }
+            return hasher.hash();
+        } finally {
+            directBuffers.offer(buffer);
+        }
+    }
+
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
-            PrimitiveHasher hasher = Hashes.newPrimitiveHasher();
-            hasher.putHash(SIGNATURE);
+            PrimitiveHasher hasher = newHasher();
             while (true) {
                 int nread = inputStream.read(buffer);
                 if (nread < 0) {
@@ -49,6 +116,12 @@ public class DefaultStreamHasher implements StreamHasher {
         }
     }
 
+    private PrimitiveHasher newHasher() {
+        PrimitiveHasher hasher = Hashes.newPrimitiveHasher(function);
+        hasher.putHash(signature);
+        return hasher;
+    }
+
     private void returnBuffer(byte[] buffer) {
         // Retain buffer if there is capacity in the queue, otherwise discard
         buffers.offer(buffer);
@@ -61,4 +134,12 @@ public class DefaultStreamHasher implements StreamHasher {
         }
         return buffer;
     }
-}
\ No newline at end of file
+
+    private ByteBuffer takeDirectBuffer() {
+        ByteBuffer buffer = directBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+        return buffer;
+    }
+}
@@ -7,6 +7,7 @@ import com.google.common.hash.Hashing;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class Hashes {
@@ -44,7 +45,18 @@ public class Hashes {
      * Returns a new {@link PrimitiveHasher} based on the default hashing implementation.
      */
     public static PrimitiveHasher newPrimitiveHasher() {
-        Hasher hasher = DEFAULT.newHasher();
+        return newPrimitiveHasher(DEFAULT);
+    }
+
+    /**
+     * Returns a new {@link PrimitiveHasher} based on the given content hash function.
+     */
+    public static PrimitiveHasher newPrimitiveHasher(ContentHashFunction function) {
+        return newPrimitiveHasher(function.getHashFunction());
+    }
+
+    private static PrimitiveHasher newPrimitiveHasher(HashFunction function) {
+        Hasher hasher = function.newHasher();
         return new PrimitiveHasher() {
             @Override
             public void putBytes(byte[] bytes) {
@@ -56,6 +68,11 @@ public class Hashes {
                 hasher.putBytes(bytes, off, len);
             }
 
+            @Override
+            public void putBytes(ByteBuffer bytes) {
+                hasher.putBytes(bytes);
+            }
+
             @Override
             public void putByte(byte value) {
                 hasher.putByte(value);
@@ -1,10 +1,13 @@
 package com.tyron.builder.internal.hash;
 
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 public interface StreamHasher {
     /**
@@ -17,4 +20,14 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the content of the given channel, read from its start up to the given length.
+     * The hash is the same as the one returned by {@link #hash(InputStream)} for the same content.
+     * The channel will not be closed by the method.
+     */
+    default HashCode hash(FileChannel channel, long length) throws IOException {
+        channel.position(0);
+        return hash(ByteStreams.limit(Channels.newInputStream(channel), length));
+    }
 }
\ No newline at end of file
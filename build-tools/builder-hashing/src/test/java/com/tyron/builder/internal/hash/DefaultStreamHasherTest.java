@@ -0,0 +1,50 @@
+package com.tyron.builder.internal.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.common.hash.HashCode;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class DefaultStreamHasherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFileHashMatchesStreamHash() throws IOException {
+        // Below and above the size from which files are memory mapped
+        for (int size : new int[]{0, 17, 100_000, 3 * 1024 * 1024 + 5}) {
+            byte[] content = new byte[size];
+            new Random(size).nextBytes(content);
+            File file = temporaryFolder.newFile();
+            Files.write(file.toPath(), content);
+
+            for (ContentHashFunction function : ContentHashFunction.values()) {
+                DefaultStreamHasher streamHasher = new DefaultStreamHasher(function);
+                HashCode streamHash = streamHasher.hash(new ByteArrayInputStream(content));
+                HashCode fileHash = new DefaultFileHasher(streamHasher).hash(file);
+                assertEquals(function + " " + size, streamHash, fileHash);
+            }
+        }
+    }
+
+    @Test
+    public void testFunctionsNeverShareHashes() {
+        byte[] content = "content".getBytes();
+        HashCode md5 = new DefaultStreamHasher(ContentHashFunction.MD5).hash(new ByteArrayInputStream(content));
+        HashCode murmur = new DefaultStreamHasher(ContentHashFunction.MURMUR3_128).hash(new ByteArrayInputStream(content));
+        assertEquals(md5, new DefaultStreamHasher().hash(new ByteArrayInputStream(content)));
+        assertNotEquals(md5, murmur);
+        assertEquals(md5.bits(), murmur.bits());
+    }
+}
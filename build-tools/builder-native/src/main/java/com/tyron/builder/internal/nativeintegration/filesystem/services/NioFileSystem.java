@@ -0,0 +1,219 @@
+package com.tyron.builder.internal.nativeintegration.filesystem.services;
+
+import com.tyron.builder.internal.file.FileException;
+import com.tyron.builder.internal.file.FileMetadata;
+import com.tyron.builder.internal.file.FileMetadata.AccessType;
+import com.tyron.builder.internal.file.impl.DefaultFileMetadata;
+import com.tyron.builder.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A {@link FileSystem} backed by {@code java.nio.file}, for Linux and Android.
+ *
+ * <p>{@link #stat(File)} reads the type, length and modification time of a file with a single
+ * attribute read, a second one is only needed when the file is a symbolic link. Case sensitivity
+ * and symbolic link support are probed once in the probe directory, the temporary directory by
+ * default. They only describe the volume of that directory: on Android the temporary directory is
+ * on case sensitive internal storage while projects are usually on case insensitive shared
+ * storage.</p>
+ */
+public class NioFileSystem implements FileSystem {
+
+    private static final LinkOption[] NO_FOLLOW = {LinkOption.NOFOLLOW_LINKS};
+    private static final LinkOption[] FOLLOW = {};
+
+    /**
+     * The permissions in the order of their bits in a unix mode, from 0400 to 0001
+     */
+    private static final PosixFilePermission[] PERMISSIONS = {
+            PosixFilePermission.OWNER_READ,
+            PosixFilePermission.OWNER_WRITE,
+            PosixFilePermission.OWNER_EXECUTE,
+            PosixFilePermission.GROUP_READ,
+            PosixFilePermission.GROUP_WRITE,
+            PosixFilePermission.GROUP_EXECUTE,
+            PosixFilePermission.OTHERS_READ,
+            PosixFilePermission.OTHERS_WRITE,
+            PosixFilePermission.OTHERS_EXECUTE
+    };
+
+    private final File probeDir;
+    private volatile Boolean caseSensitive;
+    private volatile Boolean canCreateSymbolicLink;
+
+    public NioFileSystem() {
+        this(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param probeDir the directory to create the files in which probe the capabilities of the
+     * file system
+     */
+    public NioFileSystem(File probeDir) {
+        this.probeDir = probeDir;
+    }
+
+    @Override
+    public boolean isCaseSensitive() {
+        Boolean result = caseSensitive;
+        if (result == null) {
+            result = probeCaseSensitive();
+            caseSensitive = result;
+        }
+        return result;
+    }
+
+    private boolean probeCaseSensitive() {
+        File file = null;
+        try {
+            file = File.createTempFile("case-probe", ".lower", probeDir);
+            File upperCase = new File(file.getParentFile(), file.getName().toUpperCase(Locale.ROOT));
+            return !upperCase.exists();
+        } catch (IOException e) {
+            // Linux and Android file systems are case sensitive unless proven otherwise
+            return true;
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public boolean canCreateSymbolicLink() {
+        Boolean result = canCreateSymbolicLink;
+        if (result == null) {
+            result = probeSymbolicLink();
+            canCreateSymbolicLink = result;
+        }
+        return result;
+    }
+
+    private boolean probeSymbolicLink() {
+        Path target = null;
+        Path link = null;
+        try {
+            target = Files.createTempFile(probeDir.toPath(), "symlink-probe", ".target");
+            link = target.resolveSibling(target.getFileName() + ".link");
+            Files.createSymbolicLink(link, target);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return false;
+        } finally {
+            deleteQuietly(link);
+            deleteQuietly(target);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // only a probe
+        }
+    }
+
+    @Override
+    public void createSymbolicLink(File link, File target) throws FileException {
+        try {
+            Files.createSymbolicLink(link.toPath(), target.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            throw new FileException(String.format("Could not create symlink from '%s' to '%s'.", link, target), e);
+        }
+    }
+
+    @Override
+    public boolean isSymlink(File suspect) {
+        return Files.isSymbolicLink(suspect.toPath());
+    }
+
+    @Override
+    public void chmod(File file, int mode) throws FileException {
+        try {
+            Files.setPosixFilePermissions(file.toPath(), toPermissions(mode));
+        } catch (UnsupportedOperationException e) {
+            // not a posix file system, permissions are not supported
+        } catch (IOException e) {
+            throw new FileException(String.format("Could not set file mode %o on '%s'.", mode, file), e);
+        }
+    }
+
+    @Override
+    public int getUnixMode(File f) throws FileException {
+        try {
+            PosixFileAttributes attributes = Files.readAttributes(f.toPath(), PosixFileAttributes.class);
+            return toMode(attributes.permissions());
+        } catch (UnsupportedOperationException e) {
+            return f.isDirectory() ? DEFAULT_DIR_MODE : DEFAULT_FILE_MODE;
+        } catch (IOException e) {
+            throw new FileException(String.format("Could not get file mode for '%s'.", f), e);
+        }
+    }
+
+    @Override
+    public FileMetadata stat(File f) throws FileException {
+        Path path = f.toPath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, NO_FOLLOW);
+        } catch (NoSuchFileException e) {
+            return DefaultFileMetadata.missing(AccessType.DIRECT);
+        } catch (IOException e) {
+            throw new FileException(String.format("Could not stat file '%s'.", f), e);
+        }
+        if (!attributes.isSymbolicLink()) {
+            return toMetadata(attributes, AccessType.DIRECT);
+        }
+
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, FOLLOW);
+        } catch (IOException e) {
+            // a broken link or a loop of links, the target can not be reached
+            return DefaultFileMetadata.missing(AccessType.VIA_SYMLINK);
+        }
+        return toMetadata(attributes, AccessType.VIA_SYMLINK);
+    }
+
+    private static FileMetadata toMetadata(BasicFileAttributes attributes, AccessType accessType) {
+        if (attributes.isDirectory()) {
+            return DefaultFileMetadata.directory(accessType);
+        }
+        // other files, such as devices and pipes, are treated as regular files
+        return DefaultFileMetadata.file(attributes.lastModifiedTime().toMillis(), attributes.size(), accessType);
+    }
+
+    static int toMode(Set<PosixFilePermission> permissions) {
+        int mode = 0;
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            if (permissions.contains(PERMISSIONS[i])) {
+                mode |= 1 << (PERMISSIONS.length - 1 - i);
+            }
+        }
+        return mode;
+    }
+
+    static Set<PosixFilePermission> toPermissions(int mode) {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (int i = 0; i < PERMISSIONS.length; i++) {
+            if ((mode & (1 << (PERMISSIONS.length - 1 - i))) != 0) {
+                permissions.add(PERMISSIONS[i]);
+            }
+        }
+        return permissions;
+    }
+}
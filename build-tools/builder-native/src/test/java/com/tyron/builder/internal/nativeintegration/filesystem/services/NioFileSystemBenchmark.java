@@ -0,0 +1,100 @@
+package com.tyron.builder.internal.nativeintegration.filesystem.services;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stats every file of a tree of 50k files through {@link NioFileSystem}, compared to reading the
+ * same metadata through {@link File} as the previous implementation did. Only runs with
+ * {@code -Pbenchmark}.
+ */
+public class NioFileSystemBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkStat() throws IOException {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        // (1 + 10 + 10 * 10) directories * 450 files = 49 950 files
+        List<File> files = new ArrayList<>();
+        createTree(temporaryFolder.newFolder("large"), 3, 10, 450, files);
+
+        ToLongFunction<File> nioStat = it -> fileSystem.stat(it).getLength();
+        ToLongFunction<File> fileStat = it -> {
+            if (it.exists() && !it.isDirectory()) {
+                it.lastModified();
+                return it.length();
+            }
+            return 0;
+        };
+        assertEquals(files.stream().mapToLong(fileStat).sum(),
+                files.stream().mapToLong(nioStat).sum());
+
+        long nio = measure(files, nioStat);
+        long file = measure(files, fileStat);
+
+        System.out.printf("stat of %d files, median of %d rounds: nio %.1f ms, java.io.File %.1f ms%n",
+                files.size(), ROUNDS, nio / 1e6, file / 1e6);
+    }
+
+    /**
+     * @return the median time in nanoseconds to stat all the files
+     */
+    private static long measure(List<File> files, ToLongFunction<File> stat) {
+        long expected = -1;
+        long[] times = new long[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long length = 0;
+            for (File file : files) {
+                length += stat.applyAsLong(file);
+            }
+            long time = System.nanoTime() - start;
+
+            if (expected != -1) {
+                assertEquals(expected, length);
+            }
+            expected = length;
+            if (round >= 0) {
+                times[round] = time;
+            }
+        }
+        Arrays.sort(times);
+        return times[ROUNDS / 2];
+    }
+
+    private static void createTree(File dir, int depth, int directories, int files,
+                                   List<File> created) throws IOException {
+        for (int i = 0; i < files; i++) {
+            File file = new File(dir, "file" + i + ".txt");
+            Files.write(file.toPath(), (file.getPath() + i).getBytes(StandardCharsets.UTF_8));
+            created.add(file);
+        }
+        if (depth <= 1) {
+            return;
+        }
+        for (int i = 0; i < directories; i++) {
+            File child = new File(dir, "dir" + i);
+            if (!child.mkdirs()) {
+                throw new IOException("Unable to create " + child);
+            }
+            createTree(child, depth - 1, directories, files, created);
+        }
+    }
+}
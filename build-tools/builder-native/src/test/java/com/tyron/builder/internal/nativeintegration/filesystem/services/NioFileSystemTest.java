@@ -0,0 +1,116 @@
+package com.tyron.builder.internal.nativeintegration.filesystem.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.tyron.builder.internal.file.FileMetadata;
+import com.tyron.builder.internal.file.FileMetadata.AccessType;
+import com.tyron.builder.internal.file.FileType;
+import com.tyron.builder.internal.file.impl.DefaultFileMetadata;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NioFileSystemTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStat() throws IOException {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        File file = temporaryFolder.newFile("file.txt");
+        Files.write(file.toPath(), "contents".getBytes(StandardCharsets.UTF_8));
+        File dir = temporaryFolder.newFolder("dir");
+
+        FileMetadata metadata = fileSystem.stat(file);
+        assertEquals(FileType.RegularFile, metadata.getType());
+        assertEquals(8, metadata.getLength());
+        assertEquals(file.lastModified(), metadata.getLastModified());
+        assertEquals(AccessType.DIRECT, metadata.getAccessType());
+
+        assertEquals(DefaultFileMetadata.directory(AccessType.DIRECT), fileSystem.stat(dir));
+        assertEquals(DefaultFileMetadata.missing(AccessType.DIRECT),
+                fileSystem.stat(new File(dir, "missing")));
+    }
+
+    @Test
+    public void testSymbolicLinks() throws IOException {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        assumeTrue(fileSystem.canCreateSymbolicLink());
+
+        File file = temporaryFolder.newFile("target.txt");
+        File link = new File(temporaryFolder.getRoot(), "link");
+        fileSystem.createSymbolicLink(link, file);
+        assertTrue(fileSystem.isSymlink(link));
+        assertEquals(AccessType.VIA_SYMLINK, fileSystem.stat(link).getAccessType());
+        assertEquals(FileType.RegularFile, fileSystem.stat(link).getType());
+
+        assertTrue(file.delete());
+        assertEquals(DefaultFileMetadata.missing(AccessType.VIA_SYMLINK), fileSystem.stat(link));
+    }
+
+    @Test
+    @SuppressWarnings("OctalInteger")
+    public void testUnixMode() throws IOException {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        File file = temporaryFolder.newFile("script.sh");
+
+        fileSystem.chmod(file, 0754);
+        assertEquals(0754, fileSystem.getUnixMode(file));
+        fileSystem.chmod(file, 0600);
+        assertEquals(0600, fileSystem.getUnixMode(file));
+        assertEquals(0751, NioFileSystem.toMode(NioFileSystem.toPermissions(0751)));
+    }
+
+    @Test
+    public void testCaseSensitive() {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        assumeTrue(System.getProperty("os.name").toLowerCase().contains("linux"));
+        assertTrue(fileSystem.isCaseSensitive());
+    }
+
+    @Test
+    public void testStatMatchesFile() throws IOException {
+        NioFileSystem fileSystem = new NioFileSystem(temporaryFolder.getRoot());
+        // (1 + 5 + 5 * 5) directories * 20 files = 620 files
+        List<File> files = new ArrayList<>();
+        createTree(temporaryFolder.newFolder("large"), 3, 5, 20, files);
+
+        for (File file : files) {
+            FileMetadata metadata = fileSystem.stat(file);
+            assertEquals(file.getPath(), FileType.RegularFile, metadata.getType());
+            assertEquals(file.getPath(), file.length(), metadata.getLength());
+            assertEquals(file.getPath(), file.lastModified(), metadata.getLastModified());
+            assertEquals(FileType.Directory, fileSystem.stat(file.getParentFile()).getType());
+        }
+    }
+
+    private static void createTree(File dir, int depth, int directories, int files,
+                                   List<File> created) throws IOException {
+        for (int i = 0; i < files; i++) {
+            File file = new File(dir, "file" + i + ".txt");
+            Files.write(file.toPath(), (file.getPath() + i).getBytes(StandardCharsets.UTF_8));
+            created.add(file);
+        }
+        if (depth <= 1) {
+            return;
+        }
+        for (int i = 0; i < directories; i++) {
+            File child = new File(dir, "dir" + i);
+            if (!child.mkdirs()) {
+                throw new IOException("Unable to create " + child);
+            }
+            createTree(child, depth - 1, directories, files, created);
+        }
+    }
+}
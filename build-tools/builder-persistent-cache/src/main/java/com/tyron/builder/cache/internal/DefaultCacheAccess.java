@@ -26,6 +26,9 @@ import com.tyron.builder.cache.LockTimeoutException;
 import com.tyron.builder.cache.MultiProcessSafePersistentIndexedCache;
 import com.tyron.builder.cache.PersistentIndexedCacheParameters;
 import com.tyron.builder.cache.internal.btree.BTreePersistentIndexedCache;
+import com.tyron.builder.cache.internal.btree.BlockStore;
+import com.tyron.builder.cache.internal.btree.FileBackedBlockStore;
+import com.tyron.builder.cache.internal.btree.MappedFileBlockStore;
 import com.tyron.builder.cache.internal.cacheops.CacheAccessOperationsStack;
 
 import org.slf4j.Logger;
@@ -269,7 +272,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for " + parameters.getCacheName() + ", path " + cacheFile + ", access " + this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer(), parameters.isMemoryMapped());
 
                 MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
                 CacheDecorator decorator = parameters.getCacheDecorator();
@@ -302,8 +305,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
         return findCacheFile(parameters).exists();
     }
 
-    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
+    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, boolean memoryMapped) {
+        BlockStore backingStore = memoryMapped ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<>(cacheFile, backingStore, keySerializer, valueSerializer);
     }
 
     /**
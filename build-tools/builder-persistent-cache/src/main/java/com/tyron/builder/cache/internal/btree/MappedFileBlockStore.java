@@ -0,0 +1,423 @@
+package com.tyron.builder.cache.internal.btree;
+
+import com.tyron.builder.api.UncheckedIOException;
+import com.tyron.common.util.MappedBuffers;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link BlockStore} which maps the cache file into memory instead of seeking and copying through a
+ * {@link RandomAccessFile} for each block. Blocks are decoded straight out of the mapped pages.
+ *
+ * <p>The file layout is the same as the one of {@link FileBackedBlockStore}, so both stores can be used on the same file.
+ * The mapping grows in chunks, the file is trimmed back to the size actually used by blocks when the store is closed,
+ * which happens every time the cross process file lock is released. Writes go through the shared page cache,
+ * so they are visible to the next owner of the lock without an explicit flush. The pages written while the lock
+ * was held are forced to the disk once when the store is closed, a store which was only read is not forced.</p>
+ *
+ * <p>A mapping which is replaced by a larger one, or by a new one when the store is cleared or closed, is unmapped
+ * right away instead of when it is garbage collected. Blocks are copied out of the mapping while they are decoded
+ * and the store is not used by several threads at once, so nothing refers to the old mapping anymore.</p>
+ *
+ * <p>The whole file is covered by a single mapping, so this store can not be used for cache files larger than 2 GiB.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    private static final int GROWTH_CHUNK_SIZE = 256 * 1024;
+
+    private final File cacheFile;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean writable;
+    private boolean dirty;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    @Override
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            file = openRandomAccessFile();
+            channel = file.getChannel();
+            currentFileSize = channel.size();
+            nextBlock = currentFileSize;
+            buffer = map(writable ? roundToChunk(currentFileSize) : currentFileSize);
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RandomAccessFile openRandomAccessFile() throws FileNotFoundException {
+        try {
+            writable = true;
+            return new RandomAccessFile(cacheFile, "rw");
+        } catch (FileNotFoundException e) {
+            writable = false;
+            return new RandomAccessFile(cacheFile, "r");
+        }
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Cannot map %s, it exceeds the maximum mappable size.", this));
+        }
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        return channel.map(mode, 0, size);
+    }
+
+    private static long roundToChunk(long size) {
+        long chunks = (size + GROWTH_CHUNK_SIZE - 1) / GROWTH_CHUNK_SIZE;
+        return Math.max(1, chunks) * GROWTH_CHUNK_SIZE;
+    }
+
+    /**
+     * Makes sure the mapping covers the file up to the given offset, remapping a larger region if required.
+     */
+    private void ensureMapped(long size) throws IOException {
+        if (size <= buffer.capacity()) {
+            return;
+        }
+        // Grow by at least the current size, so the number of remaps stays logarithmic in the file size
+        long newSize = roundToChunk(Math.max(size, 2L * buffer.capacity()));
+        if (newSize > Integer.MAX_VALUE && size <= Integer.MAX_VALUE) {
+            newSize = Integer.MAX_VALUE;
+        }
+        MappedByteBuffer previous = buffer;
+        buffer = map(newSize);
+        MappedBuffers.unmap(previous);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (buffer != null) {
+                if (dirty) {
+                    buffer.force();
+                    dirty = false;
+                }
+                // Unmapped first, some platforms do not allow truncating a mapped file
+                MappedBuffers.unmap(buffer);
+                buffer = null;
+                if (writable) {
+                    trimFile();
+                }
+            }
+            channel = null;
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes the unused tail of the last mapped chunk, so that the next opener of the file
+     * appends new blocks right after the last one.
+     */
+    private void trimFile() {
+        try {
+            if (channel.size() > currentFileSize) {
+                file.setLength(currentFileSize);
+            }
+        } catch (IOException e) {
+            // Some platforms do not allow truncating a mapped file. The tail only contains unused
+            // zeroes which are never pointed to, so the file stays valid.
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            MappedBuffers.unmap(buffer);
+            buffer = null;
+            file.setLength(0);
+            currentFileSize = 0;
+            dirty = false;
+            buffer = map(writable ? roundToChunk(0) : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    @Override
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    @Override
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    @Override
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Reads from the mapped buffer, starting at a given offset and stopping at the end of the used part of the file.
+     */
+    private final class MappedInputStream extends InputStream {
+        private final int start;
+        private int position;
+
+        MappedInputStream(long start) {
+            this.start = (int) start;
+            this.position = this.start;
+        }
+
+        long getBytesRead() {
+            return position - start;
+        }
+
+        @Override
+        public int read() {
+            if (position >= currentFileSize) {
+                return -1;
+            }
+            return buffer.get(position++) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int available = (int) Math.min(length, currentFileSize - position);
+            if (available <= 0) {
+                return -1;
+            }
+            ByteBuffer source = buffer.duplicate();
+            source.position(position);
+            source.get(bytes, offset, available);
+            position += available;
+            return available;
+        }
+    }
+
+    /**
+     * Writes to the mapped buffer, starting at a given offset and growing the mapping when required.
+     */
+    private final class MappedOutputStream extends OutputStream {
+        private final int start;
+        private int position;
+
+        MappedOutputStream(long start) {
+            this.start = (int) start;
+            this.position = this.start;
+        }
+
+        long getBytesWritten() {
+            return position - start;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureMapped(position + 1L);
+            buffer.put(position++, (byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ensureMapped((long) position + length);
+            ByteBuffer target = buffer.duplicate();
+            target.position(position);
+            try {
+                target.put(bytes, offset, length);
+            } catch (BufferOverflowException e) {
+                throw new IOException(e);
+            }
+            position += length;
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        @Override
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+            ensureMapped(finalSize);
+
+            MappedOutputStream output = new MappedOutputStream(pos);
+            DataOutputStream outputStream = new DataOutputStream(output);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            long bytesWritten = output.getBytesWritten();
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+            outputStream.flush();
+            dirty = true;
+
+            // Pad
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            MappedInputStream input = new MappedInputStream(pos);
+            DataInputStream inputStream = new DataInputStream(input);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = input.getBytesRead();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        @Override
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+
+}
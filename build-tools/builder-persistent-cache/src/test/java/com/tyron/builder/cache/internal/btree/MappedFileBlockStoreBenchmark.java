@@ -0,0 +1,87 @@
+package com.tyron.builder.cache.internal.btree;
+
+import static org.junit.Assert.assertEquals;
+
+import com.tyron.builder.internal.serialize.BaseSerializerFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compares a {@link BTreePersistentIndexedCache} backed by {@link MappedFileBlockStore} with
+ * one backed by {@link FileBackedBlockStore}: writing 50k entries, reading them back while the
+ * cache is open, and reading them after reopening it, when no block is cached in memory. Only
+ * runs with {@code -Pbenchmark}.
+ */
+public class MappedFileBlockStoreBenchmark {
+
+    private static final int ENTRIES = 50_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkLookups() throws IOException {
+        for (boolean memoryMapped : new boolean[]{false, true}) {
+            long[] puts = new long[ROUNDS];
+            long[] gets = new long[ROUNDS];
+            long[] reopenedGets = new long[ROUNDS];
+            for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+                File cacheFile = temporaryFolder.newFile();
+                BTreePersistentIndexedCache<String, String> cache = newCache(cacheFile, memoryMapped);
+                long start = System.nanoTime();
+                for (int i = 0; i < ENTRIES; i++) {
+                    cache.put("key" + i, "value" + i);
+                }
+                long put = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                getAll(cache);
+                long get = System.nanoTime() - start;
+                cache.close();
+
+                cache = newCache(cacheFile, memoryMapped);
+                start = System.nanoTime();
+                getAll(cache);
+                long reopenedGet = System.nanoTime() - start;
+                cache.close();
+
+                if (round >= 0) {
+                    puts[round] = put;
+                    gets[round] = get;
+                    reopenedGets[round] = reopenedGet;
+                }
+            }
+
+            System.out.printf("%s, median of %d rounds: %d ns/put, %d ns/get, " +
+                              "%d ns/get after reopening%n",
+                    memoryMapped ? "MappedFileBlockStore" : "FileBackedBlockStore", ROUNDS,
+                    median(puts) / ENTRIES, median(gets) / ENTRIES, median(reopenedGets) / ENTRIES);
+        }
+    }
+
+    private static void getAll(BTreePersistentIndexedCache<String, String> cache) {
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals("value" + i, cache.get("key" + i));
+        }
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static BTreePersistentIndexedCache<String, String> newCache(File cacheFile, boolean memoryMapped) {
+        BlockStore store = memoryMapped ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<>(cacheFile, store,
+                BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER);
+    }
+}
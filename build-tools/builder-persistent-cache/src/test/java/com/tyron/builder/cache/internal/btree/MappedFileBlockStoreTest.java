@@ -0,0 +1,115 @@
+package com.tyron.builder.cache.internal.btree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.tyron.builder.internal.serialize.BaseSerializerFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+public class MappedFileBlockStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndReopen() throws IOException {
+        File cacheFile = temporaryFolder.newFile("cache.bin");
+
+        BTreePersistentIndexedCache<String, String> cache = newCache(cacheFile, true);
+        for (int i = 0; i < 5000; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        cache.remove("key10");
+        cache.close();
+
+        cache = newCache(cacheFile, true);
+        assertEquals("value0", cache.get("key0"));
+        assertEquals("value4999", cache.get("key4999"));
+        assertNull(cache.get("key10"));
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void testFileCanBeSharedWithFileBackedStore() throws IOException {
+        File cacheFile = temporaryFolder.newFile("cache.bin");
+
+        BTreePersistentIndexedCache<String, String> mapped = newCache(cacheFile, true);
+        for (int i = 0; i < 1000; i++) {
+            mapped.put("key" + i, "value" + i);
+        }
+        mapped.close();
+
+        BTreePersistentIndexedCache<String, String> fileBacked = newCache(cacheFile, false);
+        assertEquals("value999", fileBacked.get("key999"));
+        fileBacked.put("other", "value");
+        fileBacked.close();
+
+        mapped = newCache(cacheFile, true);
+        assertEquals("value", mapped.get("other"));
+        assertEquals("value0", mapped.get("key0"));
+        mapped.verify();
+        mapped.close();
+    }
+
+    @Test
+    public void testClearAndReopen() throws IOException {
+        File cacheFile = temporaryFolder.newFile("cache.bin");
+
+        BTreePersistentIndexedCache<String, String> cache = newCache(cacheFile, true);
+        for (int i = 0; i < 3000; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        cache.clear();
+        assertNull(cache.get("key0"));
+
+        for (int round = 0; round < 10; round++) {
+            cache.put("round" + round, "value" + round);
+            cache.close();
+            cache = newCache(cacheFile, true);
+            for (int i = 0; i <= round; i++) {
+                assertEquals("value" + i, cache.get("round" + i));
+            }
+        }
+        assertNull(cache.get("key0"));
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void testSameContentsAsFileBackedStore() throws IOException {
+        int entries = 5000;
+        BTreePersistentIndexedCache<String, String> mapped = newCache(temporaryFolder.newFile(), true);
+        BTreePersistentIndexedCache<String, String> fileBacked = newCache(temporaryFolder.newFile(), false);
+        for (int i = 0; i < entries; i++) {
+            mapped.put("key" + i, "value" + i);
+            fileBacked.put("key" + i, "value" + i);
+        }
+        for (int i = 0; i < entries; i += 3) {
+            mapped.remove("key" + i);
+            fileBacked.remove("key" + i);
+        }
+
+        for (int i = 0; i < entries; i++) {
+            String expected = i % 3 == 0 ? null : "value" + i;
+            assertEquals(expected, mapped.get("key" + i));
+            assertEquals(expected, fileBacked.get("key" + i));
+        }
+        mapped.verify();
+        fileBacked.verify();
+        mapped.close();
+        fileBacked.close();
+    }
+
+    private static BTreePersistentIndexedCache<String, String> newCache(File cacheFile, boolean memoryMapped) {
+        BlockStore store = memoryMapped ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        return new BTreePersistentIndexedCache<>(cacheFile, store,
+                BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER);
+    }
+}
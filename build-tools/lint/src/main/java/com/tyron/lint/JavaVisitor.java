@@ -4,6 +4,7 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.tyron.completion.java.compiler.CompileTask;
 import com.tyron.completion.java.compiler.CompilerContainer;
 import com.tyron.completion.java.CompilerProvider;
 import com.tyron.completion.java.compiler.JavaCompilerService;
@@ -63,29 +64,47 @@ public class JavaVisitor {
         }
     }
 
-    public void visitFile(JavaContext context) {
+    /**
+     * Compiles the file of the context and runs the detectors on it.
+     *
+     * @return false if the file could not be analyzed
+     */
+    public boolean visitFile(JavaContext context) {
         try {
             CompilerContainer container = mCompiler.compile(context.file.toPath());
-            container.run(task -> {
-                Tree compilationUnit = task.root();
-                context.setCompileTask(task);
-
-                for (VisitingDetector v : mAllDetectors) {
-                    v.setContext(context);
-                }
-
-                if (!mMethodDetectors.isEmpty()) {
-                    JavaVoidVisitor visitor = new DelegatingJavaVisitor(context);
-                    compilationUnit.accept(visitor, null);
-                } else if (!mTreeTypeDetectors.isEmpty()) {
-                    JavaVoidVisitor visitor = new DispatchVisitor();
-                    compilationUnit.accept(visitor, null);
-                }
-            });
+            return container.get(task -> visitFile(context, task));
         } catch (Throwable e) {
             Log.e("Lint", "Failed to analyze file", e);
             ((JavaCompilerService) mCompiler).destroy();
+            return false;
+        }
+    }
+
+    /**
+     * Runs the detectors on the file of the context, taking its compilation unit from a task
+     * which has already been compiled.
+     *
+     * @return false if the task does not contain the file
+     */
+    public boolean visitFile(JavaContext context, CompileTask task) {
+        Tree compilationUnit = task.root(context.file);
+        if (compilationUnit == null) {
+            return false;
+        }
+        context.setCompileTask(task);
+
+        for (VisitingDetector v : mAllDetectors) {
+            v.setContext(context);
+        }
+
+        if (!mMethodDetectors.isEmpty()) {
+            JavaVoidVisitor visitor = new DelegatingJavaVisitor(context);
+            compilationUnit.accept(visitor, null);
+        } else if (!mTreeTypeDetectors.isEmpty()) {
+            JavaVoidVisitor visitor = new DispatchVisitor();
+            compilationUnit.accept(visitor, null);
         }
+        return true;
     }
 
     private static class VisitingDetector {
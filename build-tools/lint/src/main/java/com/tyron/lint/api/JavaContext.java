@@ -46,7 +46,11 @@ public class JavaContext extends Context {
     }
 
     public CompilationUnitTree getCompilationUnit() {
-        return mCompileTask.root();
+        if (mCompileTask.roots.size() == 1) {
+            return mCompileTask.root();
+        }
+        // a task shared with the editor may contain other files
+        return mCompileTask.root(file);
     }
 
     public void report(
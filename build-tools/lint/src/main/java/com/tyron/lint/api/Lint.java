@@ -6,6 +6,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.tyron.builder.project.api.JavaModule;
+import com.tyron.completion.java.compiler.CompileTask;
+import com.tyron.completion.java.compiler.CompilerContainer;
 import com.tyron.completion.java.compiler.JavaCompilerService;
 import com.tyron.lint.JavaVisitor;
 import com.tyron.lint.checks.CallSuperDetector;
@@ -17,33 +19,85 @@ import com.tyron.lint.client.IssueRegistry;
 import com.tyron.lint.client.LintClient;
 import com.tyron.lint.client.LintDriver;
 
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import org.apache.commons.io.FileUtils;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 
+/**
+ * Runs the registered detectors on java files.
+ *
+ * <p>The driver, the configuration and the dispatch tables of the detectors are created once and
+ * shared by every scan. The issues found in a file are remembered together with a hash of its
+ * contents and of the project files declaring the classes it uses and their super classes,
+ * scanning the file again while none of these changed reports the remembered issues without
+ * compiling it.</p>
+ *
+ * <p>The detectors run on the calling thread, one file after the other. They query the javac
+ * model of the compile task, which is not safe to use from several threads.</p>
+ */
 public class Lint {
+
+    private static final String TAG = Lint.class.getSimpleName();
+
+    /**
+     * The number of files whose issues are remembered, more are remembered when a larger batch
+     * of files such as the whole project is scanned
+     */
+    private static final int MIN_CACHED_FILES = 256;
+
     private final JavaModule mProject;
     private final JavaCompilerService mCompiler;
     private final List<Detector> mDetectors;
     private final LintClient mClient;
+    private final RecordingClient mRecorder;
+    private final LintDriver mDriver;
+    private final Configuration mConfiguration;
+    private final ScanResults<Report> mResults = new ScanResults<>(MIN_CACHED_FILES);
+
+    /**
+     * Created on the first scan after the detectors changed
+     */
+    private JavaVisitor mVisitor;
 
     public Lint(JavaCompilerService compiler, JavaModule project, LintClient client) {
         mCompiler = compiler;
         mProject = project;
         mClient = client;
         mDetectors = new ArrayList<>();
-
-        registerDetector(new JavaPerformanceDetector());
-        registerDetector(new SharedPrefsDetector());
-        registerDetector(new CallSuperDetector());
-    }
-
-    public void scanFile(File file) {
-        Instant start = Instant.now();
-        LintDriver driver = new LintDriver(new IssueRegistry() {
+        mRecorder = new RecordingClient(client);
+        mDriver = new LintDriver(new IssueRegistry() {
             @NonNull
             @Override
             public List<Issue> getIssues() {
@@ -54,8 +108,8 @@ public class Lint {
                         ToastDetector.ISSUE
                 );
             }
-        }, mClient);
-        JavaContext context = new JavaContext(driver, mProject, file, new Configuration() {
+        }, mRecorder);
+        mConfiguration = new Configuration() {
             @Override
             public void ignore(@NonNull Context context, @NonNull Issue issue, @Nullable Location location, @NonNull String message) {
 
@@ -65,14 +119,316 @@ public class Lint {
             public void setSeverity(@NonNull Issue issue, @Nullable Severity severity) {
 
             }
-        });
-        JavaVisitor visitor = new JavaVisitor(mCompiler, mDetectors);
-        visitor.visitFile(context);
+        };
+
+        registerDetector(new JavaPerformanceDetector());
+        registerDetector(new SharedPrefsDetector());
+        registerDetector(new CallSuperDetector());
+    }
+
+    public void scanFile(File file) {
+        scanFile(file, null);
+    }
+
+    /**
+     * Scans the file using a compile task which already contains it, for example the one used
+     * to analyze the file in the editor. The task must not be closed until this returns.
+     *
+     * @param task the task to take the compilation unit from, or null to compile the file
+     */
+    public synchronized void scanFile(@NonNull File file, @Nullable CompileTask task) {
+        Instant start = Instant.now();
+        byte[] hash = hash(file);
+        if (replay(file, hash, this::hash)) {
+            return;
+        }
+
+        if (task != null) {
+            scan(file, hash, task);
+        } else {
+            try {
+                CompilerContainer container = mCompiler.compile(file.toPath());
+                container.run(it -> scan(file, hash, it));
+            } catch (Throwable e) {
+                Log.e(TAG, "Failed to analyze " + file.getName(), e);
+                mResults.remove(file);
+                mCompiler.destroy();
+            }
+        }
+
+        Log.d(TAG, "Scanning took " + Duration.between(start, Instant.now()).toMillis() + " ms");
+    }
+
+    /**
+     * Scans every java file of the project, see {@link #scanFiles(Collection)}.
+     */
+    public void scanProject() {
+        scanFiles(mProject.getJavaFiles().values());
+    }
+
+    /**
+     * Scans the given files. The files which changed since they were last scanned are compiled
+     * together in a single batch, instead of once per file. Issues are passed to the client as
+     * they are found.
+     */
+    public synchronized void scanFiles(@NonNull Collection<File> files) {
+        Instant start = Instant.now();
+        mResults.ensureCapacity(files.size());
+        Map<File, byte[]> hashes = new HashMap<>();
+        for (File file : files) {
+            hashes.put(file, hash(file));
+        }
+        Function<File, byte[]> hasher = file -> hashes.containsKey(file)
+                ? hashes.get(file)
+                : hash(file);
+
+        Map<File, byte[]> changed = new LinkedHashMap<>();
+        for (File file : files) {
+            byte[] hash = hashes.get(file);
+            if (!replay(file, hash, hasher)) {
+                changed.put(file, hash);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Path[] paths = changed.keySet().stream()
+                .map(File::toPath)
+                .toArray(Path[]::new);
+        try {
+            CompilerContainer container = mCompiler.compile(paths);
+            container.run(task -> changed.forEach((file, hash) -> {
+                try {
+                    scan(file, hash, task);
+                } catch (Throwable e) {
+                    // a failing detector should not stop the other files from being scanned
+                    Log.e(TAG, "Failed to analyze " + file.getName(), e);
+                    mResults.remove(file);
+                }
+            }));
+        } catch (Throwable e) {
+            Log.e(TAG, "Failed to compile files", e);
+            mCompiler.destroy();
+        }
+
+        Log.d(TAG, "Scanning " + changed.size() + " of " + files.size() + " files took " +
+                   Duration.between(start, Instant.now()).toMillis() + " ms");
+    }
+
+    /**
+     * Reports the issues remembered for the file if neither its contents nor the ones of its
+     * dependencies changed
+     *
+     * @param hasher returns the current hash of a dependency
+     * @return whether the file does not need to be scanned
+     */
+    private boolean replay(File file, @Nullable byte[] hash, Function<File, byte[]> hasher) {
+        List<Report> reports = mResults.get(file, hash, hasher);
+        if (reports == null) {
+            return false;
+        }
+        JavaContext context = new JavaContext(mDriver, mProject, file, mConfiguration);
+        for (Report report : reports) {
+            report.replay(mClient, context);
+        }
+        return true;
+    }
+
+    private void scan(File file, @Nullable byte[] hash, CompileTask task) {
+        JavaContext context = new JavaContext(mDriver, mProject, file, mConfiguration);
+        List<Report> reports = new ArrayList<>();
+        mRecorder.mReports = reports;
+        boolean completed;
+        try {
+            completed = getVisitor().visitFile(context, task);
+        } finally {
+            mRecorder.mReports = null;
+        }
+
+        if (completed && hash != null) {
+            mResults.put(file, hash, getDependencies(file, task), reports);
+        } else {
+            mResults.remove(file);
+        }
+    }
+
+    /**
+     * Detectors look at the declarations of the classes a file uses, such as the methods
+     * overridden from a super class. Finds the project files which declare these classes and
+     * the super classes of them.
+     *
+     * @return the current hashes of the files the issues found in the file depend on
+     */
+    private Map<File, byte[]> getDependencies(File file, CompileTask task) {
+        CompilationUnitTree root = task.root(file);
+        Trees trees = Trees.instance(task.task);
+        Types types = task.task.getTypes();
+        Set<TypeElement> classes = new HashSet<>();
+        new TreePathScanner<Void, Void>() {
+            @Override
+            public Void visitClass(ClassTree node, Void unused) {
+                addClass(trees.getElement(getCurrentPath()));
+                return super.visitClass(node, unused);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void unused) {
+                addClass(trees.getElement(getCurrentPath()));
+                return super.visitIdentifier(node, unused);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void unused) {
+                addClass(trees.getElement(getCurrentPath()));
+                return super.visitMemberSelect(node, unused);
+            }
+
+            private void addClass(@Nullable Element element) {
+                while (element != null && !(element instanceof TypeElement)) {
+                    element = element.getEnclosingElement();
+                }
+                if (element == null || !classes.add((TypeElement) element)) {
+                    return;
+                }
+                TypeElement type = (TypeElement) element;
+                addClass(type.getEnclosingElement());
+                addSuperClass(type.getSuperclass());
+                for (TypeMirror superInterface : type.getInterfaces()) {
+                    addSuperClass(superInterface);
+                }
+            }
 
-        Log.d("Lint", "Scanning took " + Duration.between(start, Instant.now()).toMillis() + " ms");
+            private void addSuperClass(TypeMirror type) {
+                addClass(types.asElement(type));
+            }
+        }.scan(root, null);
+
+        Map<File, byte[]> dependencies = new HashMap<>();
+        for (TypeElement type : classes) {
+            if (type.getEnclosingElement() instanceof PackageElement) {
+                File dependency = mProject.getJavaFile(type.getQualifiedName().toString());
+                if (dependency != null && !dependency.equals(file)) {
+                    dependencies.put(dependency, hash(dependency));
+                }
+            }
+        }
+        return dependencies;
     }
 
-    public void registerDetector(Detector detector) {
+    public synchronized void registerDetector(Detector detector) {
         mDetectors.add(detector);
+        mVisitor = null;
+        mResults.clear();
+    }
+
+    /**
+     * Forgets the issues found in the given file, or in every file if null. To be used when
+     * something else than the contents of the project files changes what is found in it, such
+     * as the libraries of the project.
+     */
+    public synchronized void invalidate(@Nullable File file) {
+        if (file == null) {
+            mResults.clear();
+        } else {
+            mResults.remove(file);
+        }
+    }
+
+    private JavaVisitor getVisitor() {
+        if (mVisitor == null) {
+            mVisitor = new JavaVisitor(mCompiler, mDetectors);
+        }
+        return mVisitor;
+    }
+
+    /**
+     * @return the contents the compiler would see, the ones in the editor if the file is opened
+     */
+    @Nullable
+    private String getContents(File file) {
+        Optional<CharSequence> content = mProject.getFileManager().getFileContent(file);
+        if (content.isPresent()) {
+            return content.get().toString();
+        }
+        try {
+            return FileUtils.readFileToString(file, Charset.defaultCharset());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private byte[] hash(File file) {
+        String contents = getContents(file);
+        if (contents == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            return digest.digest(contents.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static class Report {
+        private final Issue mIssue;
+        private final Severity mSeverity;
+        private final Location mLocation;
+        private final String mMessage;
+        private final TextFormat mFormat;
+
+        private Report(Issue issue, Severity severity, Location location, String message,
+                       TextFormat format) {
+            mIssue = issue;
+            mSeverity = severity;
+            mLocation = location;
+            mMessage = message;
+            mFormat = format;
+        }
+
+        private void replay(LintClient client, Context context) {
+            client.report(context, mIssue, mSeverity, mLocation, mMessage, mFormat);
+        }
+    }
+
+    /**
+     * Passes the reports to the client, and records them while a file is scanned. The context is
+     * not recorded as it holds on to the compile task.
+     */
+    private static class RecordingClient extends LintClient {
+
+        private final LintClient mDelegate;
+        private List<Report> mReports;
+
+        private RecordingClient(LintClient delegate) {
+            mDelegate = delegate;
+        }
+
+        @NonNull
+        @Override
+        public Class<? extends Detector> replaceDetector(
+                @NonNull Class<? extends Detector> detectorClass) {
+            return mDelegate.replaceDetector(detectorClass);
+        }
+
+        @Override
+        public boolean checkForSuppressComments() {
+            return mDelegate.checkForSuppressComments();
+        }
+
+        @Override
+        public void report(@NonNull Context context, @NonNull Issue issue, @NonNull Severity severity, @Nullable Location location, @NonNull String message, @NonNull TextFormat format) {
+            if (mReports != null) {
+                mReports.add(new Report(issue, severity, location, message, format));
+            }
+            mDelegate.report(context, issue, severity, location, message, format);
+        }
+
+        @Override
+        public void log(Throwable t, String s, String name) {
+            mDelegate.log(t, s, name);
+        }
     }
 }
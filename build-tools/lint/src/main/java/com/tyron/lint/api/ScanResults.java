@@ -0,0 +1,120 @@
+package com.tyron.lint.api;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The issues found in the files scanned by {@link Lint}, together with a hash of the contents
+ * they were found in and of the contents of the other files they depend on. The issues of a
+ * file are only valid while none of these hashes change.
+ *
+ * <p>The least recently used files are forgotten once more files are remembered than the largest
+ * batch of files scanned so far, and at least {@code minimumSize}. A scan of the whole project
+ * therefore never evicts the results the next scan of the project needs.</p>
+ *
+ * @param <R> the type of the remembered reports
+ */
+class ScanResults<R> {
+
+    private final Map<File, Result<R>> mResults =
+            new LinkedHashMap<File, Result<R>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<File, Result<R>> eldest) {
+                    return size() > mMaxSize;
+                }
+            };
+    private int mMaxSize;
+
+    private long mHitCount;
+    private long mMissCount;
+
+    ScanResults(int minimumSize) {
+        mMaxSize = minimumSize;
+    }
+
+    /**
+     * Makes room for the results of a batch of the given number of files
+     */
+    void ensureCapacity(int files) {
+        mMaxSize = Math.max(mMaxSize, files);
+    }
+
+    /**
+     * @param hasher returns the current hash of the contents of a dependency
+     * @return the reports found in the file if it was scanned with the given contents and its
+     * dependencies did not change since, or null
+     */
+    @Nullable
+    List<R> get(@NonNull File file, @Nullable byte[] hash,
+                @NonNull Function<File, byte[]> hasher) {
+        Result<R> result = hash != null ? mResults.get(file) : null;
+        if (result == null || !Arrays.equals(result.hash, hash) || !result.isValid(hasher)) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return result.reports;
+    }
+
+    /**
+     * @param dependencies the hashes of the other files whose contents the reports depend on
+     */
+    void put(@NonNull File file, @NonNull byte[] hash, @NonNull Map<File, byte[]> dependencies,
+             @NonNull List<R> reports) {
+        mResults.put(file, new Result<>(hash, dependencies, reports));
+    }
+
+    void remove(@NonNull File file) {
+        mResults.remove(file);
+    }
+
+    void clear() {
+        mResults.clear();
+    }
+
+    int size() {
+        return mResults.size();
+    }
+
+    /**
+     * @return the number of lookups which found the reports of unchanged contents
+     */
+    long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return the number of lookups which found nothing, or the reports of other contents
+     */
+    long getMissCount() {
+        return mMissCount;
+    }
+
+    private static class Result<R> {
+        private final byte[] hash;
+        private final Map<File, byte[]> dependencies;
+        private final List<R> reports;
+
+        private Result(byte[] hash, Map<File, byte[]> dependencies, List<R> reports) {
+            this.hash = hash;
+            this.dependencies = dependencies;
+            this.reports = reports;
+        }
+
+        private boolean isValid(Function<File, byte[]> hasher) {
+            for (Map.Entry<File, byte[]> dependency : dependencies.entrySet()) {
+                if (!Arrays.equals(dependency.getValue(), hasher.apply(dependency.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tyron.lint.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScanResultsTest {
+
+    private static final int MINIMUM_SIZE = 256;
+    private static final Map<File, byte[]> NO_DEPENDENCIES = Collections.emptyMap();
+
+    @Test
+    public void testProjectScanLargerThanMinimumSize() {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < MINIMUM_SIZE * 2; i++) {
+            files.add(new File("/project/src/Class" + i + ".java"));
+        }
+        ScanResults<String> results = new ScanResults<>(MINIMUM_SIZE);
+
+        scan(results, files);
+        assertEquals(0, results.getHitCount());
+        assertEquals(files.size(), results.getMissCount());
+
+        scan(results, files);
+        assertEquals(files.size(), results.getHitCount());
+        assertEquals(files.size(), results.getMissCount());
+        assertEquals(files.size(), results.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        ScanResults<String> results = new ScanResults<>(2);
+        File first = new File("First.java");
+        File second = new File("Second.java");
+        File third = new File("Third.java");
+
+        results.put(first, hash(first), NO_DEPENDENCIES, Collections.emptyList());
+        results.put(second, hash(second), NO_DEPENDENCIES, Collections.emptyList());
+        assertNotNull(results.get(first, hash(first), ScanResultsTest::hash));
+        results.put(third, hash(third), NO_DEPENDENCIES, Collections.emptyList());
+
+        assertEquals(2, results.size());
+        assertNotNull(results.get(first, hash(first), ScanResultsTest::hash));
+        assertNull(results.get(second, hash(second), ScanResultsTest::hash));
+    }
+
+    @Test
+    public void testChangedContents() {
+        ScanResults<String> results = new ScanResults<>(MINIMUM_SIZE);
+        File file = new File("Main.java");
+
+        results.put(file, hash(file), NO_DEPENDENCIES, Collections.singletonList("issue"));
+        assertEquals(Collections.singletonList("issue"),
+                results.get(file, hash(file), ScanResultsTest::hash));
+        byte[] changed = "changed".getBytes(StandardCharsets.UTF_8);
+        assertNull(results.get(file, changed, ScanResultsTest::hash));
+        assertNull(results.get(file, null, ScanResultsTest::hash));
+    }
+
+    @Test
+    public void testChangedDependency() {
+        ScanResults<String> results = new ScanResults<>(MINIMUM_SIZE);
+        File file = new File("Main.java");
+        File superClass = new File("Base.java");
+        Map<File, byte[]> hashes = new HashMap<>();
+        hashes.put(superClass, hash(superClass));
+
+        results.put(file, hash(file), new HashMap<>(hashes), Collections.emptyList());
+        assertNotNull(results.get(file, hash(file), hashes::get));
+
+        hashes.put(superClass, "changed".getBytes(StandardCharsets.UTF_8));
+        assertNull(results.get(file, hash(file), hashes::get));
+
+        hashes.remove(superClass);
+        assertNull(results.get(file, hash(file), hashes::get));
+    }
+
+    /**
+     * Looks up every file the way {@link Lint#scanProject()} does, remembering the files which
+     * were not found
+     */
+    private static void scan(ScanResults<String> results, List<File> files) {
+        results.ensureCapacity(files.size());
+        for (File file : files) {
+            byte[] hash = hash(file);
+            if (results.get(file, hash, ScanResultsTest::hash) == null) {
+                results.put(file, hash, NO_DEPENDENCIES,
+                        Collections.singletonList(file.getName()));
+            }
+        }
+    }
+
+    private static byte[] hash(File file) {
+        return file.getPath().getBytes(StandardCharsets.UTF_8);
+    }
+}
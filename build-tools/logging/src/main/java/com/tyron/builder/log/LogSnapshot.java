@@ -0,0 +1,50 @@
+package com.tyron.builder.log;
+
+import com.tyron.builder.model.DiagnosticWrapper;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The lines of a log at the time it was published by {@link LogViewModel}.
+ *
+ * <p>Every line gets a sequence number when it is added. Two snapshots of the same
+ * {@link #getGeneration() generation} only differ by lines dropped from the start and lines
+ * added to the end, which lets a list show the difference without comparing the lines.</p>
+ */
+public final class LogSnapshot extends AbstractList<DiagnosticWrapper> implements RandomAccess {
+
+    private final DiagnosticWrapper[] mLines;
+    private final long mFirstSequence;
+    private final int mGeneration;
+
+    LogSnapshot(DiagnosticWrapper[] lines, long firstSequence, int generation) {
+        mLines = lines;
+        mFirstSequence = firstSequence;
+        mGeneration = generation;
+    }
+
+    @Override
+    public DiagnosticWrapper get(int index) {
+        return mLines[index];
+    }
+
+    @Override
+    public int size() {
+        return mLines.length;
+    }
+
+    /**
+     * @return the sequence number of the first line of this snapshot
+     */
+    public long getFirstSequence() {
+        return mFirstSequence;
+    }
+
+    /**
+     * @return a number which changes when the log is cleared or replaced
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+}
@@ -12,6 +12,7 @@ import com.tyron.builder.model.DiagnosticWrapper;
 import javax.tools.Diagnostic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class LogViewModel extends ViewModel {
@@ -22,36 +23,50 @@ public class LogViewModel extends ViewModel {
     public static final int DEBUG = totalCount++;
     public static final int IDE = totalCount++;
 
+    /**
+     * The maximum number of lines kept for each log, older lines are dropped
+     */
+    private static final int MAX_LINES = 5_000;
+
+    /**
+     * Lines added within this delay are published together, about once per frame
+     */
+    private static final long BATCH_DELAY_MS = 16;
+
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private List<MutableLiveData<List<DiagnosticWrapper>>> log;
+    private final LogBuffer[] buffers = new LogBuffer[totalCount];
+    private final List<MutableLiveData<List<DiagnosticWrapper>>> log = new ArrayList<>();
+    private final Runnable flush = this::flush;
+    private boolean flushScheduled;
 
-    public LiveData<List<DiagnosticWrapper>> getLogs(int id) {
-        if (log == null) {
-            log = init();
+    public LogViewModel() {
+        for (int i = 0; i < totalCount; i++) {
+            buffers[i] = new LogBuffer(MAX_LINES);
+            log.add(new MutableLiveData<>(buffers[i].snapshot()));
         }
+    }
+
+    /**
+     * @return the lines of the log, the values are {@link LogSnapshot}s
+     */
+    public LiveData<List<DiagnosticWrapper>> getLogs(int id) {
         return log.get(id);
     }
 
     public void updateLogs(int id, List<DiagnosticWrapper> diagnostics) {
-        if (log == null) {
-            log = init();
-        }
-        MutableLiveData<List<DiagnosticWrapper>> logData = this.log.get(id);
-        logData.setValue(diagnostics);
+        buffers[id].replace(diagnostics);
+        publish(id);
     }
 
-    private List<MutableLiveData<List<DiagnosticWrapper>>> init() {
-        List<MutableLiveData<List<DiagnosticWrapper>>> list = new ArrayList<>();
-        for (int i = 0; i < totalCount; i++) {
-            list.add(new MutableLiveData<>(new ArrayList<>()));
-        }
-        return list;
+    public void clear(int id) {
+        buffers[id].clear();
+        publish(id);
     }
 
-    public void clear(int id) {
-        MutableLiveData<List<DiagnosticWrapper>> data = (MutableLiveData<List<DiagnosticWrapper>>) getLogs(id);
-        data.setValue(new ArrayList<>());
+    @Override
+    protected void onCleared() {
+        mainHandler.removeCallbacks(flush);
     }
 
     public void e(int id, DiagnosticWrapper diagnostic) {
@@ -92,26 +107,97 @@ public class LogViewModel extends ViewModel {
      * @param diagnosticWrapper the DiagnosticWrapper to add
      */
     private void add(int id, DiagnosticWrapper diagnosticWrapper) {
-        List<DiagnosticWrapper> list = getLogs(id).getValue();
-        if (list == null) {
-            list = new ArrayList<>();
-        }
-        list.add(diagnosticWrapper);
-        maybePost(id, list);
+        buffers[id].add(diagnosticWrapper);
+        scheduleFlush();
     }
 
     /**
-     * Checks if the current thread is the main thread and does not post it if so
-     *
-     * @param id      log id to set the value to
-     * @param current Value to set to the ViewModel
+     * Publishes the log right away if called on the main thread, otherwise with the next batch
      */
-    private void maybePost(int id, List<DiagnosticWrapper> current) {
+    private void publish(int id) {
         if (Thread.currentThread() != Looper.getMainLooper().getThread()) {
-            // Using postValue will ignore all values except the last one, we don't want that
-            mainHandler.post(() -> log.get(id).setValue(current));
+            scheduleFlush();
         } else {
-            log.get(id).setValue(current);
+            log.get(id).setValue(buffers[id].snapshot());
+        }
+    }
+
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        mainHandler.postDelayed(flush, BATCH_DELAY_MS);
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushScheduled = false;
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].isDirty()) {
+                log.get(i).setValue(buffers[i].snapshot());
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent lines of a log
+     */
+    private static final class LogBuffer {
+
+        private final DiagnosticWrapper[] lines;
+        private int start;
+        private int size;
+        private long firstSequence;
+        private int generation;
+        private boolean dirty;
+
+        private LogBuffer(int capacity) {
+            lines = new DiagnosticWrapper[capacity];
+        }
+
+        synchronized void add(DiagnosticWrapper line) {
+            if (size == lines.length) {
+                lines[start] = line;
+                start = (start + 1) % lines.length;
+                firstSequence++;
+            } else {
+                lines[(start + size) % lines.length] = line;
+                size++;
+            }
+            dirty = true;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(lines, null);
+            firstSequence += size;
+            start = 0;
+            size = 0;
+            generation++;
+            dirty = true;
+        }
+
+        synchronized void replace(List<DiagnosticWrapper> newLines) {
+            clear();
+            for (int i = Math.max(0, newLines.size() - lines.length); i < newLines.size(); i++) {
+                add(newLines.get(i));
+            }
+        }
+
+        synchronized boolean isDirty() {
+            return dirty;
+        }
+
+        synchronized LogSnapshot snapshot() {
+            DiagnosticWrapper[] copy = new DiagnosticWrapper[size];
+            int firstPart = Math.min(size, lines.length - start);
+            System.arraycopy(lines, start, copy, 0, firstPart);
+            System.arraycopy(lines, 0, copy, firstPart, size - firstPart);
+            dirty = false;
+            return new LogSnapshot(copy, firstSequence, generation);
         }
     }
 }
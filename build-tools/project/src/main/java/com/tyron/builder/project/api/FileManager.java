@@ -5,7 +5,11 @@ import androidx.annotation.Nullable;
 
 import com.tyron.builder.project.listener.FileListener;
 
+import org.apache.commons.io.FileUtils;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Optional;
 
@@ -50,6 +54,33 @@ public interface FileManager {
         setSnapshotContent(file, content, true);
     }
 
+    /**
+     * Replaces the characters from {@code start} to {@code end} of the stored contents of an
+     * opened file with the given text. Unlike {@link #setSnapshotContent(File, String, FileListener)}
+     * this does not need the whole contents of the file, so editors should prefer it for typing.
+     * @param file The opened file
+     * @param start The start of the replaced range, inclusive
+     * @param end The end of the replaced range, exclusive
+     * @param text The text to insert
+     * @param listener The listener to ignore
+     */
+    default void applySnapshotEdit(@NonNull File file,
+                                   int start,
+                                   int end,
+                                   @NonNull CharSequence text,
+                                   @Nullable FileListener listener) {
+        if (!isOpened(file)) {
+            return;
+        }
+        Optional<CharSequence> content = getFileContent(file);
+        if (!content.isPresent()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder(content.get());
+        builder.replace(start, end, text.toString());
+        setSnapshotContent(file, builder.toString(), listener);
+    }
+
     /**
      * Mark the file as closed and save its stored snapshot to disk
      * @param file the file to be saved
@@ -61,13 +92,29 @@ public interface FileManager {
     void removeSnapshotListener(FileListener listener);
 
     /**
-     * Get the contents of the file stored in memory. If the file is not yet opened,
-     * This returns {@link Optional#empty()}
+     * Get the contents of the file stored in memory. If the file is not opened and has no
+     * contents waiting to be saved, this returns {@link Optional#empty()}
      * @param file The file
      * @return The contents stored in memory
      */
     Optional<CharSequence> getFileContent(File file);
 
+    /**
+     * Reads the current contents of the file, from memory if it is opened or was closed and is
+     * not yet saved, otherwise from disk. Files should be read through this rather than from
+     * disk directly, the contents on disk may be older than those in memory.
+     * @param file The file
+     * @return The contents of the file
+     * @throws IOException if the file is not in memory and can not be read
+     */
+    default CharSequence readFileContent(@NonNull File file) throws IOException {
+        Optional<CharSequence> content = getFileContent(file);
+        if (content.isPresent()) {
+            return content.get();
+        }
+        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+    }
+
     /**
      * Instructs the file manager to release resources and save all the opened files to disk.
      */
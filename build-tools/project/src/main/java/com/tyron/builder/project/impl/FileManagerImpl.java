@@ -7,6 +7,7 @@ import androidx.annotation.Nullable;
 
 import com.tyron.builder.project.api.FileManager;
 import com.tyron.builder.project.listener.FileListener;
+import com.tyron.builder.project.util.Rope;
 import com.tyron.common.util.ThreadUtil;
 
 import org.apache.commons.io.FileUtils;
@@ -15,57 +16,73 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
+/**
+ * Keeps the contents of opened files in memory as {@link Rope}s. Every change creates a new
+ * immutable rope, so the contents returned by {@link #getFileContent(File)} are a snapshot which
+ * stays valid while the file is edited.
+ *
+ * <p>Files are written to disk on a background thread. Saving a file again before the previous
+ * save of it ran only writes the latest contents once. Until a closed file is written its
+ * contents are still returned by {@link #getFileContent(File)}, so reopening it must read it
+ * through there rather than from disk.</p>
+ */
 public class FileManagerImpl implements FileManager {
 
     private static class FileState {
 
-        private String mContents;
-        private Instant mModified;
+        private final Rope mContents;
+        private final Instant mModified;
 
-        public FileState(String contents, Instant modified) {
+        public FileState(Rope contents, Instant modified) {
             mContents = contents;
             mModified = modified;
         }
 
-        public String getContents() {
+        public Rope getContents() {
             return mContents;
         }
 
         public Instant getModified() {
             return mModified;
         }
-
-        public void setContents(String content) {
-            mContents = content;
-        }
-
-        public void setModified(Instant now) {
-            mModified = now;
-        }
     }
 
     private static final String TAG = FileManagerImpl.class.getSimpleName();
 
-    private final ExecutorService mService;
+    private final Executor mService;
+    private final Executor mMainExecutor;
     private final File mRoot;
     private final Map<File, FileState> mSnapshots;
 
-    private final List<FileListener> mListeners = new ArrayList<>();
+    /**
+     * Contents waiting to be written to disk, guarded by itself
+     */
+    private final Map<File, Rope> mPendingSaves = new HashMap<>();
+
+    private final List<FileListener> mListeners = new CopyOnWriteArrayList<>();
 
     public FileManagerImpl(File root) {
+        this(root, Executors.newSingleThreadExecutor(), ThreadUtil::runOnUiThread);
+    }
+
+    /**
+     * @param service runs the saves, one at a time
+     * @param mainExecutor runs the updates of the last modified time after a save
+     */
+    FileManagerImpl(File root, Executor service, Executor mainExecutor) {
         mRoot = root;
-        mService = Executors.newSingleThreadExecutor();
-        mSnapshots = Collections.synchronizedMap(new HashMap<>());
+        mService = service;
+        mMainExecutor = mainExecutor;
+        mSnapshots = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -85,11 +102,11 @@ public class FileManagerImpl implements FileManager {
 
     @Override
     public void setLastModified(@NonNull File file, Instant instant) {
-        FileState state = mSnapshots.get(file);
+        FileState state = mSnapshots.computeIfPresent(file,
+                (f, current) -> new FileState(current.getContents(), instant));
         if (state == null) {
             return;
         }
-        state.setModified(instant);
 
         for (FileListener listener : mListeners) {
             listener.onSnapshotChanged(file, state.getContents());
@@ -99,78 +116,83 @@ public class FileManagerImpl implements FileManager {
     @Override
     public void openFileForSnapshot(@NonNull File file, String content) {
         long lastModified = file.lastModified();
-        FileState state = new FileState(content, Instant.ofEpochMilli(lastModified));
+        FileState state = new FileState(Rope.of(content), Instant.ofEpochMilli(lastModified));
         mSnapshots.put(file, state);
     }
 
     @Override
     public void setSnapshotContent(@NonNull File file, String content, FileListener listener) {
-        if (!mSnapshots.containsKey(file)) {
+        FileState state = setContents(file, Rope.of(content));
+        if (state == null) {
             return;
         }
+        notifyListeners(file, state.getContents(), listener);
+    }
 
-        mSnapshots.computeIfPresent(file, (f, state) -> {
-            boolean equals = Objects.equals(content, state.getContents());
-            state.setContents(content);
-            if (!equals) {
-                state.setModified(Instant.now());
-            }
-            return state;
-        });
-
-        for (FileListener l : mListeners) {
-            if (l.equals(listener)) {
-                continue;
-            }
-            l.onSnapshotChanged(file, content);
+    @Override
+    public void setSnapshotContent(@NonNull File file, String content, boolean notify) {
+        FileState state = setContents(file, Rope.of(content));
+        if (state == null) {
+            return;
+        }
+        if (notify) {
+            notifyListeners(file, state.getContents(), null);
         }
     }
 
     @Override
-    public void setSnapshotContent(@NonNull File file, String content, boolean notify) {
-        if (!mSnapshots.containsKey(file)) {
+    public void applySnapshotEdit(@NonNull File file,
+                                  int start,
+                                  int end,
+                                  @NonNull CharSequence text,
+                                  @Nullable FileListener listener) {
+        FileState state = mSnapshots.computeIfPresent(file, (f, current) -> {
+            Rope contents = current.getContents().replace(start, end, text);
+            if (contents == current.getContents()) {
+                return current;
+            }
+            return new FileState(contents, Instant.now());
+        });
+        if (state == null) {
             return;
         }
+        notifyListeners(file, state.getContents(), listener);
+    }
 
-        mSnapshots.computeIfPresent(file, (f, state) -> {
-            boolean equals = Objects.equals(content, state.getContents());
-            state.setContents(content);
-            if (!equals) {
-                state.setModified(Instant.now());
+    @Nullable
+    private FileState setContents(@NonNull File file, @NonNull Rope contents) {
+        return mSnapshots.computeIfPresent(file, (f, current) -> {
+            if (current.getContents().contentEquals(contents)) {
+                return new FileState(contents, current.getModified());
             }
-            return state;
+            return new FileState(contents, Instant.now());
         });
-        if (notify) {
-            for (FileListener listener : mListeners) {
-                listener.onSnapshotChanged(file, content);
+    }
+
+    private void notifyListeners(File file, CharSequence contents, FileListener ignored) {
+        for (FileListener l : mListeners) {
+            if (l.equals(ignored)) {
+                continue;
             }
+            l.onSnapshotChanged(file, contents);
         }
     }
 
     @Override
     public void closeFileForSnapshot(@NonNull File file) {
-        if (mSnapshots.containsKey(file)) {
-            if (file.exists()) {
-                try {
-                    FileState state = mSnapshots.get(file);
-                    FileUtils.writeStringToFile(file,
-                            state.getContents(),
-                            StandardCharsets.UTF_8);
-                } catch (IOException e) {
-                    Log.d(TAG, "Failed to save file " + file.getName(), e);
-                }
-            }
-            mSnapshots.remove(file);
+        FileState state = mSnapshots.remove(file);
+        if (state != null) {
+            scheduleSave(file, state.getContents());
         }
     }
 
     @Override
-    public synchronized void addSnapshotListener(FileListener listener) {
+    public void addSnapshotListener(FileListener listener) {
         mListeners.add(listener);
     }
 
     @Override
-    public synchronized void removeSnapshotListener(FileListener listener) {
+    public void removeSnapshotListener(FileListener listener) {
         mListeners.remove(listener);
     }
 
@@ -180,7 +202,10 @@ public class FileManagerImpl implements FileManager {
         if (state != null) {
             return Optional.of(state.getContents());
         }
-        return Optional.empty();
+        synchronized (mPendingSaves) {
+            // closed, but not yet written to disk
+            return Optional.ofNullable(mPendingSaves.get(file));
+        }
     }
 
     @Override
@@ -190,15 +215,49 @@ public class FileManagerImpl implements FileManager {
 
     @Override
     public void saveContents() {
-        mService.execute(() -> mSnapshots.forEach((k, v) -> {
-            try {
-                FileUtils.writeStringToFile(k,
-                                            v.getContents(), StandardCharsets.UTF_8);
-                Instant instant = Instant.ofEpochMilli(k.lastModified());
-                ThreadUtil.runOnUiThread(() -> setLastModified(k, instant));
-            } catch (IOException e) {
-                // ignored
+        mSnapshots.forEach((file, state) -> scheduleSave(file, state.getContents()));
+    }
+
+    /**
+     * Writes the contents to the file on the background thread. If a save of the file is already
+     * waiting, only its contents are replaced.
+     */
+    private void scheduleSave(File file, Rope contents) {
+        synchronized (mPendingSaves) {
+            if (mPendingSaves.put(file, contents) != null) {
+                return;
             }
-        }));
+        }
+        mService.execute(() -> save(file));
+    }
+
+    private void save(File file) {
+        Rope contents;
+        synchronized (mPendingSaves) {
+            contents = mPendingSaves.get(file);
+        }
+        if (contents == null) {
+            return;
+        }
+        try {
+            // a deleted file is not created again
+            if (file.exists()) {
+                FileUtils.writeStringToFile(file, contents.toString(), StandardCharsets.UTF_8);
+                Instant instant = Instant.ofEpochMilli(file.lastModified());
+                mMainExecutor.execute(() -> setLastModified(file, instant));
+            }
+        } catch (IOException e) {
+            Log.d(TAG, "Failed to save file " + file.getName(), e);
+        } finally {
+            synchronized (mPendingSaves) {
+                // keep newer contents which were scheduled while writing, and save them again
+                if (mPendingSaves.remove(file, contents)) {
+                    contents = null;
+                }
+            }
+            if (contents != null) {
+                mService.execute(() -> save(file));
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,297 @@
+package com.tyron.builder.project.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * An immutable {@link CharSequence} stored as a balanced tree of small strings.
+ *
+ * <p>Replacing a range returns a new rope which shares every unchanged part of the tree with
+ * this one, so an edit costs O(log n) instead of copying the whole text. As a rope never changes,
+ * it can be handed to a background thread as a snapshot of the text without copying it.</p>
+ *
+ * <p>{@link #toString()} builds the string once and keeps it, every later call of this rope
+ * returns the same instance.</p>
+ */
+public final class Rope implements CharSequence {
+
+    /**
+     * The maximum length of a leaf, adjacent leaves shorter than this are merged when joined
+     */
+    private static final int MAX_LEAF_LENGTH = 512;
+
+    private static final Rope EMPTY = new Rope(new Leaf(""));
+
+    private final Node mRoot;
+    private volatile String mString;
+
+    private Rope(Node root) {
+        mRoot = root;
+    }
+
+    @NonNull
+    public static Rope empty() {
+        return EMPTY;
+    }
+
+    @NonNull
+    public static Rope of(@NonNull CharSequence text) {
+        if (text instanceof Rope) {
+            return (Rope) text;
+        }
+        if (text.length() == 0) {
+            return EMPTY;
+        }
+        Rope rope = new Rope(build(text.toString()));
+        if (text instanceof String) {
+            rope.mString = (String) text;
+        }
+        return rope;
+    }
+
+    /**
+     * @return a rope with the characters from {@code start} (inclusive) to {@code end}
+     * (exclusive) replaced by the given text
+     */
+    @NonNull
+    public Rope replace(int start, int end, @NonNull CharSequence text) {
+        checkRange(start, end, length());
+        if (start == end && text.length() == 0) {
+            return this;
+        }
+        Node[] head = split(mRoot, start);
+        Node[] tail = split(head[1], end - start);
+        Node inserted = text instanceof Rope ? ((Rope) text).mRoot : build(text.toString());
+        Node root = join(join(head[0], inserted), tail[1]);
+        return root.length == 0 ? EMPTY : new Rope(root);
+    }
+
+    @NonNull
+    public Rope insert(int index, @NonNull CharSequence text) {
+        return replace(index, index, text);
+    }
+
+    @NonNull
+    public Rope delete(int start, int end) {
+        return replace(start, end, "");
+    }
+
+    @Override
+    public int length() {
+        return mRoot.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= mRoot.length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + mRoot.length);
+        }
+        String string = mString;
+        if (string != null) {
+            return string.charAt(index);
+        }
+        Node node = mRoot;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < branch.left.length) {
+                node = branch.left;
+            } else {
+                index -= branch.left.length;
+                node = branch.right;
+            }
+        }
+        return ((Leaf) node).text.charAt(index);
+    }
+
+    @NonNull
+    @Override
+    public Rope subSequence(int start, int end) {
+        checkRange(start, end, length());
+        if (start == 0 && end == length()) {
+            return this;
+        }
+        Node[] head = split(mRoot, start);
+        Node[] middle = split(head[1], end - start);
+        return middle[0].length == 0 ? EMPTY : new Rope(middle[0]);
+    }
+
+    /**
+     * @return whether this rope has the same characters as the given sequence, without building
+     * the string of this rope
+     */
+    public boolean contentEquals(@NonNull CharSequence other) {
+        if (other == this) {
+            return true;
+        }
+        if (other.length() != length()) {
+            return false;
+        }
+        String string = mString;
+        if (string != null) {
+            return string.contentEquals(other);
+        }
+        return contentEquals(mRoot, other, 0);
+    }
+
+    private static boolean contentEquals(Node node, CharSequence other, int offset) {
+        if (node instanceof Leaf) {
+            String text = ((Leaf) node).text;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != other.charAt(offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        Branch branch = (Branch) node;
+        return contentEquals(branch.left, other, offset) &&
+               contentEquals(branch.right, other, offset + branch.left.length);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        String string = mString;
+        if (string == null) {
+            StringBuilder builder = new StringBuilder(mRoot.length);
+            append(mRoot, builder);
+            string = builder.toString();
+            mString = string;
+        }
+        return string;
+    }
+
+    private static void append(Node node, StringBuilder builder) {
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            append(branch.left, builder);
+            node = branch.right;
+        }
+        builder.append(((Leaf) node).text);
+    }
+
+    private static void checkRange(int start, int end, int length) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "start " + start + ", end " + end + ", length " + length);
+        }
+    }
+
+    /**
+     * Builds a balanced tree of leaves of at most {@link #MAX_LEAF_LENGTH} characters
+     */
+    private static Node build(String text) {
+        if (text.length() <= MAX_LEAF_LENGTH) {
+            return new Leaf(text);
+        }
+        return build(text, 0, text.length());
+    }
+
+    private static Node build(String text, int start, int end) {
+        if (end - start <= MAX_LEAF_LENGTH) {
+            return new Leaf(text.substring(start, end));
+        }
+        int middle = (start + end) >>> 1;
+        return new Branch(build(text, start, middle), build(text, middle, end));
+    }
+
+    /**
+     * Splits the tree at the given index, the characters before it end up in the first node
+     */
+    private static Node[] split(Node node, int index) {
+        if (index == 0) {
+            return new Node[]{EMPTY.mRoot, node};
+        }
+        if (index == node.length) {
+            return new Node[]{node, EMPTY.mRoot};
+        }
+        if (node instanceof Leaf) {
+            String text = ((Leaf) node).text;
+            return new Node[]{new Leaf(text.substring(0, index)), new Leaf(text.substring(index))};
+        }
+        Branch branch = (Branch) node;
+        if (index < branch.left.length) {
+            Node[] split = split(branch.left, index);
+            return new Node[]{split[0], join(split[1], branch.right)};
+        }
+        Node[] split = split(branch.right, index - branch.left.length);
+        return new Node[]{join(branch.left, split[0]), split[1]};
+    }
+
+    /**
+     * Concatenates two balanced trees into a balanced tree, in time proportional to the
+     * difference of their heights.
+     */
+    private static Node join(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf &&
+            left.length + right.length <= MAX_LEAF_LENGTH) {
+            return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+        }
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left),
+                              new Branch(inner.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left),
+                              new Branch(inner.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int height;
+
+        Node(int length, int height) {
+            this.length = length;
+            this.height = height;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final String text;
+
+        Leaf(String text) {
+            super(text.length(), 0);
+            this.text = text;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
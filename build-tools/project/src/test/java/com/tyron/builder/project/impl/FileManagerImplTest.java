@@ -0,0 +1,88 @@
+package com.tyron.builder.project.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+public class FileManagerImplTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Saves only run when the test runs them
+     */
+    private final Queue<Runnable> mSaves = new ArrayDeque<>();
+
+    private FileManagerImpl mFileManager;
+    private File mFile;
+
+    @Before
+    public void setup() throws IOException {
+        mFileManager = new FileManagerImpl(temporaryFolder.getRoot(), mSaves::add, Runnable::run);
+        mFile = temporaryFolder.newFile("Main.java");
+        write("disk");
+    }
+
+    @Test
+    public void testCloseThenReopen() throws IOException {
+        mFileManager.openFileForSnapshot(mFile, mFileManager.readFileContent(mFile).toString());
+        mFileManager.setSnapshotContent(mFile, "first edit");
+        mFileManager.closeFileForSnapshot(mFile);
+        assertFalse(mFileManager.isOpened(mFile));
+
+        // reopened before the save ran
+        assertEquals("disk", read());
+        String contents = mFileManager.readFileContent(mFile).toString();
+        assertEquals("first edit", contents);
+        mFileManager.openFileForSnapshot(mFile, contents);
+        mFileManager.setSnapshotContent(mFile, "second edit");
+        mFileManager.closeFileForSnapshot(mFile);
+
+        runSaves();
+        assertEquals("second edit", read());
+        assertEquals("second edit", mFileManager.readFileContent(mFile).toString());
+        assertFalse(mFileManager.getFileContent(mFile).isPresent());
+    }
+
+    @Test
+    public void testPendingSaveIsWrittenOnce() throws IOException {
+        mFileManager.openFileForSnapshot(mFile, "disk");
+        mFileManager.setSnapshotContent(mFile, "first edit");
+        mFileManager.saveContents();
+        mFileManager.setSnapshotContent(mFile, "second edit");
+        mFileManager.saveContents();
+        assertEquals(1, mSaves.size());
+
+        runSaves();
+        assertEquals("second edit", read());
+        assertTrue(mFileManager.isOpened(mFile));
+    }
+
+    private void runSaves() {
+        Runnable save;
+        while ((save = mSaves.poll()) != null) {
+            save.run();
+        }
+    }
+
+    private void write(String contents) throws IOException {
+        Files.write(mFile.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(mFile.toPath()), StandardCharsets.UTF_8);
+    }
+}
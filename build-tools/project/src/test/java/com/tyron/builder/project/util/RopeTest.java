@@ -0,0 +1,79 @@
+package com.tyron.builder.project.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class RopeTest {
+
+    @Test
+    public void testReplace() {
+        Rope rope = Rope.of("Hello World");
+        Rope replaced = rope.replace(6, 11, "Rope");
+        assertEquals("Hello Rope", replaced.toString());
+        // the original is not changed
+        assertEquals("Hello World", rope.toString());
+
+        assertEquals("Hello, World", rope.insert(5, ",").toString());
+        assertEquals("World", rope.delete(0, 6).toString());
+        assertEquals("", rope.delete(0, rope.length()).toString());
+    }
+
+    @Test
+    public void testSubSequence() {
+        Rope rope = Rope.of(repeat("0123456789", 300));
+        CharSequence subSequence = rope.subSequence(1234, 2345);
+        assertEquals(rope.toString().substring(1234, 2345), subSequence.toString());
+        assertSame(rope, rope.subSequence(0, rope.length()));
+    }
+
+    @Test
+    public void testContentEquals() {
+        String text = repeat("abc", 1000);
+        Rope rope = Rope.of(text).insert(1500, "x").delete(1500, 1501);
+        assertTrue(rope.contentEquals(text));
+        assertFalse(rope.contentEquals(text.replace('b', 'c')));
+        assertFalse(rope.contentEquals(text + "a"));
+    }
+
+    @Test
+    public void testToStringIsCached() {
+        Rope rope = Rope.of(repeat("a", 2000)).insert(1000, "b");
+        assertSame(rope.toString(), rope.toString());
+    }
+
+    @Test
+    public void testRandomEdits() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder(repeat("line of text\n", 500));
+        Rope rope = Rope.of(expected.toString());
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = Math.min(expected.length(), start + random.nextInt(20));
+            String text = random.nextInt(4) == 0 ? "" : repeat("x", random.nextInt(30));
+            if (random.nextInt(100) == 0) {
+                // an occasional large paste
+                text = repeat("pasted\n", 200);
+            }
+            expected.replace(start, end, text);
+            rope = rope.replace(start, end, text);
+            assertEquals(expected.length(), rope.length());
+            int index = random.nextInt(expected.length());
+            assertEquals(expected.charAt(index), rope.charAt(index));
+        }
+        assertEquals(expected.toString(), rope.toString());
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -24,6 +24,7 @@ import com.tyron.builder.internal.snapshot.DirectorySnapshotBuilder;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.nio.file.FileSystemLoopException;
 import java.nio.file.FileVisitOption;
@@ -33,12 +34,17 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -72,12 +78,28 @@ public class DirectorySnapshotter {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final Executor hashingExecutor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter which hashes the contents of regular files on the given executor.
+     *
+     * The directory walk itself stays on the calling thread, while every builder operation is recorded in walk order
+     * and replayed once the pending hashes are available. The resulting snapshots are therefore identical to the ones
+     * created by the sequential walker, only the file hashing is spread across the threads of the executor.
+     *
+     * @param hashingExecutor The executor to hash file contents on, or {@code null} to hash on the walking thread.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable Executor hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.hashingExecutor = hashingExecutor;
     }
 
     /**
@@ -100,7 +122,7 @@ public class DirectorySnapshotter {
     public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, final AtomicBoolean hasBeenFiltered, Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer) {
         try {
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer, hashingExecutor);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             return visitor.getResult();
         } catch (IOException e) {
@@ -237,6 +259,14 @@ public class DirectorySnapshotter {
         private final Deque<String> parentDirectories = new ArrayDeque<>();
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer;
+        @Nullable
+        private final Executor hashingExecutor;
+        /**
+         * The builder operations recorded while walking, in walk order.
+         * Only used when hashing happens on {@link #hashingExecutor}, {@code null} otherwise.
+         */
+        @Nullable
+        private final List<Runnable> pendingOperations;
 
         public PathVisitor(
                 @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
@@ -246,7 +276,8 @@ public class DirectorySnapshotter {
                 DefaultExcludes defaultExcludes,
                 DirectorySnapshotterStatistics.Collector statisticsCollector,
                 SymbolicLinkMapping symbolicLinkMapping,
-                Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer
+                Consumer<FileSystemLocationSnapshot> unfilteredSnapshotConsumer,
+                @Nullable Executor hashingExecutor
         ) {
             super(statisticsCollector);
             this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::consumeUnfilteredSnapshot);
@@ -257,6 +288,20 @@ public class DirectorySnapshotter {
             this.defaultExcludes = defaultExcludes;
             this.symbolicLinkMapping = symbolicLinkMapping;
             this.unfilteredSnapshotConsumer = unfilteredSnapshotConsumer;
+            this.hashingExecutor = hashingExecutor;
+            this.pendingOperations = hashingExecutor == null ? null : new ArrayList<>();
+        }
+
+        /**
+         * Runs the given builder operation, or records it to be replayed by {@link #getResult()}
+         * when file hashes are computed asynchronously.
+         */
+        private void withBuilder(Runnable operation) {
+            if (pendingOperations == null) {
+                operation.run();
+            } else {
+                pendingOperations.add(operation);
+            }
         }
 
         private void consumeUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
@@ -274,7 +319,8 @@ public class DirectorySnapshotter {
             String fileName = getInternedFileName(dir);
             pathTracker.enter(fileName);
             if (shouldVisitDirectory(dir, fileName)) {
-                builder.enterDirectory(AccessType.DIRECT, intern(symbolicLinkMapping.remapAbsolutePath(dir)), fileName, DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS);
+                String internedAbsolutePath = intern(symbolicLinkMapping.remapAbsolutePath(dir));
+                withBuilder(() -> builder.enterDirectory(AccessType.DIRECT, internedAbsolutePath, fileName, DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS));
                 parentDirectories.addFirst(dir.toString());
                 return FileVisitResult.CONTINUE;
             } else {
@@ -292,11 +338,13 @@ public class DirectorySnapshotter {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
-            boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
-            FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
-            if (!currentLevelComplete) {
-                filteredDirectorySnapshots.add(currentLevel);
-            }
+            withBuilder(() -> {
+                boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
+                FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
+                if (!currentLevelComplete) {
+                    filteredDirectorySnapshots.add(currentLevel);
+                }
+            });
             parentDirectories.removeFirst();
             return FileVisitResult.CONTINUE;
         }
@@ -319,11 +367,15 @@ public class DirectorySnapshotter {
                                     targetSnapshot.getHash(),
                                     targetSnapshot.getChildren()
                             );
-                            builder.visitDirectory(directorySnapshotAccessedViaSymlink);
                             boolean symlinkFiltered = symlinkHasBeenFiltered.get();
+                            withBuilder(() -> {
+                                builder.visitDirectory(directorySnapshotAccessedViaSymlink);
+                                if (symlinkFiltered) {
+                                    filteredDirectorySnapshots.add(directorySnapshotAccessedViaSymlink);
+                                    builder.markCurrentLevelAsFiltered();
+                                }
+                            });
                             if (symlinkFiltered) {
-                                filteredDirectorySnapshots.add(directorySnapshotAccessedViaSymlink);
-                                builder.markCurrentLevelAsFiltered();
                                 hasBeenFiltered.set(true);
                             }
                         }
@@ -353,7 +405,8 @@ public class DirectorySnapshotter {
                             defaultExcludes,
                             collector,
                             symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
-                            unfilteredSnapshotConsumer);
+                            unfilteredSnapshotConsumer,
+                            hashingExecutor);
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
                 } else {
@@ -371,7 +424,12 @@ public class DirectorySnapshotter {
         private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes, AccessType accessType) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisitFile(file, internedName)) {
-                builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                if (pendingOperations == null) {
+                    builder.visitLeafElement(snapshotFile(file, internedName, targetAttributes, accessType));
+                } else {
+                    FutureTask<FileSystemLeafSnapshot> snapshot = submitSnapshotFile(file, internedName, targetAttributes, accessType);
+                    pendingOperations.add(() -> builder.visitLeafElement(getSnapshot(file, snapshot)));
+                }
             }
         }
 
@@ -393,6 +451,40 @@ public class DirectorySnapshotter {
             }
         }
 
+        private FutureTask<FileSystemLeafSnapshot> submitSnapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
+            assert hashingExecutor != null;
+            FutureTask<FileSystemLeafSnapshot> task = new FutureTask<>(() -> snapshotFile(absoluteFilePath, internedName, attrs, accessType));
+            if (attrs.isRegularFile() && !attrs.isSymbolicLink()) {
+                hashingExecutor.execute(task);
+            } else {
+                // Nothing to hash, fail or create the snapshot right away
+                task.run();
+            }
+            return task;
+        }
+
+        private static FileSystemLeafSnapshot getSnapshot(Path file, FutureTask<FileSystemLeafSnapshot> snapshot) {
+            // Hash on the replaying thread if no worker picked up the task yet, this is a no-op otherwise
+            snapshot.run();
+            try {
+                return snapshot.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException(String.format("Interrupted while hashing '%s'.", file)));
+            } catch (CancellationException e) {
+                throw new UncheckedIOException(new InterruptedIOException(String.format("Hashing '%s' was cancelled.", file)));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new UncheckedIOException(new IOException(String.format("Could not hash '%s'.", file), cause));
+            }
+        }
+
         private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs, AccessType accessType) {
             String internedRemappedAbsoluteFilePath = intern(symbolicLinkMapping.remapAbsolutePath(absoluteFilePath));
             if (attrs.isSymbolicLink()) {
@@ -455,7 +547,7 @@ public class DirectorySnapshotter {
             }
             boolean allowed = predicate.test(path, internedName, isDirectory, symbolicLinkMapping.getRemappedSegments(pathTracker.getSegments()));
             if (!allowed) {
-                builder.markCurrentLevelAsFiltered();
+                withBuilder(builder::markCurrentLevelAsFiltered);
                 hasBeenFiltered.set(true);
             }
             return allowed;
@@ -467,6 +559,15 @@ public class DirectorySnapshotter {
         }
 
         public FileSystemLocationSnapshot getResult() {
+            if (pendingOperations != null) {
+                try {
+                    for (Runnable operation : pendingOperations) {
+                        operation.run();
+                    }
+                } finally {
+                    pendingOperations.clear();
+                }
+            }
             return builder.getResult();
         }
     }
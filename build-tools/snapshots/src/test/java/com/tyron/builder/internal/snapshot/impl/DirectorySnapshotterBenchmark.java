@@ -0,0 +1,112 @@
+package com.tyron.builder.internal.snapshot.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interners;
+import com.tyron.builder.internal.hash.DefaultFileHasher;
+import com.tyron.builder.internal.hash.DefaultStreamHasher;
+import com.tyron.builder.internal.snapshot.FileSystemLocationSnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Snapshots a synthetic tree of 200k files with the sequential and the parallel walker. Only
+ * runs with {@code -Pbenchmark}.
+ */
+public class DirectorySnapshotterBenchmark {
+
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int ROUNDS = 5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void benchmarkLargeTree() throws IOException {
+        File root = temporaryFolder.newFolder("large");
+        // (1 + 20 + 20 * 20) directories * 475 files = 199 975 files
+        createTree(root, 3, 20, 475);
+
+        assertEquals(snapshot(root, null).getHash(), snapshot(root, executor).getHash());
+
+        long sequential = measure(root, null);
+        long parallel = measure(root, executor);
+
+        System.out.printf("snapshot of 199975 files, median of %d rounds: sequential %d ms, " +
+                          "parallel %d ms (%d threads)%n",
+                ROUNDS, sequential / 1_000_000, parallel / 1_000_000,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return the median time in nanoseconds to snapshot the tree
+     */
+    private static long measure(File root, ExecutorService executor) {
+        long[] times = new long[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            snapshot(root, executor);
+            long time = System.nanoTime() - start;
+            if (round >= 0) {
+                times[round] = time;
+            }
+        }
+        Arrays.sort(times);
+        return times[ROUNDS / 2];
+    }
+
+    private static FileSystemLocationSnapshot snapshot(File root, ExecutorService executor) {
+        // a new snapshotter every time, so no round reuses the hashes of another
+        DirectorySnapshotter snapshotter = new DirectorySnapshotter(
+                new DefaultFileHasher(new DefaultStreamHasher()),
+                Interners.newStrongInterner(),
+                ImmutableList.of(),
+                new DirectorySnapshotterStatistics.Collector(),
+                executor
+        );
+        return snapshotter.snapshot(root.getAbsolutePath(), null, new AtomicBoolean(), it -> {});
+    }
+
+    private static void createTree(File dir, int depth, int directories, int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            File file = new File(dir, "file" + i + ".txt");
+            Files.write(file.toPath(), (file.getPath() + i).getBytes(StandardCharsets.UTF_8));
+        }
+        if (depth <= 1) {
+            return;
+        }
+        for (int i = 0; i < directories; i++) {
+            File child = new File(dir, "dir" + i);
+            if (!child.mkdirs()) {
+                throw new IOException("Unable to create " + child);
+            }
+            createTree(child, depth - 1, directories, files);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tyron.builder.internal.snapshot.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interners;
+import com.tyron.builder.internal.file.FileType;
+import com.tyron.builder.internal.hash.DefaultFileHasher;
+import com.tyron.builder.internal.hash.DefaultStreamHasher;
+import com.tyron.builder.internal.snapshot.FileSystemLocationSnapshot;
+import com.tyron.builder.internal.snapshot.SnapshotVisitResult;
+import com.tyron.builder.internal.snapshot.SnapshottingFilter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DirectorySnapshotterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testParallelSnapshotMatchesSequential() throws IOException {
+        File root = temporaryFolder.newFolder("root");
+        createTree(root, 3, 4, 5);
+        new File(root, "empty").mkdirs();
+
+        FileSystemLocationSnapshot sequential = snapshot(root, null, null);
+        FileSystemLocationSnapshot parallel = snapshot(root, null, executor);
+
+        assertEquals(sequential.getHash(), parallel.getHash());
+        assertEquals(describe(sequential), describe(parallel));
+    }
+
+    @Test
+    public void testParallelFilteredSnapshotMatchesSequential() throws IOException {
+        File root = temporaryFolder.newFolder("root");
+        createTree(root, 3, 3, 6);
+
+        SnapshottingFilter.DirectoryWalkerPredicate predicate =
+                (path, name, isDirectory, relativePath) -> isDirectory || !name.startsWith("file1");
+        List<String> sequentialUnfiltered = new ArrayList<>();
+        List<String> parallelUnfiltered = new ArrayList<>();
+        AtomicBoolean sequentialFiltered = new AtomicBoolean();
+        AtomicBoolean parallelFiltered = new AtomicBoolean();
+
+        FileSystemLocationSnapshot sequential = newSnapshotter(null)
+                .snapshot(root.getAbsolutePath(), predicate, sequentialFiltered, it -> sequentialUnfiltered.add(it.getAbsolutePath()));
+        FileSystemLocationSnapshot parallel = newSnapshotter(executor)
+                .snapshot(root.getAbsolutePath(), predicate, parallelFiltered, it -> parallelUnfiltered.add(it.getAbsolutePath()));
+
+        assertEquals(sequentialFiltered.get(), parallelFiltered.get());
+        assertEquals(sequentialUnfiltered, parallelUnfiltered);
+        assertEquals(sequential.getHash(), parallel.getHash());
+        assertEquals(describe(sequential), describe(parallel));
+    }
+
+    @Test
+    public void testParallelSnapshotOfLargeTree() throws IOException {
+        File root = temporaryFolder.newFolder("large");
+        // (1 + 10 + 10 * 10) directories * 60 files = 6660 files
+        createTree(root, 3, 10, 60);
+
+        FileSystemLocationSnapshot sequential = snapshot(root, null, null);
+        FileSystemLocationSnapshot parallel = snapshot(root, null, executor);
+
+        assertEquals(sequential.getHash(), parallel.getHash());
+        List<String> entries = describe(parallel);
+        assertEquals(describe(sequential), entries);
+        assertEquals(6660, entries.stream().filter(it -> it.startsWith(FileType.RegularFile.name())).count());
+    }
+
+    private FileSystemLocationSnapshot snapshot(File root, SnapshottingFilter.DirectoryWalkerPredicate predicate, ExecutorService executor) {
+        return newSnapshotter(executor).snapshot(root.getAbsolutePath(), predicate, new AtomicBoolean(), it -> {});
+    }
+
+    private static DirectorySnapshotter newSnapshotter(ExecutorService executor) {
+        return new DirectorySnapshotter(
+                new DefaultFileHasher(new DefaultStreamHasher()),
+                Interners.newStrongInterner(),
+                ImmutableList.of(),
+                new DirectorySnapshotterStatistics.Collector(),
+                executor
+        );
+    }
+
+    private static List<String> describe(FileSystemLocationSnapshot snapshot) {
+        List<String> entries = new ArrayList<>();
+        snapshot.accept(entry -> {
+            entries.add(entry.getType() + " " + entry.getAbsolutePath() + " " + entry.getHash());
+            return SnapshotVisitResult.CONTINUE;
+        });
+        return entries;
+    }
+
+    private static void createTree(File dir, int depth, int directories, int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            File file = new File(dir, "file" + i + ".txt");
+            Files.write(file.toPath(), (file.getPath() + i).getBytes(StandardCharsets.UTF_8));
+        }
+        if (depth <= 1) {
+            return;
+        }
+        for (int i = 0; i < directories; i++) {
+            File child = new File(dir, "dir" + i);
+            if (!child.mkdirs()) {
+                throw new IOException("Unable to create " + child);
+            }
+            createTree(child, depth - 1, directories, files);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.tyron.xml.completion.repository;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -33,15 +34,19 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 
-import jdk.internal.org.jline.utils.Colors;
 
 public class SimpleResourceRepository implements Repository {
 
@@ -62,12 +67,23 @@ public class SimpleResourceRepository implements Repository {
         sParsers = parsers.build();
     }
 
+    /**
+     * The maximum number of resource files parsed at the same time.
+     */
+    private static final int MAX_PARSE_THREADS = 4;
+
     private final Logger logger = IdeLog.getCurrentLogger(this);
 
     private final File mResDir;
     private final ResourceNamespace mNamespace;
     protected final ResourceTable mTable = new ResourceTable();
     protected final Multimap<File, ResourceItem> mFileItems = ArrayListMultimap.create();
+    private final Map<File, FileOrigin> mFileOrigins = new HashMap<>();
+    /**
+     * The size and modification time of files whose items were parsed from disk, files updated
+     * with the contents of an editor are not in here.
+     */
+    private final Map<File, FileStamp> mFileStamps = new HashMap<>();
 
     private FolderConfiguration mConfiguration;
 
@@ -83,7 +99,14 @@ public class SimpleResourceRepository implements Repository {
         parse(mResDir, mNamespace, null);
     }
 
+    /**
+     * Parses the resource files of the given directory. The files are read and parsed
+     * concurrently on a bounded pool, the results are then added to the table on the calling
+     * thread in the order the files are listed so the table does not depend on which parse
+     * finished first.
+     */
     protected void parse(File resDir, ResourceNamespace namespace, String name) throws IOException {
+        List<ParseRequest> requests = new ArrayList<>();
         Collection<File> dirs = FileUtils.listFilesAndDirs(resDir, FalseFileFilter.INSTANCE,
                                                            TrueFileFilter.INSTANCE);
         for (File dir : dirs) {
@@ -96,13 +119,50 @@ public class SimpleResourceRepository implements Repository {
             Collection<File> xmlFiles =
                     FileUtils.listFiles(dir, TrueFileFilter.INSTANCE, FalseFileFilter.INSTANCE);
             for (File xmlFile : xmlFiles) {
-                try {
-                    String contents = FileUtils.readFileToString(xmlFile, StandardCharsets.UTF_8);
-                    parseFile(parser, xmlFile, contents, dir.getName(), namespace, name);
-                } catch (IOException e) {
-                    logger.warning("Unable to parse " + xmlFile.getName() + ": " + e.getMessage());
-                }
+                requests.add(new ParseRequest(parser, xmlFile, dir.getName(),
+                                              new FileOrigin(namespace, name)));
+            }
+        }
+
+        int threads = Math.min(MAX_PARSE_THREADS, Runtime.getRuntime().availableProcessors());
+        if (requests.size() < 2 || threads < 2) {
+            for (ParseRequest request : requests) {
+                addValues(request, parseQuietly(request));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<ResourceValue>>> futures = new ArrayList<>(requests.size());
+            for (ParseRequest request : requests) {
+                futures.add(executor.submit(() -> parseQuietly(request)));
             }
+            for (int i = 0; i < requests.size(); i++) {
+                addValues(requests.get(i), futures.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + resDir, e);
+        } catch (ExecutionException e) {
+            // parseQuietly() only lets unchecked exceptions through
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private List<ResourceValue> parseQuietly(@NotNull ParseRequest request) {
+        try {
+            request.stamp = FileStamp.of(request.file);
+            String contents = FileUtils.readFileToString(request.file, StandardCharsets.UTF_8);
+            return request.parser.parse(request.file, contents, request.origin.namespace,
+                                        request.origin.libraryName);
+        } catch (IOException e) {
+            logger.warning("Unable to parse " + request.file.getName() + ": " + e.getMessage());
+            return Collections.emptyList();
         }
     }
 
@@ -115,31 +175,47 @@ public class SimpleResourceRepository implements Repository {
         return sParsers.get(folderType);
     }
 
-    private void parseFile(@NotNull ResourceParser parser,
-                           @NotNull File xmlFile,
-                           @Nullable String contents,
-                           @NotNull String folderName,
-                           @NotNull ResourceNamespace namespace,
-                           @Nullable String libraryName) throws IOException {
-        List<ResourceValue> values = parser.parse(xmlFile, contents, namespace, libraryName);
+    private void addValues(@NotNull ParseRequest request, @NotNull List<ResourceValue> values) {
+        mFileOrigins.put(request.file, request.origin);
+        if (request.stamp != null) {
+            mFileStamps.put(request.file, request.stamp);
+        }
         for (ResourceValue value : values) {
             ListMultimap<String, ResourceItem> tableValue =
                     mTable.getOrPutEmpty(value.getNamespace(), value.getResourceType());
-            SimpleResourceItem resourceItem = new SimpleResourceItem(value, folderName);
+            SimpleResourceItem resourceItem = new SimpleResourceItem(value, request.folderName);
             tableValue.put(value.getName(), resourceItem);
 
-            mFileItems.put(xmlFile, resourceItem);
+            mFileItems.put(request.file, resourceItem);
+        }
+    }
+
+    /**
+     * Re-parses the given file from disk, replacing only the items it contributed before. Files
+     * which no longer exist have their items removed, files with the same size and modification
+     * time as when they were last parsed from disk are skipped.
+     */
+    public void updateFile(@NotNull File file) throws IOException {
+        if (!file.isFile()) {
+            removeFile(file);
+            return;
+        }
+        FileStamp stamp = FileStamp.of(file);
+        if (stamp.equals(mFileStamps.get(file))) {
+            return;
         }
+        String contents = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        updateFile(file, contents, stamp);
     }
 
     @Override
     public void updateFile(@NotNull File file, @Nullable String contents) throws IOException {
-        Collection<ResourceItem> existingItems = mFileItems.get(file);
-        if (existingItems != null) {
-            existingItems.stream()
-                    .filter(Objects::nonNull)
-                    .forEach(mTable::remove);
-        }
+        updateFile(file, contents, null);
+    }
+
+    private void updateFile(@NotNull File file, @Nullable String contents,
+                            @Nullable FileStamp stamp) throws IOException {
+        FileOrigin origin = removeFile(file);
 
         File parent = file.getParentFile();
         if (parent == null) {
@@ -152,7 +228,29 @@ public class SimpleResourceRepository implements Repository {
             return;
         }
 
-        parseFile(parser, file, contents, parent.getName(), mNamespace, null);
+        if (origin == null) {
+            // a new file, assume it belongs to this repository
+            origin = new FileOrigin(mNamespace, null);
+        }
+        ParseRequest request = new ParseRequest(parser, file, parent.getName(), origin);
+        request.stamp = stamp;
+        addValues(request, parser.parse(file, contents, origin.namespace, origin.libraryName));
+    }
+
+    /**
+     * Removes the items contributed by the given file.
+     *
+     * @return where the file came from, or null if it was not parsed before
+     */
+    @Nullable
+    private FileOrigin removeFile(@NotNull File file) {
+        for (ResourceItem item : mFileItems.removeAll(file)) {
+            if (item != null) {
+                mTable.remove(item);
+            }
+        }
+        mFileStamps.remove(file);
+        return mFileOrigins.remove(file);
     }
 
     @NotNull
@@ -346,4 +444,68 @@ public class SimpleResourceRepository implements Repository {
         }
         throw new IllegalArgumentException("Unknown color");
     }
+
+    /**
+     * The namespace and library a parsed file belongs to, so it is parsed the same way when it
+     * is updated.
+     */
+    private static class FileOrigin {
+        private final ResourceNamespace namespace;
+        private final String libraryName;
+
+        private FileOrigin(ResourceNamespace namespace, String libraryName) {
+            this.namespace = namespace;
+            this.libraryName = libraryName;
+        }
+    }
+
+    private static class ParseRequest {
+        private final ResourceParser parser;
+        private final File file;
+        private final String folderName;
+        private final FileOrigin origin;
+        /**
+         * Set when the file is read from disk
+         */
+        private FileStamp stamp;
+
+        private ParseRequest(ResourceParser parser, File file, String folderName,
+                             FileOrigin origin) {
+            this.parser = parser;
+            this.file = file;
+            this.folderName = folderName;
+            this.origin = origin;
+        }
+    }
+
+    private static class FileStamp {
+        private final long length;
+        private final long lastModified;
+
+        private FileStamp(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private static FileStamp of(File file) {
+            return new FileStamp(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp that = (FileStamp) o;
+            return length == that.length && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(length, lastModified);
+        }
+    }
 }
@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +24,11 @@ public class DOMUtils {
     private static final String RESOLVER_KEY = "uriResolver";
     private static final String NAMESPACE_KEY = "namespace";
 
-    private static final WeakHashMap<DOMNode, Map<String, Object>> sUserDataHolder = new WeakHashMap<>();
+    /**
+     * Synchronized, resource files are parsed concurrently.
+     */
+    private static final Map<DOMNode, Map<String, Object>> sUserDataHolder =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
     public static List<DOMElement> findElementsWithTagName(DOMElement element, String tagName) {
         List<DOMElement> elements = new ArrayList<>();
@@ -148,11 +153,8 @@ public class DOMUtils {
     }
 
     public static void putUserData(@NotNull DOMNode node, @NotNull String key, Object value) {
-        sUserDataHolder.computeIfAbsent(node, it -> new HashMap<>());
-        Map<String, Object> map = sUserDataHolder.get(node);
-        if (map != null) {
-            map.put(key, value);
-        }
+        Map<String, Object> map = sUserDataHolder.computeIfAbsent(node, it -> new HashMap<>());
+        map.put(key, value);
     }
 
     public static void setNamespace(DOMDocument document, ResourceNamespace namespace) {
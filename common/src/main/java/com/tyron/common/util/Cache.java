@@ -5,12 +5,22 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-/** Cache maps a file + an arbitrary key to a value. When the file is modified, the mapping expires. */
+/**
+ * Cache maps a file + an arbitrary key to a value. When the file is modified, the mapping expires.
+ *
+ * <p>A cache created with a maximum size evicts the least recently used mappings once it holds
+ * more than that, a cache created without one keeps every mapping until it is removed. Caches
+ * used to remember what a build produced must be unbounded, evicting a mapping there loses track
+ * of an output.</p>
+ */
 public class Cache<K, V> {
     public static class Key<K> {
         public final Path file;
@@ -43,58 +53,190 @@ public class Cache<K, V> {
         }
     }
 
-    private final Map<Key<K>, Value> map = new HashMap<>();
+    private final int maximumSize;
+    private final Map<Key<K>, Value> map;
+    private final Map<Path, Set<Key<K>>> fileKeys = new HashMap<>();
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a cache which never evicts its mappings.
+     */
+    public Cache() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache which evicts the least recently used mappings once it holds more than
+     * {@code maximumSize} of them.
+     */
+    public Cache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.map = new LinkedHashMap<Key<K>, Value>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key<K>, Value> eldest) {
+                if (size() <= Cache.this.maximumSize) {
+                    return false;
+                }
+                removeFileKey(eldest.getKey());
+                evictionCount++;
+                return true;
+            }
+        };
+    }
 
     public boolean has(Path file, K k) {
         return !needs(file, k);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         map.clear();
+        fileKeys.clear();
+    }
+
+    public synchronized boolean needs(Path file, K k) {
+        return getValid(file, k) == null;
     }
 
-    public boolean needs(Path file, K k) {
+    /**
+     * Looks up a mapping and checks that it did not expire in a single step, unlike
+     * {@link #needs(Path, Object)} followed by {@link #get(Path, Object)}, between which the
+     * mapping may be evicted by another thread.
+     *
+     * @return the value mapped to the file and key, or null if there is none or it expired
+     */
+    public synchronized V getIfValid(Path file, K k) {
+        Value value = getValid(file, k);
+        return value == null ? null : value.value;
+    }
+
+    private Value getValid(Path file, K k) {
         // If key is not in map, it needs to be loaded
         Key<K> key = new Key<>(file, k);
-        if (!map.containsKey(key)) return true;
+        Value value = map.get(key);
+        if (value == null) {
+            missCount++;
+            return null;
+        }
 
         // If key was loaded before file was last modified, it needs to be reloaded
-        Value value = map.get(key);
-        FileTime modified = null;
+        FileTime modified;
         try {
             modified = Files.getLastModifiedTime(file);
         } catch (IOException e) {
             modified = FileTime.from(Instant.now());
         }
-        // TODO remove all keys associated with file when file changes
-        boolean before = value.created.isBefore(modified.toInstant());
-        return before;
+        // The expired mapping is kept until it is loaded again, builds read it to find the
+        // outputs of the previous run. Use invalidate() to drop the mappings of a changed file.
+        if (value.created.isBefore(modified.toInstant())) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return value;
     }
 
     @SafeVarargs
-    public final void remove(Path file, K... keys) {
+    public final synchronized void remove(Path file, K... keys) {
         for (K k : keys) {
             Key<K> key = new Key<>(file, k);
-            map.remove(key);
+            if (map.remove(key) != null) {
+                removeFileKey(key);
+            }
+        }
+    }
+
+    /**
+     * Removes every mapping of the given file, to be called when the file is known to have
+     * changed, for example when an editor reports new contents for it.
+     */
+    public synchronized void invalidate(Path file) {
+        Set<Key<K>> keys = fileKeys.remove(file);
+        if (keys != null) {
+            map.keySet().removeAll(keys);
         }
     }
 
-    public Set<Key<K>> getKeys() {
-        return map.keySet();
+    /**
+     * @return a copy of the keys currently in the cache
+     */
+    public synchronized Set<Key<K>> getKeys() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(map.keySet()));
     }
 
-    public void load(Path file, K k, V v) {
-        // TODO limit total size of cache
+    public synchronized void load(Path file, K k, V v) {
         Key<K> key = new Key<>(file, k);
         Value value = new Value(v);
+        fileKeys.computeIfAbsent(file, it -> new LinkedHashSet<>()).add(key);
         map.put(key, value);
     }
 
-    public V get(Path file, K k) {
+    public synchronized V get(Path file, K k) {
         Key<K> key = new Key<>(file, k);
-        if (!map.containsKey(key)) {
+        Value value = map.get(key);
+        if (value == null) {
             throw new IllegalArgumentException(k + " is not in map " + map);
         }
-        return (V) map.get(key).value;
+        return value.value;
+    }
+
+    /**
+     * @return the value mapped to the file and key, even if the file was modified after it was
+     * loaded, or null if there is none
+     */
+    public synchronized V getIfPresent(Path file, K k) {
+        Value value = map.get(new Key<>(file, k));
+        return value == null ? null : value.value;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * @return the number of times {@link #needs(Path, Object)} or {@link #getIfValid(Path, Object)}
+     * found a valid mapping
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of times {@link #needs(Path, Object)} or {@link #getIfValid(Path, Object)}
+     * found no mapping or an expired one
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of mappings removed because the cache was full
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Cache{size=" + map.size() +
+               (maximumSize == Integer.MAX_VALUE ? "" : ", maximumSize=" + maximumSize) +
+               ", hits=" + hitCount +
+               ", misses=" + missCount +
+               ", evictions=" + evictionCount + "}";
+    }
+
+    private void removeFileKey(Key<K> key) {
+        Set<Key<K>> keys = fileKeys.get(key.file);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                fileKeys.remove(key.file);
+            }
+        }
     }
-}
\ No newline at end of file
+}
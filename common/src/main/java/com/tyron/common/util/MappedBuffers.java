@@ -0,0 +1,62 @@
+package com.tyron.common.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases memory mappings without waiting for the garbage collector.
+ *
+ * <p>A file stays mapped until its buffer is collected, which can take long for buffers that
+ * were remapped or only used once, and keeps their address space in use. The runtime has no
+ * public API to unmap a buffer, the internal ones of the JDK and Android are used when they are
+ * available, otherwise the buffer is left to the garbage collector.</p>
+ *
+ * <p>An unmapped buffer must not be used again, accessing it crashes the process.</p>
+ */
+public class MappedBuffers {
+
+    private interface Unmapper {
+        void unmap(ByteBuffer buffer) throws Exception;
+    }
+
+    private static final Unmapper UNMAPPER = createUnmapper();
+
+    /**
+     * Unmaps the given buffer if it is a direct buffer and the runtime allows it.
+     */
+    public static void unmap(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            UNMAPPER.unmap(buffer);
+        } catch (Throwable ignored) {
+            // left to the garbage collector
+        }
+    }
+
+    private static Unmapper createUnmapper() {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        } catch (Throwable ignored) {
+            // Java 8 and Android, where direct buffers have a cleaner
+            return buffer -> {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    Method clean = cleaner.getClass().getMethod("clean");
+                    clean.setAccessible(true);
+                    clean.invoke(cleaner);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tyron.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public class CacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetIfValid() throws IOException {
+        Path file = temporaryFolder.newFile("Main.java").toPath();
+        Cache<String, String> cache = new Cache<>();
+
+        assertNull(cache.getIfValid(file, "key"));
+        cache.load(file, "key", "value");
+        assertEquals("value", cache.getIfValid(file, "key"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testGetIfValidAfterModification() throws IOException {
+        Path file = temporaryFolder.newFile("Main.java").toPath();
+        Cache<String, String> cache = new Cache<>();
+        cache.load(file, "key", "value");
+
+        Files.setLastModifiedTime(file,
+                FileTime.from(Instant.now().plus(1, ChronoUnit.MINUTES)));
+
+        assertNull(cache.getIfValid(file, "key"));
+        assertTrue(cache.needs(file, "key"));
+        // the expired mapping is kept until it is loaded again
+        assertEquals("value", cache.getIfPresent(file, "key"));
+    }
+
+    @Test
+    public void testGetIfValidAfterEviction() throws IOException {
+        Path first = temporaryFolder.newFile("First.java").toPath();
+        Path second = temporaryFolder.newFile("Second.java").toPath();
+        Cache<String, String> cache = new Cache<>(1);
+        cache.load(first, "key", "first");
+        cache.load(second, "key", "second");
+
+        assertNull(cache.getIfValid(first, "key"));
+        assertFalse(cache.needs(second, "key"));
+        assertEquals("second", cache.getIfValid(second, "key"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+}
@@ -1,7 +1,5 @@
 package com.tyron.completion;
 
-import me.xdrop.fuzzywuzzy.FuzzySearch;
-
 /**
  * Logic of matching a completion name with a given completion prefix
  */
@@ -12,6 +10,12 @@ public class CompletionPrefixMatcher {
      */
     private static final int MINIMUM_SCORE = 70;
 
+    /**
+     * Scratch row of the partial match computation, reused so matching thousands of candidates
+     * on every keystroke does not allocate.
+     */
+    private static final ThreadLocal<int[]> SCRATCH_ROW = new ThreadLocal<>();
+
     /**
      * How well does the candidate name match the completion prefix.
      *
@@ -35,16 +39,78 @@ public class CompletionPrefixMatcher {
                     : MatchLevel.CASE_SENSITIVE_PREFIX;
         }
 
-        if (candidateName.toLowerCase().startsWith(completionPrefix.toLowerCase())) {
+        if (candidateName.regionMatches(true, 0, completionPrefix, 0, completionPrefix.length())) {
             return candidateName.length() == completionPrefix.length()
                     ? MatchLevel.CASE_INSENSITIVE_EQUAL
                     : MatchLevel.CASE_INSENSITIVE_PREFIX;
         }
 
-        int score = FuzzySearch.ratio(candidateName, completionPrefix);
-        if (score > MINIMUM_SCORE) {
+        if (isPartialMatch(candidateName, completionPrefix)) {
             return MatchLevel.PARTIAL_MATCH;
         }
         return MatchLevel.NOT_MATCH;
     }
+
+    /**
+     * Whether the similarity ratio of the two strings is greater than {@link #MINIMUM_SCORE}.
+     *
+     * <p>The ratio is the one of {@code FuzzySearch.ratio}, {@code 200 * lcs / (length1 + length2)}
+     * where {@code lcs} is the length of the longest common subsequence. Instead of computing the
+     * ratio, this computes the subsequence length needed to pass the minimum score and stops as
+     * soon as it is either reached or out of reach.</p>
+     */
+    private static boolean isPartialMatch(String first, String second) {
+        String shorter = first.length() <= second.length() ? first : second;
+        String longer = shorter == first ? second : first;
+        int shorterLength = shorter.length();
+        int longerLength = longer.length();
+
+        // round(200 * lcs / total) > MINIMUM_SCORE <=> 400 * lcs >= (2 * MINIMUM_SCORE + 1) * total
+        long threshold = (2L * MINIMUM_SCORE + 1) * (shorterLength + longerLength);
+        int required = (int) ((threshold + 399) / 400);
+        if (required == 0) {
+            return false;
+        }
+        if (required > shorterLength) {
+            // The subsequence can not be longer than the shorter string,
+            // this rejects most candidates much longer than the prefix
+            return false;
+        }
+
+        int[] row = scratchRow(shorterLength + 1);
+        for (int i = 1; i <= longerLength; i++) {
+            char c = longer.charAt(i - 1);
+            int diagonal = 0;
+            for (int j = 1; j <= shorterLength; j++) {
+                int above = row[j];
+                if (shorter.charAt(j - 1) == c) {
+                    row[j] = diagonal + 1;
+                } else if (row[j - 1] > above) {
+                    row[j] = row[j - 1];
+                }
+                diagonal = above;
+            }
+            int length = row[shorterLength];
+            if (length >= required) {
+                return true;
+            }
+            if (length + (longerLength - i) < required) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int[] scratchRow(int size) {
+        int[] row = SCRATCH_ROW.get();
+        if (row == null || row.length < size) {
+            row = new int[Math.max(size, 64)];
+            SCRATCH_ROW.set(row);
+        } else {
+            for (int i = 0; i < size; i++) {
+                row[i] = 0;
+            }
+        }
+        return row;
+    }
 }
@@ -22,9 +22,7 @@ public class CompletionItem implements Comparable<CompletionItem> {
             Comparator.comparing((CompletionItem item) -> item.getMatchLevel()
                     .ordinal(), Comparator.reverseOrder())
                     .thenComparing(CompletionItem::getSortText)
-                    .thenComparing(it -> it.getFilterTexts()
-                            .isEmpty() ? it.getLabel() : it.getFilterTexts()
-                            .get(0));
+                    .thenComparing(it -> it.filterTexts.isEmpty() ? it.getLabel() : it.filterTexts.get(0));
 
 
     public static CompletionItem create(String label, String detail, String commitText) {
@@ -83,6 +81,24 @@ public class CompletionItem implements Comparable<CompletionItem> {
         return ImmutableList.copyOf(filterTexts);
     }
 
+    /**
+     * Returns the best match level of the filter texts of this item, without copying them.
+     */
+    CompletionPrefixMatcher.MatchLevel computeMatchLevel(String prefix) {
+        if (filterTexts.isEmpty()) {
+            return CompletionPrefixMatcher.computeMatchLevel(label, prefix);
+        }
+        CompletionPrefixMatcher.MatchLevel matchLevel = CompletionPrefixMatcher.MatchLevel.NOT_MATCH;
+        for (int i = 0; i < filterTexts.size(); i++) {
+            CompletionPrefixMatcher.MatchLevel level =
+                    CompletionPrefixMatcher.computeMatchLevel(filterTexts.get(i), prefix);
+            if (level.compareTo(matchLevel) > 0) {
+                matchLevel = level;
+            }
+        }
+        return matchLevel;
+    }
+
     public void addFilterText(String text) {
         filterTexts.add(text);
     }
@@ -3,10 +3,10 @@ package com.tyron.completion.model;
 import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import com.google.errorprone.annotations.Immutable;
-import com.tyron.completion.CompletionPrefixMatcher;
 import com.tyron.completion.CompletionPrefixMatcher.MatchLevel;
 import com.tyron.completion.CompletionProvider;
 
@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 /**
  * Represents a list of completion items to be return from a {@link CompletionProvider}
@@ -29,6 +30,14 @@ public class CompletionList {
         return new Builder(prefix);
     }
 
+    /**
+     * Creates a builder which only keeps the {@code maxItems} best matching items,
+     * the resulting list is marked as incomplete if any item was dropped.
+     */
+    public static Builder builder(String prefix, int maxItems) {
+        return new Builder(prefix, maxItems);
+    }
+
     public static final CompletionList EMPTY = new CompletionList();
 
     public boolean isIncomplete = false;
@@ -65,13 +74,30 @@ public class CompletionList {
 
     public static class Builder {
         private final List<CompletionItem> items;
+        /**
+         * The best items seen so far when the number of items is bounded, the worst one at the head.
+         */
+        private final PriorityQueue<CompletionItem> bestItems;
+        private final int maxItems;
         private boolean incomplete;
 
         private final String completionPrefix;
 
         public Builder(String completionPrefix) {
-            items = new ArrayList<>();
+            this(completionPrefix, Integer.MAX_VALUE);
+        }
+
+        public Builder(String completionPrefix, int maxItems) {
+            Preconditions.checkArgument(maxItems > 0, "maxItems must be positive");
             this.completionPrefix = completionPrefix;
+            this.maxItems = maxItems;
+            if (maxItems == Integer.MAX_VALUE) {
+                items = new ArrayList<>();
+                bestItems = null;
+            } else {
+                items = null;
+                bestItems = new PriorityQueue<>(maxItems + 1, ITEM_ORDERING.reverse());
+            }
         }
 
         public String getPrefix() {
@@ -94,27 +120,30 @@ public class CompletionList {
         }
 
         public Builder addItem(CompletionItem item) {
-            List<MatchLevel> matchLevels = new ArrayList<>();
-            for (String filterText : item.getFilterTexts()) {
-                MatchLevel matchLevel =
-                        CompletionPrefixMatcher.computeMatchLevel(filterText, completionPrefix);
-                if (matchLevel == MatchLevel.NOT_MATCH) {
-                    continue;
-                }
-                matchLevels.add(matchLevel);
-            }
-            if (matchLevels.isEmpty()) {
+            MatchLevel matchLevel = item.computeMatchLevel(completionPrefix);
+            if (matchLevel == MatchLevel.NOT_MATCH) {
                 return this;
             }
-            Collections.sort(matchLevels);
-            MatchLevel matchLevel = matchLevels.get(matchLevels.size() - 1);
             item.setMatchLevel(matchLevel);
-            items.add(item);
+            if (bestItems == null) {
+                items.add(item);
+                return this;
+            }
+
+            if (bestItems.size() < maxItems) {
+                bestItems.add(item);
+                return this;
+            }
+            incomplete = true;
+            if (ITEM_ORDERING.compare(item, bestItems.peek()) < 0) {
+                bestItems.poll();
+                bestItems.add(item);
+            }
             return this;
         }
 
         public int getItemCount() {
-            return items.size();
+            return bestItems == null ? items.size() : bestItems.size();
         }
 
         public void incomplete() {
@@ -129,7 +158,7 @@ public class CompletionList {
         public CompletionList build() {
             CompletionList list = new CompletionList();
             list.isIncomplete = this.incomplete;
-            list.items = ITEM_ORDERING.immutableSortedCopy(items);
+            list.items = ITEM_ORDERING.immutableSortedCopy(bestItems == null ? items : bestItems);
             return list;
         }
     }
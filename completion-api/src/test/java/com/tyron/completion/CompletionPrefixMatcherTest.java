@@ -0,0 +1,35 @@
+package com.tyron.completion;
+
+import static com.tyron.completion.CompletionPrefixMatcher.computeMatchLevel;
+import static org.junit.Assert.assertEquals;
+
+import com.tyron.completion.CompletionPrefixMatcher.MatchLevel;
+
+import org.junit.Test;
+
+public class CompletionPrefixMatcherTest {
+
+    @Test
+    public void testPrefixMatches() {
+        assertEquals(MatchLevel.CASE_SENSITIVE_EQUAL, computeMatchLevel("String", "String"));
+        assertEquals(MatchLevel.CASE_SENSITIVE_PREFIX, computeMatchLevel("StringBuilder", "String"));
+        assertEquals(MatchLevel.CASE_INSENSITIVE_EQUAL, computeMatchLevel("String", "string"));
+        assertEquals(MatchLevel.CASE_INSENSITIVE_PREFIX, computeMatchLevel("StringBuilder", "strinGB"));
+    }
+
+    @Test
+    public void testPartialMatches() {
+        assertEquals(MatchLevel.PARTIAL_MATCH, computeMatchLevel("toString", "tosting"));
+        assertEquals(MatchLevel.PARTIAL_MATCH, computeMatchLevel("length", "lenght"));
+        assertEquals(MatchLevel.NOT_MATCH, computeMatchLevel("length", "size"));
+        // Much longer candidates can not reach the minimum score
+        assertEquals(MatchLevel.NOT_MATCH, computeMatchLevel("AbstractStringBuilder", "StrBld"));
+    }
+
+    @Test
+    public void testEmptyStrings() {
+        assertEquals(MatchLevel.CASE_SENSITIVE_EQUAL, computeMatchLevel("", ""));
+        assertEquals(MatchLevel.CASE_SENSITIVE_PREFIX, computeMatchLevel("a", ""));
+        assertEquals(MatchLevel.NOT_MATCH, computeMatchLevel("", "a"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.tyron.completion.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompletionListTest {
+
+    @Test
+    public void testBoundedBuilderKeepsBestItems() {
+        CompletionList.Builder unbounded = CompletionList.builder("get");
+        CompletionList.Builder bounded = CompletionList.builder("get", 3);
+        String[] labels = {"getValue", "target", "get", "Get", "gets", "GETTER", "size", "getA"};
+        for (String label : labels) {
+            unbounded.addItem(CompletionItem.create(label, "", label));
+            bounded.addItem(CompletionItem.create(label, "", label));
+        }
+
+        CompletionList all = unbounded.build();
+        CompletionList best = bounded.build();
+        assertFalse(all.isIncomplete());
+        assertTrue(best.isIncomplete());
+        assertEquals(labels(all.getItems()).subList(0, 3), labels(best.getItems()));
+        assertEquals("get", best.getItems().get(0).getLabel());
+    }
+
+    @Test
+    public void testBoundedBuilderIsCompleteWhenNothingIsDropped() {
+        CompletionList.Builder builder = CompletionList.builder("a", 10);
+        builder.addItem(CompletionItem.create("ab", "", "ab"));
+        builder.addItem(CompletionItem.create("zz", "", "zz"));
+
+        CompletionList list = builder.build();
+        assertFalse(list.isIncomplete());
+        assertEquals(1, list.getItems().size());
+    }
+
+    private static List<String> labels(List<CompletionItem> items) {
+        List<String> labels = new ArrayList<>();
+        for (CompletionItem item : items) {
+            labels.add(item.getLabel());
+        }
+        return labels;
+    }
+}
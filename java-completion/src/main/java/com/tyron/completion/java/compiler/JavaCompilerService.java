@@ -8,8 +8,10 @@ import androidx.annotation.NonNull;
 import com.google.common.collect.ImmutableList;
 import com.tyron.builder.model.SourceFileObject;
 import com.tyron.builder.project.Project;
+import com.tyron.builder.project.api.FileManager;
 import com.tyron.builder.project.api.JavaModule;
 import com.tyron.builder.project.api.Module;
+import com.tyron.builder.project.listener.FileListener;
 import com.tyron.builder.project.util.PackageTrie;
 import com.tyron.common.util.Cache;
 import com.tyron.common.util.StringSearch;
@@ -60,6 +62,8 @@ public class JavaCompilerService implements CompilerProvider {
     private final Docs docs;
 
     private final CompilerContainer mContainer = new CompilerContainer();
+    private final FileListener mCacheInvalidator = (file, contents) -> invalidateCaches(file.toPath());
+    private FileManager mFileManager;
     private CompileBatch cachedCompile;
     private final Map<JavaFileObject, Long> cachedModified = new HashMap<>();
 
@@ -81,6 +85,17 @@ public class JavaCompilerService implements CompilerProvider {
     public void setCurrentModule(@NonNull JavaModule module) {
         mSourceFileManager.setCurrentModule(module);
         mCurrentModule = module;
+
+        FileManager fileManager = module.getFileManager();
+        if (fileManager != mFileManager) {
+            if (mFileManager != null) {
+                mFileManager.removeSnapshotListener(mCacheInvalidator);
+            }
+            if (fileManager != null) {
+                fileManager.addSnapshotListener(mCacheInvalidator);
+            }
+            mFileManager = fileManager;
+        }
     }
 
     /**
@@ -292,25 +307,43 @@ public class JavaCompilerService implements CompilerProvider {
         return "";
     }
 
-    private static final Cache<String, Boolean> cacheContainsWord = new Cache<>();
+    /**
+     * The maximum number of (file, word) pairs remembered by {@link #containsWord(Path, String)}
+     */
+    private static final int MAX_CONTAINS_WORD_ENTRIES = 10_000;
+    /**
+     * The maximum number of files whose type declarations are remembered
+     */
+    private static final int MAX_CONTAINS_TYPE_ENTRIES = 2_000;
+    /**
+     * The maximum number of parsed files kept in memory, a parse holds the whole tree of a file
+     */
+    private static final int MAX_PARSE_ENTRIES = 32;
+
+    private static final Cache<String, Boolean> cacheContainsWord =
+            new Cache<>(MAX_CONTAINS_WORD_ENTRIES);
 
     private boolean containsWord(Path file, String word) {
-        if (cacheContainsWord.needs(file, word)) {
-            cacheContainsWord.load(file, word, StringSearch.containsWord(file, word));
+        Boolean contains = cacheContainsWord.getIfValid(file, word);
+        if (contains == null) {
+            contains = StringSearch.containsWord(file, word);
+            cacheContainsWord.load(file, word, contains);
         }
-        return cacheContainsWord.get(file, word);
+        return contains;
     }
 
-    private static final Cache<Void, List<String>> cacheContainsType = new Cache<>();
+    private static final Cache<Void, List<String>> cacheContainsType =
+            new Cache<>(MAX_CONTAINS_TYPE_ENTRIES);
 
     private boolean containsType(Path file, String className) {
-        if (cacheContainsType.needs(file, null)) {
+        List<String> types = cacheContainsType.getIfValid(file, null);
+        if (types == null) {
             CompilationUnitTree root = parse(file).root;
-            List<String> types = new ArrayList<>();
+            types = new ArrayList<>();
             new FindTypeDeclarations().scan(root, types);
             cacheContainsType.load(file, null, types);
         }
-        return cacheContainsType.get(file, null).contains(className);
+        return types.contains(className);
     }
 
 
@@ -383,14 +416,35 @@ public class JavaCompilerService implements CompilerProvider {
         return null;
     }
 
-    private final Cache<String, ParseTask> parseCache = new Cache<>();
+    private final Cache<String, ParseTask> parseCache = new Cache<>(MAX_PARSE_ENTRIES);
+
+    /**
+     * Drops everything cached about the given file, called when its contents change in the editor
+     * which does not change its modification time on disk.
+     */
+    private void invalidateCaches(Path file) {
+        cacheContainsWord.invalidate(file);
+        cacheContainsType.invalidate(file);
+        parseCache.invalidate(file);
+    }
+
+    /**
+     * @return the sizes and hit rates of the caches, for diagnostics
+     */
+    public String getCacheStatistics() {
+        return "containsWord: " + cacheContainsWord +
+               ", containsType: " + cacheContainsType +
+               ", parse: " + parseCache;
+    }
 
     private ParseTask cachedParse(Path file) {
-        if (parseCache.needs(file, file.toFile().getName())) {
+        ParseTask task = parseCache.getIfValid(file, file.toFile().getName());
+        if (task == null) {
             Parser parser = Parser.parseFile(mProject, file);
-            parseCache.load(file, file.toFile().getName(), new ParseTask(parser.task, parser.root));
+            task = new ParseTask(parser.task, parser.root);
+            parseCache.load(file, file.toFile().getName(), task);
         }
-        return parseCache.get(file, file.toFile().getName());
+        return task;
     }
 
     private ParseTask cachedParse(JavaFileObject file) {
@@ -400,13 +454,15 @@ public class JavaCompilerService implements CompilerProvider {
                     .substring(4, file.toUri().toString().lastIndexOf("!"));
 
             Path parsedPath = new File(URI.create(path)).toPath();
-            if (parseCache.needs(parsedPath, file.getName())) {
+            ParseTask task = parseCache.getIfValid(parsedPath, file.getName());
+            if (task == null) {
                 Parser parser = Parser.parseJavaFileObject(mProject, file);
-                parseCache.load(parsedPath, file.getName(), new ParseTask(parser.task, parser.root));
+                task = new ParseTask(parser.task, parser.root);
+                parseCache.load(parsedPath, file.getName(), task);
             } else {
                 Log.d("JavaCompilerService", "Using cached parse for " + file.getName());
             }
-            return parseCache.get(parsedPath, file.getName());
+            return task;
         } else if (file instanceof SourceFileObject) {
             return cachedParse(((SourceFileObject) file).mFile);
         }
@@ -496,7 +552,12 @@ public class JavaCompilerService implements CompilerProvider {
             }
             cachedCompile = null;
             cachedModified.clear();
+            parseCache.clear();
             compiler = new ReusableCompiler();
+            if (mFileManager != null) {
+                mFileManager.removeSnapshotListener(mCacheInvalidator);
+                mFileManager = null;
+            }
         });
     }
 
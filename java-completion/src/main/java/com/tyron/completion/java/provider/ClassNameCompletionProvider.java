@@ -60,6 +60,7 @@ public class ClassNameCompletionProvider extends BaseCompletionProvider {
 
         String packageName = Objects.toString(root.getPackageName(), "");
         Set<String> uniques = new HashSet<>();
+        File sourceFile = new File(root.getSourceFile().toUri());
         for (String className : compiler.packagePrivateTopLevelTypes(packageName)) {
             if (!predicate.test(className)) {
                 continue;
@@ -77,15 +78,10 @@ public class ClassNameCompletionProvider extends BaseCompletionProvider {
             if (uniques.contains(className)) {
                 continue;
             }
-            if (list.getItemCount() >= Completions.MAX_COMPLETION_ITEMS) {
-                list.incomplete();
-                break;
-            }
+            // the list only keeps the best matching items, so keep going to not miss better matches
             CompletionItem item = classItem(className);
             item.data = className;
-            item.setInsertHandler(new ClassImportInsertHandler(compiler, new File(
-                    root.getSourceFile()
-                            .toUri()), item));
+            item.setInsertHandler(new ClassImportInsertHandler(compiler, sourceFile, item));
             item.setSortText(JavaSortCategory.TO_IMPORT.toString());
             list.addItem(item);
             uniques.add(className);
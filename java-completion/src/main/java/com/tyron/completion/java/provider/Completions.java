@@ -129,7 +129,7 @@ public class Completions {
     private CompletionList.Builder getCompletionList(CompileTask task, TreePath path, String partial,
                                              boolean endsWithParen) {
         ProcessingContext context = createProcessingContext(task.task, task.root());
-        CompletionList.Builder builder = CompletionList.builder(partial);
+        CompletionList.Builder builder = CompletionList.builder(partial, MAX_COMPLETION_ITEMS);
         switch (path.getLeaf().getKind()) {
             case IDENTIFIER:
                 // suggest only classes on a parameterized tree
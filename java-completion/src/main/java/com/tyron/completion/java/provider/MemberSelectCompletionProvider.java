@@ -119,10 +119,6 @@ public class MemberSelectCompletionProvider extends BaseCompletionProvider {
                 .getAllMembers(typeElement)) {
             checkCanceled();
 
-            if (builder.getItemCount() >= Completions.MAX_COMPLETION_ITEMS) {
-                builder.incomplete();
-                break;
-            }
             if (member.getKind() == ElementKind.CONSTRUCTOR) {
                 continue;
             }
@@ -0,0 +1,103 @@
+package com.tyron.completion.java.provider;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.tyron.completion.TestUtil;
+import com.tyron.completion.index.CompilerService;
+import com.tyron.completion.java.JavaCompilerProvider;
+import com.tyron.completion.model.CompletionList;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the time and the allocations per operation of the Java completion hot path,
+ * to have a baseline to compare changes to the completion stack against.
+ *
+ * <p>Only runs with {@code ./gradlew :java-completion:testDebugUnitTest -Pbenchmark}, the
+ * results of the same scenarios are checked by {@link CompletionRecompileTest}. The classpath
+ * is the {@code classpath/rt.jar} of the test resources, use an android.jar there to measure
+ * with a realistic number of classes.</p>
+ */
+public class CompletionBenchmark extends CompletionBase {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void coldCompile() throws IOException {
+        String contents = insert("MemberSelect.java", "select.innerSelect.");
+        measure("Cold compile and member select", 1, 5, i -> {
+            // Drop the compiler, so the classpath has to be read again
+            JavaCompilerProvider provider = CompilerService.getInstance().getIndex(JavaCompilerProvider.KEY);
+            provider.destroy();
+            return completeHandle("MemberSelect.java", contents);
+        });
+    }
+
+    @Test
+    public void warmCompletionAfterEdit() throws IOException {
+        String contents = insert("MemberSelect.java", "select.innerSelect.");
+        // Alternate between two versions differing by one character, so every completion re-parses the file
+        String edited = contents.replace("new Object[0]", "new Object[1]");
+        measure("Warm completion after a one character edit", WARMUP_ITERATIONS, ITERATIONS, i ->
+                completeHandle("MemberSelect.java", i % 2 == 0 ? contents : edited));
+    }
+
+    @Test
+    public void memberSelect() throws IOException {
+        String contents = insert("MemberSelect.java", "\"\".");
+        measure("Member select", WARMUP_ITERATIONS, ITERATIONS, i ->
+                completeHandle("MemberSelect.java", contents));
+    }
+
+    @Test
+    public void className() throws IOException {
+        String contents = insert("CompleteIdentifier.java", "S");
+        measure("Class name", WARMUP_ITERATIONS, ITERATIONS, i ->
+                completeHandle("CompleteIdentifier.java", contents));
+    }
+
+    private static String insert(String fileName, String replace) throws IOException {
+        File file = new File(TestUtil.resolveBasePath(), "EmptyProject/completion/" + fileName);
+        String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return contents.replace(INSERT_IDENTIFIER, replace + COMPLETE_IDENTIFIER);
+    }
+
+    /**
+     * Runs the operation and prints the average time and the average allocations of the calling thread per operation.
+     */
+    private static void measure(String name, int warmupIterations, int iterations, IntFunction<CompletionList> operation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.apply(i);
+        }
+
+        long totalTime = 0;
+        long totalAllocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            CompletionList list = operation.apply(warmupIterations + i);
+            totalTime += System.nanoTime() - start;
+            totalAllocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            assertThat(list.items).isNotEmpty();
+        }
+
+        double millisPerOperation = totalTime / 1_000_000.0 / iterations;
+        double kibPerOperation = totalAllocated / 1024.0 / iterations;
+        double allocationRate = totalAllocated / (1024.0 * 1024.0) / (totalTime / 1_000_000_000.0);
+        System.out.printf(Locale.ROOT, "%s: %.3f ms/op, %.1f KiB/op allocated, %.1f MiB/s%n",
+                name, millisPerOperation, kibPerOperation, allocationRate);
+    }
+}
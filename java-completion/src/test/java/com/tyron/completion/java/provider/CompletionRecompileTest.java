@@ -0,0 +1,67 @@
+package com.tyron.completion.java.provider;
+
+import com.tyron.completion.TestUtil;
+import com.tyron.completion.index.CompilerService;
+import com.tyron.completion.java.JavaCompilerProvider;
+import com.tyron.completion.model.CompletionList;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Completes the same files repeatedly, the way they are completed while typing, to check the
+ * results do not depend on what the compiler and the completion caches kept from the previous
+ * completion.
+ */
+public class CompletionRecompileTest extends CompletionBase {
+
+    private static final int ITERATIONS = 5;
+
+    @Test
+    public void testColdCompile() throws IOException {
+        String contents = insert("MemberSelect.java", "select.innerSelect.");
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Drop the compiler, so the classpath has to be read again
+            JavaCompilerProvider provider = CompilerService.getInstance().getIndex(JavaCompilerProvider.KEY);
+            provider.destroy();
+            assertCompletion(completeHandle("MemberSelect.java", contents), "innerMethod()");
+        }
+    }
+
+    @Test
+    public void testCompletionAfterEdit() throws IOException {
+        String contents = insert("MemberSelect.java", "select.innerSelect.");
+        // Alternate between two versions differing by one character, so every completion re-parses the file
+        String edited = contents.replace("new Object[0]", "new Object[1]");
+        for (int i = 0; i < ITERATIONS * 2; i++) {
+            CompletionList list = completeHandle("MemberSelect.java", i % 2 == 0 ? contents : edited);
+            assertCompletion(list, "innerMethod()");
+        }
+    }
+
+    @Test
+    public void testRepeatedMemberSelect() throws IOException {
+        String contents = insert("MemberSelect.java", "\"\".");
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertCompletion(completeHandle("MemberSelect.java", contents), "length()", "isEmpty()");
+        }
+    }
+
+    @Test
+    public void testRepeatedClassName() throws IOException {
+        String contents = insert("CompleteIdentifier.java", "S");
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertCompletion(completeHandle("CompleteIdentifier.java", contents), "String");
+        }
+    }
+
+    private static String insert(String fileName, String replace) throws IOException {
+        File file = new File(TestUtil.resolveBasePath(), "EmptyProject/completion/" + fileName);
+        String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return contents.replace(INSERT_IDENTIFIER, replace + COMPLETE_IDENTIFIER);
+    }
+}
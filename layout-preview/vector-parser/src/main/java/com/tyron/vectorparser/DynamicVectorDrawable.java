@@ -1,5 +1,6 @@
 package com.tyron.vectorparser;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Matrix;
@@ -25,9 +26,19 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.Stack;
 
+/**
+ * Draws the contents of a vector drawable file.
+ *
+ * <p>Drawables of the same contents share the parsed model, and the bitmap it was rasterized
+ * to at a given size, see {@link VectorCache}.</p>
+ */
 public class DynamicVectorDrawable extends Drawable {
 
+    private static XmlPullParserFactory sParserFactory;
+
     private XmlPullParser mParser;
+    private VectorCache mCache;
+    private String mContents;
     private VectorModel vectorModel;
     private Matrix scaleMatrix;
 
@@ -50,9 +61,27 @@ public class DynamicVectorDrawable extends Drawable {
     }
 
     public void setContents(String contents) throws XmlPullParserException {
-        mParser = XmlPullParserFactory.newInstance().newPullParser();
+        mCache = VectorCache.get(mContext);
+        mContents = contents;
+
+        VectorModel cached = mCache.getModel(contents);
+        if (cached != null) {
+            vectorModel = cached;
+            return;
+        }
+
+        mParser = getParserFactory().newPullParser();
         mParser.setInput(new StringReader(contents));
         buildVectorModel();
+        mParser = null;
+        mCache.putModel(contents, vectorModel);
+    }
+
+    private static synchronized XmlPullParserFactory getParserFactory() throws XmlPullParserException {
+        if (sParserFactory == null) {
+            sParserFactory = XmlPullParserFactory.newInstance();
+        }
+        return sParserFactory;
     }
 
     private void buildVectorModel() {
@@ -263,6 +292,14 @@ public class DynamicVectorDrawable extends Drawable {
 
         setAlpha(Utils.getAlphaFromFloat(vectorModel.getAlpha()));
 
+        Bitmap bitmap = getBitmap();
+        if (bitmap != null) {
+            canvas.drawBitmap(bitmap, left, top, null);
+            return;
+        }
+
+        // the model may have been scaled to the bounds of another drawable
+        scaleModel();
         if (left != 0 || top != 0) {
             tempSaveCount = canvas.save();
             canvas.translate(left, top);
@@ -273,6 +310,40 @@ public class DynamicVectorDrawable extends Drawable {
         }
     }
 
+    /**
+     * @return the model rasterized at the size of this drawable, or null if it is too large
+     * to be cached
+     */
+    @Nullable
+    private Bitmap getBitmap() {
+        if (width <= 0 || height <= 0 || !VectorCache.canCache(width, height)) {
+            return null;
+        }
+        VectorCache.RasterKey key =
+                new VectorCache.RasterKey(mContents, width, height, vectorModel.getTint());
+        Bitmap bitmap = mCache.getBitmap(key);
+        if (bitmap == null) {
+            scaleModel();
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            vectorModel.drawPaths(new Canvas(bitmap), offsetX, offsetY, scaleX, scaleY);
+            mCache.putBitmap(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Scales the shared model to the bounds of this drawable, unless it was already scaled to
+     * them. A new matrix is built whenever the bounds change, so the model is still scaled for
+     * this drawable as long as it holds the same matrix.
+     */
+    private void scaleModel() {
+        if (scaleMatrix == null || vectorModel.getScaleMatrix() == scaleMatrix) {
+            return;
+        }
+        scaleAllPaths();
+        scaleAllStrokes();
+    }
+
     @Override
     public void setAlpha(int alpha) {
 
@@ -341,9 +412,8 @@ public class DynamicVectorDrawable extends Drawable {
             width = bounds.width();
             height = bounds.height();
 
+            // the shared model is scaled when it is drawn
             buildScaleMatrix();
-            scaleAllPaths();
-            scaleAllStrokes();
         }
     }
 }
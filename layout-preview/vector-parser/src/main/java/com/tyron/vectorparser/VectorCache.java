@@ -0,0 +1,115 @@
+package com.tyron.vectorparser;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import com.flipkart.android.proteus.ProteusContext;
+import com.tyron.vectorparser.model.VectorModel;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * The parsed vector models and rasterized bitmaps of the drawables shown with a context.
+ *
+ * <p>Colors and dimensions of a vector are resolved against the context when it is parsed, so
+ * every context has its own cache and it goes away with the context. Models are shared by the
+ * drawables of the same contents, which must scale the model to their own bounds before
+ * drawing it.</p>
+ */
+final class VectorCache {
+
+    /**
+     * The number of parsed vectors that are kept per context
+     */
+    private static final int MAX_MODELS = 64;
+
+    /**
+     * The number of bytes of bitmaps that are kept per context
+     */
+    private static final int MAX_BITMAP_BYTES = 8 * 1024 * 1024;
+
+    private static final Map<ProteusContext, VectorCache> sCaches = new WeakHashMap<>();
+
+    static VectorCache get(ProteusContext context) {
+        synchronized (sCaches) {
+            VectorCache cache = sCaches.get(context);
+            if (cache == null) {
+                cache = new VectorCache();
+                sCaches.put(context, cache);
+            }
+            return cache;
+        }
+    }
+
+    private final LruCache<String, VectorModel> mModels = new LruCache<>(MAX_MODELS);
+    private final LruCache<RasterKey, Bitmap> mBitmaps =
+            new LruCache<RasterKey, Bitmap>(MAX_BITMAP_BYTES) {
+                @Override
+                protected int sizeOf(RasterKey key, Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+
+    private VectorCache() {
+
+    }
+
+    VectorModel getModel(String contents) {
+        return mModels.get(contents);
+    }
+
+    void putModel(String contents, VectorModel model) {
+        mModels.put(contents, model);
+    }
+
+    Bitmap getBitmap(RasterKey key) {
+        return mBitmaps.get(key);
+    }
+
+    void putBitmap(RasterKey key, Bitmap bitmap) {
+        mBitmaps.put(key, bitmap);
+    }
+
+    /**
+     * @return whether a bitmap of the given size is small enough to be worth caching
+     */
+    static boolean canCache(int width, int height) {
+        return (long) width * height * 4 <= MAX_BITMAP_BYTES / 4;
+    }
+
+    static final class RasterKey {
+        private final String contents;
+        private final int width;
+        private final int height;
+        private final int tint;
+
+        RasterKey(String contents, int width, int height, int tint) {
+            this.contents = contents;
+            this.width = width;
+            this.height = height;
+            this.tint = tint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RasterKey that = (RasterKey) o;
+            return width == that.width &&
+                   height == that.height &&
+                   tint == that.tint &&
+                   contents.equals(that.contents);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(contents, width, height, tint);
+        }
+    }
+}
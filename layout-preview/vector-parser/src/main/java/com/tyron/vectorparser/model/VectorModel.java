@@ -90,6 +90,13 @@ public class VectorModel {
         }
     }
 
+    /**
+     * @return the matrix the paths were last scaled with, or null if they were not scaled
+     */
+    public Matrix getScaleMatrix() {
+        return scaleMatrix;
+    }
+
     public void scaleAllStrokeWidth(float ratio) {
         for (GroupModel groupModel : groupModels) {
             groupModel.scaleAllStrokeWidth(ratio);
@@ -0,0 +1,408 @@
+package com.tyron.vectorparser.util;
+
+import java.util.Arrays;
+
+/**
+ * The commands of a path parsed from the {@code pathData} of a vector drawable, with every
+ * coordinate made absolute.
+ *
+ * <p>The commands are kept as an array of operations and a flat array of their arguments, so
+ * parsing does not depend on {@code android.graphics} and a parsed path can be shared and
+ * replayed onto any number of paths with {@link PathParser#toPath(PathData)}.</p>
+ */
+public final class PathData {
+
+    /** (x, y) */
+    public static final byte MOVE_TO = 0;
+    /** (x, y) */
+    public static final byte LINE_TO = 1;
+    /** (x1, y1, x2, y2, x, y) */
+    public static final byte CUBIC_TO = 2;
+    /** (left, top, right, bottom, startAngle, sweepAngle) of the oval the arc belongs to */
+    public static final byte ARC = 3;
+    /** (x, y, radius), drawn for a line of length zero following a move */
+    public static final byte CIRCLE = 4;
+    /** no arguments */
+    public static final byte CLOSE = 5;
+
+    private static final int[] ARGUMENT_COUNTS = {2, 2, 6, 6, 3, 0};
+
+    private final byte[] mOps;
+    private final float[] mArgs;
+
+    private PathData(byte[] ops, float[] args) {
+        mOps = ops;
+        mArgs = args;
+    }
+
+    public int getCommandCount() {
+        return mOps.length;
+    }
+
+    public byte getCommand(int index) {
+        return mOps[index];
+    }
+
+    /**
+     * @return the arguments of every command in order, do not modify
+     */
+    public float[] getArguments() {
+        return mArgs;
+    }
+
+    public static int getArgumentCount(byte command) {
+        return ARGUMENT_COUNTS[command];
+    }
+
+    /*
+     * Uppercase rules are absolute positions, lowercase are relative.
+     * Types of path rules:
+     * <p/>
+     * <ol>
+     * <li>M/m - (x y)+ - Move to (without drawing)
+     * <li>Z/z - (no params) - Close path (back to starting point)
+     * <li>L/l - (x y)+ - Line to
+     * <li>H/h - x+ - Horizontal ine to
+     * <li>V/v - y+ - Vertical line to
+     * <li>C/c - (x1 y1 x2 y2 x y)+ - Cubic bezier to
+     * <li>S/s - (x2 y2 x y)+ - Smooth cubic bezier to (shorthand that assumes the x2, y2 from previous C/S is the x1, y1 of this bezier)
+     * <li>Q/q - (x1 y1 x y)+ - Quadratic bezier to
+     * <li>T/t - (x y)+ - Smooth quadratic bezier to (assumes previous control point is "reflection" of last one w.r.t. to current point)
+     * <li>A/a - (rx ry angle large-arc sweep x y)+ - Elliptical arc
+     * </ol>
+     * <p/>
+     * Numbers are separate by whitespace, comma or nothing at all (!) if they are self-delimiting, (ie. begin with a - sign)
+     */
+    public static PathData parse(String s) {
+        Builder builder = new Builder(s.length());
+        int n = s.length();
+        if (n == 0) {
+            return builder.build();
+        }
+        ParserHelper ph = new ParserHelper(s);
+        ph.skipWhitespace();
+        float lastX = 0;
+        float lastY = 0;
+        float lastX1 = 0;
+        float lastY1 = 0;
+        float contourInitialX = 0;
+        float contourInitialY = 0;
+        char prevCmd = 'm';
+        char cmd = 'x';
+        while (ph.pos < n) {
+            char next = s.charAt(ph.pos);
+            if (!Character.isDigit(next) && !(next == '.') && !(next == '-')) {
+                cmd = next;
+                ph.advance();
+            } else if (cmd == 'M') { // implied command
+                cmd = 'L';
+            } else if (cmd == 'm') { // implied command
+                cmd = 'l';
+            }
+            boolean wasCurve = false;
+            switch (cmd) {
+                case 'M':
+                case 'm': {
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 'm') {
+                        lastX += x;
+                        lastY += y;
+                    } else {
+                        lastX = x;
+                        lastY = y;
+                    }
+                    builder.add(MOVE_TO, lastX, lastY);
+                    contourInitialX = lastX;
+                    contourInitialY = lastY;
+                    break;
+                }
+                case 'Z':
+                case 'z': {
+                    builder.add(CLOSE);
+                    lastX = contourInitialX;
+                    lastY = contourInitialY;
+                    break;
+                }
+                case 'L':
+                case 'l': {
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 'l') {
+                        x += lastX;
+                        y += lastY;
+                    }
+                    if ((prevCmd == 'M' || prevCmd == 'm') && x == lastX && y == lastY) {
+                        // a line of length zero after a move draws a dot
+                        builder.add(CIRCLE, x, y, 1f);
+                    } else {
+                        builder.add(LINE_TO, x, y);
+                        lastX = x;
+                        lastY = y;
+                    }
+                    break;
+                }
+                case 'H':
+                case 'h': {
+                    float x = ph.nextFloat();
+                    lastX = cmd == 'h' ? lastX + x : x;
+                    builder.add(LINE_TO, lastX, lastY);
+                    break;
+                }
+                case 'V':
+                case 'v': {
+                    float y = ph.nextFloat();
+                    lastY = cmd == 'v' ? lastY + y : y;
+                    builder.add(LINE_TO, lastX, lastY);
+                    break;
+                }
+                case 'C':
+                case 'c': {
+                    wasCurve = true;
+                    float x1 = ph.nextFloat();
+                    float y1 = ph.nextFloat();
+                    float x2 = ph.nextFloat();
+                    float y2 = ph.nextFloat();
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 'c') {
+                        x1 += lastX;
+                        x2 += lastX;
+                        x += lastX;
+                        y1 += lastY;
+                        y2 += lastY;
+                        y += lastY;
+                    }
+                    builder.add(CUBIC_TO, x1, y1, x2, y2, x, y);
+                    lastX1 = x2;
+                    lastY1 = y2;
+                    lastX = x;
+                    lastY = y;
+                    break;
+                }
+                case 'S':
+                case 's': {
+                    wasCurve = true;
+                    float x2 = ph.nextFloat();
+                    float y2 = ph.nextFloat();
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 's') {
+                        x2 += lastX;
+                        x += lastX;
+                        y2 += lastY;
+                        y += lastY;
+                    }
+                    float x1 = 2 * lastX - lastX1;
+                    float y1 = 2 * lastY - lastY1;
+                    builder.add(CUBIC_TO, x1, y1, x2, y2, x, y);
+                    lastX1 = x2;
+                    lastY1 = y2;
+                    lastX = x;
+                    lastY = y;
+                    break;
+                }
+                case 'A':
+                case 'a': {
+                    float rx = ph.nextFloat();
+                    float ry = ph.nextFloat();
+                    float theta = ph.nextFloat();
+                    int largeArc = (int) ph.nextFloat();
+                    int sweepArc = (int) ph.nextFloat();
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 'a') {
+                        x += lastX;
+                        y += lastY;
+                    }
+                    addArc(builder, lastX, lastY, x, y, rx, ry, theta, largeArc == 1, sweepArc == 1);
+                    lastX = x;
+                    lastY = y;
+                    break;
+                }
+                case 'T':
+                case 't': {
+                    wasCurve = true;
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 't') {
+                        x += lastX;
+                        y += lastY;
+                    }
+                    float x1 = 2 * lastX - lastX1;
+                    float y1 = 2 * lastY - lastY1;
+                    builder.add(CUBIC_TO, lastX, lastY, x1, y1, x, y);
+                    lastX = x;
+                    lastY = y;
+                    lastX1 = x1;
+                    lastY1 = y1;
+                    break;
+                }
+                case 'Q':
+                case 'q': {
+                    wasCurve = true;
+                    float x1 = ph.nextFloat();
+                    float y1 = ph.nextFloat();
+                    float x = ph.nextFloat();
+                    float y = ph.nextFloat();
+                    if (cmd == 'q') {
+                        x += lastX;
+                        y += lastY;
+                        x1 += lastX;
+                        y1 += lastY;
+                    }
+                    builder.add(CUBIC_TO, lastX, lastY, x1, y1, x, y);
+                    lastX1 = x1;
+                    lastY1 = y1;
+                    lastX = x;
+                    lastY = y;
+                    break;
+                }
+                default:
+                    // invalid path command, skip it
+                    ph.advance();
+            }
+            prevCmd = cmd;
+            if (!wasCurve) {
+                lastX1 = lastX;
+                lastY1 = lastY;
+            }
+            ph.skipWhitespace();
+        }
+        return builder.build();
+    }
+
+    /*
+     * Elliptical arc implementation based on the SVG specification notes
+     * Adapted from the Batik library (Apache-2 license) by SAU
+     */
+    private static void addArc(Builder builder, double x0, double y0, double x, double y, double rx,
+                               double ry, double angle, boolean largeArcFlag, boolean sweepFlag) {
+        double dx2 = (x0 - x) / 2.0;
+        double dy2 = (y0 - y) / 2.0;
+        angle = Math.toRadians(angle % 360.0);
+        double cosAngle = Math.cos(angle);
+        double sinAngle = Math.sin(angle);
+
+        double x1 = (cosAngle * dx2 + sinAngle * dy2);
+        double y1 = (-sinAngle * dx2 + cosAngle * dy2);
+        rx = Math.abs(rx);
+        ry = Math.abs(ry);
+
+        double Prx = rx * rx;
+        double Pry = ry * ry;
+        double Px1 = x1 * x1;
+        double Py1 = y1 * y1;
+
+        // check that radii are large enough
+        double radiiCheck = Px1 / Prx + Py1 / Pry;
+        if (radiiCheck > 1) {
+            rx = Math.sqrt(radiiCheck) * rx;
+            ry = Math.sqrt(radiiCheck) * ry;
+            Prx = rx * rx;
+            Pry = ry * ry;
+        }
+
+        // Step 2 : Compute (cx1, cy1)
+        double sign = (largeArcFlag == sweepFlag) ? -1 : 1;
+        double sq = ((Prx * Pry) - (Prx * Py1) - (Pry * Px1))
+                / ((Prx * Py1) + (Pry * Px1));
+        sq = (sq < 0) ? 0 : sq;
+        double coef = (sign * Math.sqrt(sq));
+        double cx1 = coef * ((rx * y1) / ry);
+        double cy1 = coef * -((ry * x1) / rx);
+
+        double sx2 = (x0 + x) / 2.0;
+        double sy2 = (y0 + y) / 2.0;
+        double cx = sx2 + (cosAngle * cx1 - sinAngle * cy1);
+        double cy = sy2 + (sinAngle * cx1 + cosAngle * cy1);
+
+        // Step 4 : Compute the angleStart (angle1) and the angleExtent (dangle)
+        double ux = (x1 - cx1) / rx;
+        double uy = (y1 - cy1) / ry;
+        double vx = (-x1 - cx1) / rx;
+        double vy = (-y1 - cy1) / ry;
+        double p, n;
+
+        // Compute the angle start
+        n = Math.sqrt((ux * ux) + (uy * uy));
+        p = ux; // (1 * ux) + (0 * uy)
+        sign = (uy < 0) ? -1.0 : 1.0;
+        double angleStart = Math.toDegrees(sign * Math.acos(p / n));
+
+        // Compute the angle extent
+        n = Math.sqrt((ux * ux + uy * uy) * (vx * vx + vy * vy));
+        p = ux * vx + uy * vy;
+        sign = (ux * vy - uy * vx < 0) ? -1.0 : 1.0;
+        double angleExtent = Math.toDegrees(sign * Math.acos(p / n));
+        if (!sweepFlag && angleExtent > 0) {
+            angleExtent -= 360f;
+        } else if (sweepFlag && angleExtent < 0) {
+            angleExtent += 360f;
+        }
+        angleExtent %= 360f;
+        angleStart %= 360f;
+
+        builder.add(ARC, (float) (cx - rx), (float) (cy - ry), (float) (cx + rx), (float) (cy + ry),
+                (float) angleStart, (float) angleExtent);
+    }
+
+    private static final class Builder {
+
+        private byte[] mOps;
+        private float[] mArgs;
+        private int mOpCount;
+        private int mArgCount;
+
+        Builder(int length) {
+            // a command takes a few characters, so this rarely needs to grow
+            int capacity = Math.max(8, length / 4);
+            mOps = new byte[capacity];
+            mArgs = new float[capacity * 2];
+        }
+
+        void add(byte op) {
+            ensureCapacity(0);
+            mOps[mOpCount++] = op;
+        }
+
+        void add(byte op, float a, float b) {
+            ensureCapacity(2);
+            mOps[mOpCount++] = op;
+            mArgs[mArgCount++] = a;
+            mArgs[mArgCount++] = b;
+        }
+
+        void add(byte op, float a, float b, float c) {
+            ensureCapacity(3);
+            mOps[mOpCount++] = op;
+            mArgs[mArgCount++] = a;
+            mArgs[mArgCount++] = b;
+            mArgs[mArgCount++] = c;
+        }
+
+        void add(byte op, float a, float b, float c, float d, float e, float f) {
+            ensureCapacity(6);
+            mOps[mOpCount++] = op;
+            mArgs[mArgCount++] = a;
+            mArgs[mArgCount++] = b;
+            mArgs[mArgCount++] = c;
+            mArgs[mArgCount++] = d;
+            mArgs[mArgCount++] = e;
+            mArgs[mArgCount++] = f;
+        }
+
+        private void ensureCapacity(int args) {
+            if (mOpCount == mOps.length) {
+                mOps = Arrays.copyOf(mOps, mOps.length * 2);
+            }
+            if (mArgCount + args > mArgs.length) {
+                mArgs = Arrays.copyOf(mArgs, mArgs.length * 2);
+            }
+        }
+
+        PathData build() {
+            return new PathData(Arrays.copyOf(mOps, mOpCount), Arrays.copyOf(mArgs, mArgCount));
+        }
+    }
+}
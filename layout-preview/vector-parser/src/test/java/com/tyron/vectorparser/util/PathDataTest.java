@@ -0,0 +1,71 @@
+package com.tyron.vectorparser.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PathDataTest {
+
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void testRelativeCommandsAreMadeAbsolute() {
+        PathData data = PathData.parse("M10,10 l5,0 h5 v-10 z m2 2 L1 1");
+        assertCommands(data, PathData.MOVE_TO, PathData.LINE_TO, PathData.LINE_TO,
+                PathData.LINE_TO, PathData.CLOSE, PathData.MOVE_TO, PathData.LINE_TO);
+        assertArrayEquals(new float[]{10, 10, 15, 10, 20, 10, 20, 0, 12, 12, 1, 1},
+                data.getArguments(), DELTA);
+    }
+
+    @Test
+    public void testImpliedLineTo() {
+        PathData data = PathData.parse("m1 1 2 2 3 3");
+        assertCommands(data, PathData.MOVE_TO, PathData.LINE_TO, PathData.LINE_TO);
+        assertArrayEquals(new float[]{1, 1, 3, 3, 6, 6}, data.getArguments(), DELTA);
+    }
+
+    @Test
+    public void testSelfDelimitingNumbers() {
+        PathData data = PathData.parse("M.5-1.5L-2-3");
+        assertArrayEquals(new float[]{0.5f, -1.5f, -2, -3}, data.getArguments(), DELTA);
+    }
+
+    @Test
+    public void testSmoothCubicReflectsControlPoint() {
+        PathData data = PathData.parse("M0 0 C0 10 10 10 10 0 S20 -10 20 0");
+        assertCommands(data, PathData.MOVE_TO, PathData.CUBIC_TO, PathData.CUBIC_TO);
+        assertArrayEquals(new float[]{0, 0, 0, 10, 10, 10, 10, 0, 10, -10, 20, -10, 20, 0},
+                data.getArguments(), DELTA);
+    }
+
+    @Test
+    public void testArc() {
+        // half of a circle with a radius of 5 around (5, 0)
+        PathData data = PathData.parse("M0 0 A5 5 0 0 1 10 0");
+        assertCommands(data, PathData.MOVE_TO, PathData.ARC);
+        float[] args = data.getArguments();
+        assertArrayEquals(new float[]{0, -5, 10, 5}, new float[]{args[2], args[3], args[4], args[5]}, DELTA);
+        assertEquals(180, Math.abs(args[7]), DELTA);
+    }
+
+    @Test
+    public void testDot() {
+        PathData data = PathData.parse("M4 4 l0 0");
+        assertCommands(data, PathData.MOVE_TO, PathData.CIRCLE);
+        assertArrayEquals(new float[]{4, 4, 4, 4, 1}, data.getArguments(), DELTA);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, PathData.parse("").getCommandCount());
+        assertEquals(0, PathData.parse("   ").getCommandCount());
+    }
+
+    private static void assertCommands(PathData data, byte... commands) {
+        assertEquals(commands.length, data.getCommandCount());
+        for (int i = 0; i < commands.length; i++) {
+            assertEquals("command " + i, commands[i], data.getCommand(i));
+        }
+    }
+}
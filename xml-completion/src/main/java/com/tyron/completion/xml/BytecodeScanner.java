@@ -9,7 +9,14 @@ import com.google.common.collect.ImmutableSet;
 import com.tyron.builder.BuildModule;
 import com.tyron.completion.xml.util.PartialClassParser;
 
+import org.apache.bcel.Const;
 import org.apache.bcel.Repository;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantClass;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.ConstantUtf8;
+import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
@@ -20,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -29,6 +37,9 @@ import java.util.jar.JarFile;
 /**
  * Scans jar files and saves all the class files that extends {@link View} and has the
  * appropriate constructors to be inflated in XML.
+ *
+ * <p>Only the name and the super class of each class are needed, they are read through
+ * {@link ClassHierarchyIndex} so a jar is only parsed again when it changes.</p>
  */
 public class BytecodeScanner {
 
@@ -57,38 +68,51 @@ public class BytecodeScanner {
     }
 
     public static void loadJar(File jar) throws IOException {
-        try (JarFile jarFile = new JarFile(jar)) {
-            iterateClasses(jarFile, element -> {
-                PartialClassParser classParser =
-                        new PartialClassParser(jar.getAbsolutePath(), element.getName());
-                try {
-                    Repository.addClass(classParser.parse());
-                } catch (IOException e) {
-                    // ignored, keep parsing other classes
-                }
-            });
+        for (Map.Entry<String, String> entry : ClassHierarchyIndex.get(jar).entrySet()) {
+            Repository.addClass(createClass(entry.getKey(), entry.getValue()));
         }
     }
 
     public static List<JavaClass> scan(File file) throws IOException {
         List<JavaClass> viewClasses = new ArrayList<>();
-        try (JarFile jarFile = new JarFile(file)) {
-            iterateClasses(jarFile, element -> {
-                String fqn = element.getName().replace('/', '.')
-                        .substring(0, element.getName().length() - ".class".length());
-                try {
-                    JavaClass javaClass = Repository.lookupClass(fqn);
-                    if (isViewClass(javaClass)) {
-                        viewClasses.add(javaClass);
-                    }
-                } catch (ClassNotFoundException e) {
-                    // should not happen, the class should already be loaded here.
+        for (String fqn : ClassHierarchyIndex.get(file).keySet()) {
+            try {
+                JavaClass javaClass = Repository.lookupClass(fqn);
+                if (isViewClass(javaClass)) {
+                    viewClasses.add(javaClass);
                 }
-            });
+            } catch (ClassNotFoundException e) {
+                // should not happen, the class should already be loaded here.
+            }
         }
         return viewClasses;
     }
 
+    /**
+     * Creates a class with only a name and a super class, the same information
+     * {@link PartialClassParser} reads from a class file.
+     *
+     * @param superclass the name of the super class, empty if the class has none
+     */
+    private static JavaClass createClass(String className, String superclass) {
+        Constant[] constants;
+        int superclassIndex;
+        if (superclass.isEmpty()) {
+            constants = new Constant[3];
+            superclassIndex = 0;
+        } else {
+            constants = new Constant[5];
+            constants[3] = new ConstantUtf8(superclass.replace('.', '/'));
+            constants[4] = new ConstantClass(3);
+            superclassIndex = 4;
+        }
+        constants[1] = new ConstantUtf8(className.replace('.', '/'));
+        constants[2] = new ConstantClass(1);
+        return new JavaClass(2, superclassIndex, className, Const.MAJOR, Const.MINOR,
+                Const.ACC_PUBLIC, new ConstantPool(constants), new int[0], new Field[0],
+                new Method[0], new Attribute[0]);
+    }
+
     public static boolean isViewGroup(JavaClass javaClass) {
         JavaClass[] superClasses = getSuperClasses(javaClass);
         return Arrays.stream(superClasses)
@@ -102,25 +126,22 @@ public class BytecodeScanner {
 
         File androidJar = BuildModule.getAndroidJar();
         if (androidJar != null && androidJar.exists()) {
-            try (JarFile jarFile = new JarFile(androidJar)) {
-                iterateClasses(jarFile, element -> {
-                    String name = element.getName();
-                    String packagePath = name.substring(0, name.lastIndexOf('/'));
+            try {
+                Map<String, String> classes = ClassHierarchyIndex.get(androidJar);
+                for (Map.Entry<String, String> entry : classes.entrySet()) {
+                    String name = entry.getKey();
+                    int lastDot = name.lastIndexOf('.');
+                    String packagePath = lastDot == -1
+                            ? ""
+                            : name.substring(0, lastDot).replace('.', '/');
                     if (sIgnoredPaths.contains(packagePath)) {
-                        return;
+                        continue;
                     }
                     if (packagePath.startsWith("java/")) {
-                        return;
+                        continue;
                     }
-                    PartialClassParser classParser =
-                            new PartialClassParser(androidJar.getAbsolutePath(), name);
-                    try {
-                        Repository.addClass(classParser.parse());
-                    } catch (IOException e) {
-                        // ignored, keep parsing other classes
-                    }
-
-                });
+                    Repository.addClass(createClass(name, entry.getValue()));
+                }
             } catch (IOException e) {
                 // ignored
             }
@@ -0,0 +1,221 @@
+package com.tyron.completion.xml;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.tyron.completion.xml.util.PartialClassParser;
+
+import org.apache.bcel.classfile.JavaClass;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Maps every class of a jar to its super class, which is all {@link BytecodeScanner} needs to
+ * find the views of a jar and their hierarchy.
+ *
+ * <p>The mapping of a jar is stored next to it and reused as long as the size and the
+ * modification time of the jar are the same. If only those changed, a hash of its contents
+ * decides whether the jar has to be parsed again, so a library that is extracted again does not
+ * cost a full scan.</p>
+ */
+public class ClassHierarchyIndex {
+
+    private static final int VERSION = 1;
+    private static final String INDEX_SUFFIX = ".hierarchy";
+    private static final int MAX_SCAN_THREADS = 4;
+
+    private static final Map<File, Hierarchy> sLoaded = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the hierarchies of the given jars, jars which have to be parsed are parsed
+     * concurrently. Jars which can not be read are skipped.
+     */
+    public static void prefetch(Collection<File> jars) {
+        List<File> unique = new ArrayList<>(new LinkedHashSet<>(jars));
+        int threads = Math.min(MAX_SCAN_THREADS, Runtime.getRuntime().availableProcessors());
+        if (unique.size() < 2 || threads < 2) {
+            for (File jar : unique) {
+                getQuietly(jar);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File jar : unique) {
+                futures.add(executor.submit(() -> getQuietly(jar)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // getQuietly() does not throw
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void getQuietly(File jar) {
+        try {
+            get(jar);
+        } catch (IOException e) {
+            // the jar is skipped, as it is when scanned directly
+        }
+    }
+
+    /**
+     * @return the classes of the jar in the order they are stored, mapped to the name of their
+     * super class or an empty string if they have none
+     */
+    @NonNull
+    public static Map<String, String> get(@NonNull File jar) throws IOException {
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+
+        Hierarchy hierarchy = sLoaded.get(jar);
+        if (hierarchy != null && hierarchy.length == length &&
+            hierarchy.lastModified == lastModified) {
+            return hierarchy.classes;
+        }
+
+        File indexFile = getIndexFile(jar);
+        hierarchy = read(indexFile);
+        if (hierarchy == null ||
+            hierarchy.length != length ||
+            hierarchy.lastModified != lastModified) {
+            String hash = hash(jar);
+            if (hierarchy != null && hierarchy.length == length && hash.equals(hierarchy.hash)) {
+                hierarchy = new Hierarchy(length, lastModified, hash, hierarchy.classes);
+            } else {
+                hierarchy = new Hierarchy(length, lastModified, hash, scan(jar));
+            }
+            write(indexFile, hierarchy);
+        }
+        sLoaded.put(jar, hierarchy);
+        return hierarchy.classes;
+    }
+
+    private static Map<String, String> scan(File jar) throws IOException {
+        Map<String, String> classes = new LinkedHashMap<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            List<JarEntry> entries = new ArrayList<>();
+            BytecodeScanner.iterateClasses(jarFile, entries::add);
+            for (JarEntry entry : entries) {
+                // One stream per class of the already opened jar, instead of opening the jar
+                // for every class
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    JavaClass javaClass =
+                            new PartialClassParser(inputStream, entry.getName()).parse();
+                    String superclass = "java.lang.Object".equals(javaClass.getClassName())
+                            ? ""
+                            : javaClass.getSuperclassName();
+                    classes.put(javaClass.getClassName(), superclass);
+                } catch (IOException | RuntimeException e) {
+                    // ignored, keep parsing other classes
+                }
+            }
+        }
+        return Collections.unmodifiableMap(classes);
+    }
+
+    private static String hash(File jar) throws IOException {
+        return Files.asByteSource(jar).hash(Hashing.murmur3_128()).toString();
+    }
+
+    private static File getIndexFile(File jar) {
+        return new File(jar.getParentFile(), jar.getName() + INDEX_SUFFIX);
+    }
+
+    @Nullable
+    private static Hierarchy read(File indexFile) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (input.readInt() != VERSION) {
+                return null;
+            }
+            long length = input.readLong();
+            long lastModified = input.readLong();
+            String hash = input.readUTF();
+            int count = input.readInt();
+            Map<String, String> classes = new LinkedHashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                classes.put(input.readUTF(), input.readUTF());
+            }
+            return new Hierarchy(length, lastModified, hash, Collections.unmodifiableMap(classes));
+        } catch (IOException e) {
+            // a broken index is parsed again
+            return null;
+        }
+    }
+
+    private static void write(File indexFile, Hierarchy hierarchy) {
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            output.writeInt(VERSION);
+            output.writeLong(hierarchy.length);
+            output.writeLong(hierarchy.lastModified);
+            output.writeUTF(hierarchy.hash);
+            output.writeInt(hierarchy.classes.size());
+            for (Map.Entry<String, String> entry : hierarchy.classes.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+        } catch (IOException e) {
+            // the jar is parsed again next time
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            indexFile.delete();
+            if (!tempFile.renameTo(indexFile)) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private static class Hierarchy {
+        private final long length;
+        private final long lastModified;
+        private final String hash;
+        private final Map<String, String> classes;
+
+        private Hierarchy(long length, long lastModified, String hash,
+                          Map<String, String> classes) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.classes = classes;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.widget.TextView;
 import android.widget.ViewFlipper;
 import android.widget.ViewSwitcher;
 
+import com.tyron.builder.BuildModule;
 import com.tyron.builder.project.Project;
 import com.tyron.builder.project.api.AndroidModule;
 import com.tyron.common.ApplicationProvider;
@@ -85,6 +86,21 @@ public class XmlRepository {
         if (mInitialized) {
             return;
         }
+        // Read or parse the hierarchies of all jars up front, changed jars are parsed concurrently
+        List<File> jars = new ArrayList<>();
+        File androidJar = BuildModule.getAndroidJar();
+        if (androidJar != null && androidJar.exists()) {
+            jars.add(androidJar);
+        }
+        for (File library : module.getLibraries()) {
+            File parent = library.getParentFile();
+            if (parent != null && new File(parent, "classes.jar").exists()) {
+                jars.add(new File(parent, "classes.jar"));
+            }
+            jars.add(library);
+        }
+        ClassHierarchyIndex.prefetch(jars);
+
         BytecodeScanner.scanBootstrapIfNeeded();
 
         mRepository = new ResourceRepository(module);
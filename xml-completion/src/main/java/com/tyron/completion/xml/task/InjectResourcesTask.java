@@ -97,16 +97,14 @@ public class InjectResourcesTask {
             ResourceRepository repository = xmlRepository.getRepository();
             try {
                 FileManager fileManager = mModule.getFileManager();
-                CharSequence contents = null;
-                if (fileManager.isOpened(it)) {
-                    Optional<CharSequence> fileContent = fileManager.getFileContent(it);
-                    if (fileContent.isPresent()) {
-                        contents = fileContent.get();
-                    }
+                // also returns the contents of closed files which are not yet saved
+                Optional<CharSequence> fileContent = fileManager.getFileContent(it);
+                if (fileContent.isPresent()) {
+                    repository.updateFile(it, fileContent.get().toString());
                 } else {
-                    contents = FileUtils.readFileToString(it, StandardCharsets.UTF_8);
+                    // skipped if the file did not change since it was last parsed
+                    repository.updateFile(it);
                 }
-                repository.updateFile(it, contents.toString());
             } catch (IOException e) {
                 // ignored
             }